@@ -2,25 +2,29 @@ package com.TranAn.BackEnd_Works.advice;
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
 import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpResponse;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestControllerAdvice
 public class ApiResponseAdvice implements ResponseBodyAdvice<Object> {
-    private static final List<String> EXCLUDE_PATTERNS = Arrays.asList(
+    // Biên dịch một lần, mỗi response chỉ còn duyệt qua các PathPattern
+    private static final List<PathPattern> EXCLUDE_PATTERNS = Stream.of(
             "/swagger-ui/**",
             "/v3/api-docs/**",
             "/swagger-resources/**",
@@ -30,17 +34,18 @@ public class ApiResponseAdvice implements ResponseBodyAdvice<Object> {
             "/error",
             "/doc.html"
 
-    );
-    private static final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    ).map(PathPatternParser.defaultInstance::parse).toList();
 
 
     @Override
     public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         if (attributes != null) {
-            String path = attributes.getRequest().getRequestURI();
-            for (String pattern : EXCLUDE_PATTERNS) {
-                if (antPathMatcher.match(pattern, path)) {
+            HttpServletRequest request = attributes.getRequest();
+            PathContainer path = PathContainer.parsePath(
+                    request.getRequestURI().substring(request.getContextPath().length()));
+            for (PathPattern pattern : EXCLUDE_PATTERNS) {
+                if (pattern.matches(path)) {
                     return false;
                 }
             }
@@ -1,8 +1,10 @@
 package com.TranAn.BackEnd_Works.advice;
 
+import com.TranAn.BackEnd_Works.advice.exception.AiServiceTimeoutException;
 import com.TranAn.BackEnd_Works.advice.exception.ImmutableFieldException;
 import com.TranAn.BackEnd_Works.advice.exception.InvalidImageDataException;
 import com.TranAn.BackEnd_Works.advice.exception.ResourceAlreadyExistsException;
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
 import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -210,6 +212,29 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<?>> handleTooManyRequestsException(
+            TooManyRequestsException ex
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(new ApiResponse<>(
+                        ex.getMessage(),
+                        "TOO_MANY_REQUESTS"
+                ));
+    }
+
+    @ExceptionHandler(AiServiceTimeoutException.class)
+    public ResponseEntity<ApiResponse<?>> handleAiServiceTimeoutException(
+            AiServiceTimeoutException ex
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(new ApiResponse<>(
+                        ex.getMessage(),
+                        "AI_TIMEOUT"
+                ));
+    }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponse<?>> handleIllegalArgumentException(
@@ -0,0 +1,7 @@
+package com.TranAn.BackEnd_Works.advice.exception;
+
+public class AiServiceTimeoutException extends RuntimeException {
+    public AiServiceTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.TranAn.BackEnd_Works.advice.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
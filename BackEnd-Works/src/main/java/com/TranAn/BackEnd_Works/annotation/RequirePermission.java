@@ -0,0 +1,26 @@
+package com.TranAn.BackEnd_Works.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Yêu cầu người dùng có quyền "METHOD /path" để gọi method của controller.
+ * <p>
+ * Thay cho {@code @PreAuthorize("hasAuthority('...')")}: không qua SpEL, quyền được tra thành
+ * permission id một lần rồi kiểm tra bằng một phép thử bit trên bitset quyền của token
+ * (xem PermissionAuthorizationManager).
+ * <p>
+ * {@code allowAnonymous = true} tương đương {@code hasAuthority('...') OR isAnonymous()}:
+ * khách chưa đăng nhập được gọi, người đã đăng nhập vẫn phải có quyền.
+ * <p>
+ * Đặt trên class thì áp dụng cho mọi method của controller; annotation trên method được ưu tiên.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RequirePermission {
+    String value();
+
+    boolean allowAnonymous() default false;
+}
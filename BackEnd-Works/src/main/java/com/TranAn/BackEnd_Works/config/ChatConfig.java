@@ -1,17 +1,94 @@
 package com.TranAn.BackEnd_Works.config;
 
+import com.TranAn.BackEnd_Works.service.tool.JobLookupTools;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.model.openai.autoconfigure.OpenAiChatProperties;
+import org.springframework.ai.model.openai.autoconfigure.OpenAiConnectionProperties;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
 
 @Configuration
 public class ChatConfig {
 
     @Bean
-    public ChatClient chatClient(ChatModel chatModel) {
+    public ChatClient chatClient(ChatModel chatModel, JobLookupTools jobLookupTools) {
         return ChatClient.builder(chatModel)
-                .defaultSystem("Tôi là công cụ AI giúp giải đáp thắc mắc của bạn")
+                .defaultSystem("Tôi là công cụ AI giúp giải đáp thắc mắc của bạn. " +
+                        "Khi được hỏi về việc làm hoặc tin tuyển dụng, hãy dùng các công cụ tra cứu job " +
+                        "để lấy dữ liệu thật thay vì tự suy đoán.")
+                .defaultTools(jobLookupTools)
+                .build();
+    }
+
+    // Dùng cho các tác vụ nền như tóm tắt hội thoại: không gắn công cụ tra cứu nên không chạm Database
+    @Bean
+    public ChatClient summaryChatClient(ChatModel chatModel) {
+        return ChatClient.builder(chatModel).build();
+    }
+
+    // Lời gọi AI dạng chặn đi qua RestClient: hủy Future không ngắt được I/O đang chờ,
+    // nên read timeout của HTTP client phải bằng thời gian tối đa của lời gọi (chat.execution.timeout).
+    // Thay bean của OpenAiChatAutoConfiguration để read timeout chỉ áp dụng cho RestClient của chat model,
+    // các RestClient khác trong ứng dụng giữ cấu hình mặc định
+    @Bean
+    public OpenAiChatModel openAiChatModel(
+            OpenAiConnectionProperties commonProperties,
+            OpenAiChatProperties chatProperties,
+            ObjectProvider<RestClient.Builder> restClientBuilderProvider,
+            ObjectProvider<WebClient.Builder> webClientBuilderProvider,
+            ToolCallingManager toolCallingManager,
+            RetryTemplate retryTemplate,
+            ResponseErrorHandler responseErrorHandler,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${chat.execution.timeout:60s}") Duration timeout
+    ) {
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings
+                .defaults()
+                .withReadTimeout(timeout);
+        // RestClient.Builder tự cấu hình là prototype: builder này chỉ thuộc về chat model
+        RestClient.Builder restClientBuilder = restClientBuilderProvider
+                .getIfAvailable(RestClient::builder)
+                .requestFactory(ClientHttpRequestFactoryBuilder.detect().build(settings));
+
+        // Cấu hình riêng của chat (spring.ai.openai.chat.*) ưu tiên hơn cấu hình chung (spring.ai.openai.*)
+        String baseUrl = StringUtils.hasText(chatProperties.getBaseUrl())
+                ? chatProperties.getBaseUrl()
+                : commonProperties.getBaseUrl();
+        String apiKey = StringUtils.hasText(chatProperties.getApiKey())
+                ? chatProperties.getApiKey()
+                : commonProperties.getApiKey();
+
+        OpenAiApi openAiApi = OpenAiApi.builder()
+                .baseUrl(baseUrl)
+                .apiKey(apiKey)
+                .completionsPath(chatProperties.getCompletionsPath())
+                .restClientBuilder(restClientBuilder)
+                .webClientBuilder(webClientBuilderProvider.getIfAvailable(WebClient::builder))
+                .responseErrorHandler(responseErrorHandler)
+                .build();
+
+        return OpenAiChatModel.builder()
+                .openAiApi(openAiApi)
+                .defaultOptions(chatProperties.getOptions())
+                .toolCallingManager(toolCallingManager)
+                .retryTemplate(retryTemplate)
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
                 .build();
     }
 }
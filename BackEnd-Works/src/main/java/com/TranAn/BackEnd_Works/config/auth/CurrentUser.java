@@ -0,0 +1,16 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+/**
+ * Định danh người dùng của request hiện tại, dựng từ claim của access token
+ * ("sub" = email, "uid", "role") nên không cần truy vấn bảng users.
+ * <p>
+ * {@code companyId} dùng cho kiểm tra quyền truy cập công ty nên không lấy từ claim "cid"
+ * (giữ nguyên tới khi token hết hạn) mà từ cache hồ sơ, bị bỏ ngay khi người dùng đổi công ty.
+ * {@code role} phản ánh thời điểm phát token.
+ */
+public record CurrentUser(Long id, String email, Long companyId, String role) {
+
+    public boolean hasCompany() {
+        return companyId != null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * JwtAuthenticationToken kèm bitset quyền (bit thứ i = permission id i).
+ * Danh sách authority vẫn giữ nguyên cho các chỗ cần đọc tên quyền,
+ * còn kiểm tra quyền chỉ dùng {@link #hasPermission(int)}.
+ */
+public class PermissionAuthenticationToken extends JwtAuthenticationToken {
+
+    private final BitSet permissionBits;
+
+    public PermissionAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities, BitSet permissionBits) {
+        super(jwt, authorities);
+        this.permissionBits = permissionBits;
+    }
+
+    public boolean hasPermission(int permissionId) {
+        return permissionId >= 0 && permissionBits.get(permissionId);
+    }
+}
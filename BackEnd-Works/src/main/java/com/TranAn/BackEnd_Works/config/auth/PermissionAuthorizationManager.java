@@ -0,0 +1,73 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Kiểm tra {@link RequirePermission} bằng phép thử bit thay cho biểu thức SpEL.
+ * <p>
+ * Annotation của mỗi method chỉ được đọc một lần; method không có annotation thì dùng annotation
+ * trên class của controller. Authority "METHOD /path" được tra
+ * thành permission id qua {@link PermissionCatalogue} (một lần tra HashMap), sau đó
+ * chỉ cần {@code bits.get(id)} trên bitset của token.
+ */
+public class PermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    // Bean hạ tầng được tạo rất sớm, danh mục quyền (cần JPA) chỉ lấy khi kiểm tra lần đầu
+    private final ObjectProvider<PermissionCatalogue> permissionCatalogueProvider;
+    private final Map<Method, Optional<RequirePermission>> requirements = new ConcurrentHashMap<>();
+
+    public PermissionAuthorizationManager(ObjectProvider<PermissionCatalogue> permissionCatalogueProvider) {
+        this.permissionCatalogueProvider = permissionCatalogueProvider;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        RequirePermission requirement = requirements.computeIfAbsent(invocation.getMethod(),
+                method -> findRequirement(method, invocation.getThis())).orElse(null);
+        if (requirement == null) return GRANTED;
+
+        Authentication current = authentication.get();
+        if (current == null || !current.isAuthenticated()) return DENIED;
+        if (current instanceof AnonymousAuthenticationToken)
+            return requirement.allowAnonymous() ? GRANTED : DENIED;
+
+        if (current instanceof PermissionAuthenticationToken token) {
+            int id = permissionCatalogueProvider.getObject().idOf(requirement.value());
+            return token.hasPermission(id) ? GRANTED : DENIED;
+        }
+
+        // Xác thực không qua JWT: so theo tên authority
+        for (GrantedAuthority authority : current.getAuthorities()) {
+            if (requirement.value().equals(authority.getAuthority())) return GRANTED;
+        }
+        return DENIED;
+    }
+
+    private static Optional<RequirePermission> findRequirement(Method method, Object target) {
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : method.getDeclaringClass();
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+
+        RequirePermission requirement = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RequirePermission.class);
+        if (requirement == null)
+            requirement = AnnotatedElementUtils.findMergedAnnotation(targetClass, RequirePermission.class);
+        return Optional.ofNullable(requirement);
+    }
+}
@@ -0,0 +1,41 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.Collection;
+
+/**
+ * Đọc quyền từ claim "pb" (bitset) + "pv" (version danh mục).
+ * Token phát trước khi đổi định dạng vẫn dùng claim "permissions" dạng chuỗi.
+ */
+@RequiredArgsConstructor
+public class PermissionBitsetAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    public static final String PERMISSION_BITS_CLAIM = "pb";
+    public static final String PERMISSION_VERSION_CLAIM = "pv";
+    private static final String LEGACY_PERMISSIONS_CLAIM = "permissions";
+
+    private final PermissionCatalogue permissionCatalogue;
+    private final JwtGrantedAuthoritiesConverter legacyConverter = legacyConverter();
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        String bits = jwt.getClaimAsString(PERMISSION_BITS_CLAIM);
+        if (bits == null) return legacyConverter.convert(jwt);
+
+        Object version = jwt.getClaim(PERMISSION_VERSION_CLAIM);
+        long tokenVersion = version instanceof Number number ? number.longValue() : -1;
+        return permissionCatalogue.decode(bits, tokenVersion);
+    }
+
+    private static JwtGrantedAuthoritiesConverter legacyConverter() {
+        JwtGrantedAuthoritiesConverter converter = new JwtGrantedAuthoritiesConverter();
+        converter.setAuthorityPrefix("");
+        converter.setAuthoritiesClaimName(LEGACY_PERMISSIONS_CLAIM);
+        return converter;
+    }
+}
@@ -0,0 +1,149 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import com.TranAn.BackEnd_Works.model.Permission;
+import com.TranAn.BackEnd_Works.repository.PermissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Danh mục quyền dùng để mã hóa quyền trong JWT dưới dạng bitset.
+ * <p>
+ * Bit thứ i ứng với permission có id = i, nên thêm / xóa quyền không làm lệch
+ * bit của token đã phát. Version là checksum của toàn bộ danh mục, token mang
+ * version lúc phát; gặp version lạ (node khác vừa đổi danh mục) thì nạp lại.
+ * Mỗi quyền chỉ có một GrantedAuthority dùng chung, giải mã không cấp phát thêm.
+ * <p>
+ * Chuỗi "METHOD /path" được intern thành permission id ({@link #idOf(String)}) để
+ * kiểm tra quyền chỉ còn là một phép thử bit trên bitset của token.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionCatalogue {
+
+    // Không nạp lại quá thường xuyên khi gặp token mang version cũ
+    private static final long RELOAD_INTERVAL_MS = 5_000;
+
+    private final PermissionRepository permissionRepository;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastReloadAt;
+
+    public long version() {
+        return current().version;
+    }
+
+    /**
+     * Mã hóa danh sách quyền của role thành bitset base64url
+     */
+    public String encode(Collection<Permission> permissions) {
+        BitSet bits = new BitSet();
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                bits.set(Math.toIntExact(permission.getId()));
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray());
+    }
+
+    /**
+     * Giải mã bitset trong token (bit thứ i = permission id i)
+     */
+    public static BitSet bits(String encoded) {
+        return BitSet.valueOf(Base64.getUrlDecoder().decode(encoded));
+    }
+
+    /**
+     * Permission id của authority "METHOD /path", -1 nếu danh mục không có quyền này
+     */
+    public int idOf(String authority) {
+        Integer id = current().ids.get(authority);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Giải mã bitset trong token thành danh sách authority ("METHOD /path")
+     */
+    public List<GrantedAuthority> decode(String encoded, long tokenVersion) {
+        Snapshot current = current();
+        if (tokenVersion != current.version) current = reloadThrottled();
+
+        BitSet bits = bits(encoded);
+        List<GrantedAuthority> authorities = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            if (i < current.authorities.length && current.authorities[i] != null) {
+                authorities.add(current.authorities[i]);
+            }
+        }
+        return authorities;
+    }
+
+    /**
+     * Đánh dấu danh mục đã thay đổi, lần dùng kế tiếp sẽ nạp lại từ Database.
+     * Trong transaction thì chờ commit xong, tránh request khác nạp lại dữ liệu cũ.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshot = null;
+                }
+            });
+            return;
+        }
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    private Snapshot reloadThrottled() {
+        if (System.currentTimeMillis() - lastReloadAt < RELOAD_INTERVAL_MS) return current();
+        return reload();
+    }
+
+    private synchronized Snapshot reload() {
+        List<Permission> permissions = new ArrayList<>(permissionRepository.findAll());
+        permissions.sort(Comparator.comparing(Permission::getId));
+
+        int size = permissions.isEmpty() ? 0 : Math.toIntExact(permissions.get(permissions.size() - 1).getId()) + 1;
+        GrantedAuthority[] authorities = new GrantedAuthority[size];
+        Map<String, Integer> ids = new HashMap<>(permissions.size() * 2);
+        CRC32 checksum = new CRC32();
+        for (Permission permission : permissions) {
+            String authority = permission.getMethod() + " " + permission.getApiPath();
+            int id = Math.toIntExact(permission.getId());
+            authorities[id] = new SimpleGrantedAuthority(authority);
+            ids.put(authority, id);
+            checksum.update((permission.getId() + "=" + authority + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        Snapshot loaded = new Snapshot(checksum.getValue(), authorities, ids);
+        snapshot = loaded;
+        lastReloadAt = System.currentTimeMillis();
+        log.debug("Loaded permission catalogue version {} ({} permissions)", loaded.version, permissions.size());
+        return loaded;
+    }
+
+    private record Snapshot(long version, GrantedAuthority[] authorities, Map<String, Integer> ids) {
+    }
+}
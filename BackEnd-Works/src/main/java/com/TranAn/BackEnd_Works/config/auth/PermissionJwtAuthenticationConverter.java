@@ -0,0 +1,45 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Dựng {@link PermissionAuthenticationToken} từ JWT.
+ * Token mới lấy thẳng bitset trong claim "pb"; token cũ (claim "permissions" dạng chuỗi)
+ * được đổi sang bitset qua danh mục quyền.
+ */
+public class PermissionJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private final PermissionCatalogue permissionCatalogue;
+    private final PermissionBitsetAuthoritiesConverter authoritiesConverter;
+
+    public PermissionJwtAuthenticationConverter(PermissionCatalogue permissionCatalogue) {
+        this.permissionCatalogue = permissionCatalogue;
+        this.authoritiesConverter = new PermissionBitsetAuthoritiesConverter(permissionCatalogue);
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        // Giải mã authority trước: gặp version danh mục lạ thì danh mục được nạp lại ở bước này
+        Collection<GrantedAuthority> authorities = authoritiesConverter.convert(jwt);
+
+        String encoded = jwt.getClaimAsString(PermissionBitsetAuthoritiesConverter.PERMISSION_BITS_CLAIM);
+        BitSet bits = encoded != null ? PermissionCatalogue.bits(encoded) : toBits(authorities);
+        return new PermissionAuthenticationToken(jwt, authorities, bits);
+    }
+
+    private BitSet toBits(Collection<GrantedAuthority> authorities) {
+        BitSet bits = new BitSet();
+        if (authorities == null) return bits;
+        for (GrantedAuthority authority : authorities) {
+            int id = permissionCatalogue.idOf(authority.getAuthority());
+            if (id >= 0) bits.set(id);
+        }
+        return bits;
+    }
+}
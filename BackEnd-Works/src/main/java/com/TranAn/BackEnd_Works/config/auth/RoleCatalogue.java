@@ -0,0 +1,226 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import com.TranAn.BackEnd_Works.model.Permission;
+import com.TranAn.BackEnd_Works.model.Role;
+import com.TranAn.BackEnd_Works.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Danh mục role cùng tập quyền của từng role, giữ trong bộ nhớ.
+ * <p>
+ * Đăng nhập / làm mới token đọc tên quyền và bitset quyền của role từ đây,
+ * không chạm tới bảng roles_permissions. Cả danh mục được nạp bằng một truy vấn.
+ * <p>
+ * Version của danh mục là bộ đếm trong Redis. Khi role hoặc quyền thay đổi, instance thực hiện
+ * thay đổi tăng version (sau commit) rồi phát version mới qua pub/sub; các instance khác nhận
+ * được version lớn hơn version đang giữ thì bỏ danh mục cũ và nạp lại ở lần dùng kế tiếp.
+ * Pub/sub có thể mất tin khi mất kết nối nên danh mục còn tự nạp lại sau {@code max-age}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleCatalogue {
+
+    private static final String VERSION_KEY = "auth::role_catalogue:version";
+    private static final String CHANNEL = "auth::role_catalogue";
+
+    // Không nạp lại quá thường xuyên khi gặp role chưa có trong danh mục
+    private static final long RELOAD_INTERVAL_MS = 5_000;
+
+    private final RoleRepository roleRepository;
+    private final PermissionCatalogue permissionCatalogue;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${role-catalogue.max-age:10m}")
+    private Duration maxAge;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastReloadAt;
+
+    // Version lớn nhất đã nhận qua pub/sub (hoặc tự tăng); bản nạp với version nhỏ hơn là bản cũ
+    private final AtomicLong latestSeenVersion = new AtomicLong();
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onVersionChanged(message),
+                new ChannelTopic(CHANNEL)
+        );
+    }
+
+    public long version() {
+        return current().version;
+    }
+
+    /**
+     * Role cùng tập quyền theo id. Role vừa tạo ở instance khác chưa có trong danh mục
+     * thì nạp lại một lần, vẫn không có thì dựng trực tiếp từ entity
+     */
+    public RoleEntry get(Role role) {
+        if (role == null) return null;
+
+        RoleEntry entry = current().roles.get(role.getId());
+        if (entry == null) entry = reloadThrottled().roles.get(role.getId());
+        return entry != null ? entry : toEntry(role);
+    }
+
+    /**
+     * Đánh dấu danh mục đã thay đổi: bỏ bản cục bộ, tăng version trong Redis và báo cho
+     * các instance khác. Trong transaction thì chờ commit xong mới thực hiện.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast();
+                }
+            });
+            return;
+        }
+        broadcast();
+    }
+
+    private void broadcast() {
+        snapshot = null;
+        try {
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY);
+            if (version != null) latestSeenVersion.accumulateAndGet(version, Math::max);
+            redisTemplate.convertAndSend(CHANNEL, String.valueOf(version));
+        } catch (Exception e) {
+            // Redis lỗi: instance hiện tại đã nạp lại, các instance khác chờ max-age
+            log.warn("Không thể phát thay đổi danh mục role: {}", e.getMessage());
+        }
+    }
+
+    private void onVersionChanged(Message message) {
+        long version;
+        try {
+            version = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        latestSeenVersion.accumulateAndGet(version, Math::max);
+
+        Snapshot current = snapshot;
+        if (current != null && current.version >= version) return;
+
+        snapshot = null;
+        // Đổi quyền cũng làm đổi danh mục quyền dùng để giải mã token
+        permissionCatalogue.invalidate();
+        log.debug("Role catalogue version {} received, reloading on next use", version);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < maxAge.toMillis()) return current;
+        return reload();
+    }
+
+    private Snapshot reloadThrottled() {
+        if (System.currentTimeMillis() - lastReloadAt < RELOAD_INTERVAL_MS) return current();
+        return reload();
+    }
+
+    private synchronized Snapshot reload() {
+        // Đọc version trước khi đọc Database: thay đổi xen giữa sẽ mang version lớn hơn.
+        // Tin nhắn của nó có thể tới trước khi bản vừa nạp được gán, nên so với latestSeenVersion
+        // sau khi nạp thay vì dựa vào việc onVersionChanged đặt snapshot = null
+        long seenBefore = latestSeenVersion.get();
+        long version = readVersion();
+
+        List<Role> roles = roleRepository.findAllWithPermissions();
+        Map<Long, RoleEntry> entries = new HashMap<>(roles.size() * 2);
+        for (Role role : roles) {
+            entries.put(role.getId(), toEntry(role));
+        }
+
+        Snapshot loaded = new Snapshot(version, Map.copyOf(entries), System.currentTimeMillis());
+        lastReloadAt = loaded.loadedAt;
+        // Chỉ so với tin nhắn nhận trong lúc nạp: Redis bị xóa làm version quay về 0 thì không kẹt ở đây
+        long seenAfter = latestSeenVersion.get();
+        if (seenAfter != seenBefore && seenAfter > version) {
+            // Có thay đổi mới hơn trong lúc nạp: dùng cho lần gọi này nhưng không giữ lại
+            snapshot = null;
+            log.debug("Role catalogue version {} is already stale, reloading on next use", version);
+            return loaded;
+        }
+        snapshot = loaded;
+        log.debug("Loaded role catalogue version {} ({} roles)", version, entries.size());
+        return loaded;
+    }
+
+    private long readVersion() {
+        try {
+            String value = redisTemplate.opsForValue().get(VERSION_KEY);
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (Exception e) {
+            log.warn("Không đọc được version danh mục role: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private RoleEntry toEntry(Role role) {
+        Collection<Permission> permissions = role.getPermissions() != null ? role.getPermissions() : List.of();
+
+        List<PermissionEntry> permissionEntries = permissions
+                .stream()
+                .sorted(Comparator.comparing(Permission::getId))
+                .map(p -> new PermissionEntry(p.getId(), p.getName(), p.getApiPath(), p.getMethod(), p.getModule()))
+                .toList();
+        List<String> authorities = permissionEntries
+                .stream()
+                .map(p -> p.method() + " " + p.apiPath())
+                .toList();
+
+        return new RoleEntry(
+                role.getId(),
+                role.getName(),
+                role.isActive(),
+                permissionEntries,
+                authorities,
+                permissionCatalogue.encode(permissions)
+        );
+    }
+
+    /**
+     * @param authorities    tên quyền dạng "METHOD /path"
+     * @param permissionBits bitset quyền đã mã hóa cho claim "pb"
+     */
+    public record RoleEntry(
+            Long id,
+            String name,
+            boolean active,
+            List<PermissionEntry> permissions,
+            List<String> authorities,
+            String permissionBits
+    ) {
+    }
+
+    public record PermissionEntry(Long id, String name, String apiPath, String method, String module) {
+    }
+
+    private record Snapshot(long version, Map<Long, RoleEntry> roles, long loadedAt) {
+    }
+}
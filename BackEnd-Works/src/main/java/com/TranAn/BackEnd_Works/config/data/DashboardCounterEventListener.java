@@ -0,0 +1,226 @@
+package com.TranAn.BackEnd_Works.config.data;
+
+import com.TranAn.BackEnd_Works.model.Company;
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.Resume;
+import com.TranAn.BackEnd_Works.model.Role;
+import com.TranAn.BackEnd_Works.model.Skill;
+import com.TranAn.BackEnd_Works.model.Subscriber;
+import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.service.DashboardCounterService;
+import com.TranAn.BackEnd_Works.service.DashboardCounterService.Leaderboard;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreCollectionRemoveEvent;
+import org.hibernate.event.spi.PreCollectionRemoveEventListener;
+import org.hibernate.event.spi.PreCollectionUpdateEvent;
+import org.hibernate.event.spi.PreCollectionUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cập nhật bộ đếm dashboard từ sự kiện của Hibernate.
+ * <p>
+ * Insert / delete của User, Job, Resume, Company, Subscriber cộng / trừ bộ đếm tổng
+ * và bộ đếm theo nhóm (chức vụ, level, trạng thái); update chỉ quan tâm khi nhóm thay đổi,
+ * so sánh với trạng thái cũ Hibernate giữ sẵn nên không cần thêm trường vào entity.
+ * <p>
+ * Bảng xếp hạng: job cộng / trừ điểm cho company, resume cho job và company của job,
+ * collection Job.skills cho skill (so sánh snapshot Hibernate giữ khi load với phần tử hiện tại).
+ * Bộ đếm chỉ được ghi sau khi transaction commit (xem DashboardCounterService#add).
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardCounterEventListener implements
+        PostInsertEventListener,
+        PostDeleteEventListener,
+        PostUpdateEventListener,
+        PostCollectionRecreateEventListener,
+        PreCollectionUpdateEventListener,
+        PreCollectionRemoveEventListener {
+
+    private static final String JOB_SKILLS_ROLE = Job.class.getName() + ".skills";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DashboardCounterService dashboardCounterService;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.PRE_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.PRE_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        count(event.getEntity(), 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        count(event.getEntity(), -1);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // Entity merge từ trạng thái detached không có trạng thái cũ: để reconcile xử lý
+        Object[] oldState = event.getOldState();
+        if (oldState == null) return;
+
+        switch (event.getEntity()) {
+            case User user -> moved(
+                    roleName(oldState[propertyIndex(event.getPersister(), "role")]),
+                    roleName(user.getRole()),
+                    DashboardCounterService::usersByRole);
+            case Job job -> {
+                moved(
+                        oldState[propertyIndex(event.getPersister(), "level")],
+                        job.getLevel(),
+                        DashboardCounterService::jobsByLevel);
+                // Điểm resume của company cũ không chuyển theo job: để reconcile xử lý
+                Long oldCompanyId = companyId(oldState[propertyIndex(event.getPersister(), "company")]);
+                Long newCompanyId = companyId(job.getCompany());
+                if (!Objects.equals(oldCompanyId, newCompanyId)) {
+                    dashboardCounterService.addToLeaderboard(Leaderboard.COMPANIES_BY_JOBS, oldCompanyId, -1);
+                    dashboardCounterService.addToLeaderboard(Leaderboard.COMPANIES_BY_JOBS, newCompanyId, 1);
+                }
+            }
+            case Resume resume -> moved(
+                    oldState[propertyIndex(event.getPersister(), "status")],
+                    resume.getStatus(),
+                    DashboardCounterService::resumesByStatus);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        if (!isJobSkills(event)) return;
+        skillsChanged(skillCounts(event.getCollection()), Map.of());
+    }
+
+    @Override
+    public void onPreUpdateCollection(PreCollectionUpdateEvent event) {
+        if (!isJobSkills(event)) return;
+        PersistentCollection<?> collection = event.getCollection();
+        Map<Long, Long> before = collection.getStoredSnapshot() instanceof Collection<?> snapshot
+                ? skillCounts(snapshot)
+                : Map.of();
+        skillsChanged(skillCounts(collection), before);
+    }
+
+    @Override
+    public void onPreRemoveCollection(PreCollectionRemoveEvent event) {
+        // Collection chưa load (xóa job mà không chạm tới skills): không đọc thêm trong lúc flush, để reconcile xử lý
+        if (!isJobSkills(event) || !event.getCollection().wasInitialized()) return;
+        skillsChanged(Map.of(), skillCounts(event.getCollection()));
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void count(Object entity, long delta) {
+        switch (entity) {
+            case User user -> {
+                dashboardCounterService.add(DashboardCounterService.USERS_TOTAL, delta);
+                String roleName = roleName(user.getRole());
+                if (roleName != null) dashboardCounterService.add(DashboardCounterService.usersByRole(roleName), delta);
+            }
+            case Job job -> {
+                dashboardCounterService.add(DashboardCounterService.JOBS_TOTAL, delta);
+                if (job.getLevel() != null)
+                    dashboardCounterService.add(DashboardCounterService.jobsByLevel(job.getLevel()), delta);
+                dashboardCounterService.addToLeaderboard(Leaderboard.COMPANIES_BY_JOBS, companyId(job.getCompany()), delta);
+            }
+            case Resume resume -> {
+                dashboardCounterService.add(DashboardCounterService.RESUMES_TOTAL, delta);
+                if (resume.getStatus() != null)
+                    dashboardCounterService.add(DashboardCounterService.resumesByStatus(resume.getStatus()), delta);
+                if (resume.getJob() != null) {
+                    dashboardCounterService.addToLeaderboard(Leaderboard.JOBS_BY_RESUMES, resume.getJob().getId(), delta);
+                    dashboardCounterService.addToLeaderboard(Leaderboard.COMPANIES_BY_RESUMES, companyId(resume.getJob().getCompany()), delta);
+                }
+            }
+            case Company ignored -> dashboardCounterService.add(DashboardCounterService.COMPANIES_TOTAL, delta);
+            case Subscriber ignored -> dashboardCounterService.add(DashboardCounterService.SUBSCRIBERS_TOTAL, delta);
+            default -> {
+            }
+        }
+    }
+
+    private <T> void moved(T before, T after, Function<T, String> counter) {
+        if (Objects.equals(before, after)) return;
+        if (before != null) dashboardCounterService.add(counter.apply(before), -1);
+        if (after != null) dashboardCounterService.add(counter.apply(after), 1);
+    }
+
+    private void skillsChanged(Map<Long, Long> after, Map<Long, Long> before) {
+        Map<Long, Long> deltas = new HashMap<>(after);
+        before.forEach((skillId, count) -> deltas.merge(skillId, -count, Long::sum));
+        deltas.forEach((skillId, delta) -> {
+            if (delta != 0) dashboardCounterService.addToLeaderboard(Leaderboard.SKILLS_BY_JOBS, skillId, delta);
+        });
+    }
+
+    private static Map<Long, Long> skillCounts(Object elements) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (elements instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                if (element instanceof Skill skill && skill.getId() != null)
+                    counts.merge(skill.getId(), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static boolean isJobSkills(AbstractCollectionEvent event) {
+        return JOB_SKILLS_ROLE.equals(event.getCollection().getRole());
+    }
+
+    private static Long companyId(Object company) {
+        return company instanceof Company c ? c.getId() : null;
+    }
+
+    private static String roleName(Object role) {
+        return role instanceof Role r ? r.getName() : null;
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) return i;
+        }
+        throw new IllegalArgumentException("Unknown property " + property + " of " + persister.getEntityName());
+    }
+}
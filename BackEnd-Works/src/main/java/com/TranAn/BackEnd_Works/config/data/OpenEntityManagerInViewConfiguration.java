@@ -0,0 +1,34 @@
+package com.TranAn.BackEnd_Works.config.data;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Thay interceptor Open-EntityManager-in-View mặc định của Spring Boot.
+ * <p>
+ * Với OSIV, connection lấy ở truy vấn đầu tiên được giữ đến hết request.
+ * Các API chat chờ AI trả lời nhiều giây nên được loại ra, để mỗi bước
+ * Database trả connection về pool ngay khi transaction ngắn kết thúc.
+ */
+@Configuration
+public class OpenEntityManagerInViewConfiguration implements WebMvcConfigurer {
+
+    private static final String[] EXCLUDED_PATHS = {
+            "/chat-message",
+            "/chat-message/**"
+    };
+
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(EXCLUDED_PATHS);
+    }
+}
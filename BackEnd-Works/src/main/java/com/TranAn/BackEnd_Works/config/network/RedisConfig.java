@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.config.network;
 
-import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.PendingChatMessage;
 import com.TranAn.BackEnd_Works.model.SessionMeta;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,7 +20,7 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -126,27 +127,50 @@ public class RedisConfig {
     }
 
     // =====================================================================
-    // 4. RedisTemplate cho Chat History (List<ChatMessage>)
-    //    - Lưu lịch sử chat của user với AI
-    //    - Key: chat::history:userId:sessionId
-    //    - Value: List<ChatMessage>
+    // 4. RedisTemplate cho Chat History (ChatHistoryEntry)
+    //    - Lưu lịch sử chat của user với AI dưới dạng Redis list
+    //    - Key: chat::messages:userId:sessionId
+    //    - Mỗi phần tử: một ChatHistoryEntry (JSON gọn, không kèm User)
     // =====================================================================
     @Bean
-    public RedisTemplate<String, List<ChatMessage>> redisChatTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, List<ChatMessage>> template = new RedisTemplate<>();
+    public RedisTemplate<String, ChatHistoryEntry> redisChatTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, ChatHistoryEntry> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
         // KEY
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
 
-        // VALUE - Serialize List<ChatMessage> thành JSON
-        // Sử dụng GenericJackson2JsonRedisSerializer để giữ được generic type
+        // VALUE - Serialize từng ChatHistoryEntry thành JSON
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        // Disable tính năng tự động phát hiện properties để tránh serialize lazy loaded entities
         objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        Jackson2JsonRedisSerializer<ChatHistoryEntry> valueSerializer =
+                new Jackson2JsonRedisSerializer<>(objectMapper, ChatHistoryEntry.class);
+
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+
+        return template;
+    }
+
+    // =====================================================================
+    // 4b. RedisTemplate cho hàng đợi write-behind của chat (PendingChatMessage)
+    //    - Key: chat::pending (một list dùng chung, flush theo batch xuống Database)
+    // =====================================================================
+    @Bean
+    public RedisTemplate<String, PendingChatMessage> redisPendingChatTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, PendingChatMessage> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Jackson2JsonRedisSerializer<PendingChatMessage> valueSerializer =
+                new Jackson2JsonRedisSerializer<>(objectMapper, PendingChatMessage.class);
 
         template.setValueSerializer(valueSerializer);
         template.setHashValueSerializer(valueSerializer);
@@ -181,4 +205,15 @@ public class RedisConfig {
                 .transactionAware()
                 .build();
     }
-}
\ No newline at end of file
+
+    // =====================================================================
+    // 7. Container lắng nghe Redis pub/sub
+    //    - Dùng để phát tín hiệu đổi danh mục role / quyền giữa các instance
+    // =====================================================================
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
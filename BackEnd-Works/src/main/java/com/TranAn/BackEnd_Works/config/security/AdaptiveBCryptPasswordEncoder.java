@@ -0,0 +1,205 @@
+package com.TranAn.BackEnd_Works.config.security;
+
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt chạy trên pool riêng thay vì trên thread của Tomcat.
+ * <p>
+ * - Số thread băm bằng số core, hàng đợi có giới hạn; đầy hoặc chờ quá lâu thì trả 429<br>
+ * - Cost được hiệu chỉnh khi khởi động: cost cao nhất mà một lần băm vẫn dưới thời gian mục tiêu
+ *   (trong khoảng min-cost..max-cost), hoặc cố định bằng {@code security.password.bcrypt.cost}<br>
+ * - {@link #upgradeEncoding(String)} báo cần băm lại khi cost đã lưu khác cost hiện tại,
+ *   DaoAuthenticationProvider sẽ gọi UserDetailsPasswordService để lưu hash mới ngay khi đăng nhập
+ * <p>
+ * Chạy nhiều node có cấu hình phần cứng khác nhau thì nên cố định cost để các node không băm lại qua lại.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final String CALIBRATION_SAMPLE = "calibration-password";
+
+    private final MeterRegistry meterRegistry;
+
+    // 0 = tự hiệu chỉnh theo thời gian mục tiêu
+    @Value("${security.password.bcrypt.cost:0}")
+    private int fixedCost;
+
+    @Value("${security.password.bcrypt.target-latency:100ms}")
+    private Duration targetLatency;
+
+    @Value("${security.password.bcrypt.min-cost:10}")
+    private int minCost;
+
+    @Value("${security.password.bcrypt.max-cost:14}")
+    private int maxCost;
+
+    // 0 = số core
+    @Value("${security.password.hashing.threads:0}")
+    private int threads;
+
+    @Value("${security.password.hashing.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${security.password.hashing.max-wait:5s}")
+    private Duration maxWait;
+
+    private int cost;
+    private BCryptPasswordEncoder delegate;
+    private ThreadPoolExecutor hashingExecutor;
+
+    private Timer queueWaitTimer;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        hashingExecutor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setName("password-hash-" + thread.getId());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        cost = fixedCost > 0 ? fixedCost : calibrate();
+        delegate = new BCryptPasswordEncoder(cost);
+        log.info("BCrypt cost = {} ({} thread băm, hàng đợi {})", cost, poolSize, queueCapacity);
+
+        queueWaitTimer = Timer.builder("password.hash.queue.wait")
+                .description("Thời gian chờ thread băm mật khẩu")
+                .register(meterRegistry);
+        encodeTimer = Timer.builder("password.hash.duration")
+                .description("Thời gian băm / kiểm tra mật khẩu")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        matchesTimer = Timer.builder("password.hash.duration")
+                .description("Thời gian băm / kiểm tra mật khẩu")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        meterRegistry.gauge("password.hash.queue.size", hashingExecutor, executor -> executor.getQueue().size());
+        meterRegistry.gauge("password.hash.active", hashingExecutor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("password.hash.cost", this, encoder -> encoder.cost);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) return false;
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) return false;
+
+        // Chỉ nâng cost, không hạ: node hiệu chỉnh lúc đang tải nặng / phần cứng chậm hơn không được
+        // làm yếu hash đã có, và các node khác cost không rehash qua lại cùng một user
+        return Integer.parseInt(matcher.group(2)) < cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = hashingExecutor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            throw reject("queue_full");
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject("timeout");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi xử lý mật khẩu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException("Không thể xử lý mật khẩu", e.getCause());
+        }
+    }
+
+    private TooManyRequestsException reject(String reason) {
+        Counter.builder("password.hash.rejections")
+                .description("Số yêu cầu băm mật khẩu bị từ chối")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return new TooManyRequestsException("Hệ thống đang xử lý quá nhiều yêu cầu đăng nhập. Vui lòng thử lại sau.");
+    }
+
+    /**
+     * Chọn cost cao nhất mà thời gian băm vẫn không vượt mục tiêu.
+     * Mỗi bậc cost gấp đôi thời gian nên dừng ngay khi bậc kế tiếp chắc chắn vượt.
+     */
+    private int calibrate() {
+        long targetNanos = targetLatency.toNanos();
+
+        // Làm nóng JIT để lần đo đầu không bị lệch
+        new BCryptPasswordEncoder(minCost).encode(CALIBRATION_SAMPLE);
+
+        int chosen = minCost;
+        for (int candidate = minCost; candidate <= maxCost; candidate++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(candidate).encode(CALIBRATION_SAMPLE);
+            long elapsed = System.nanoTime() - start;
+
+            if (elapsed > targetNanos) break;
+            chosen = candidate;
+            if (elapsed * 2 > targetNanos) break;
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,143 @@
+package com.TranAn.BackEnd_Works.config.security;
+
+import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
+import com.TranAn.BackEnd_Works.service.RateLimitService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Rate limit theo route, đặt sau bước xác thực JWT để dùng được user id làm key.
+ * <p>
+ * Pattern của các rule được biên dịch một lần khi khởi tạo. Mọi response của route có rule
+ * đều kèm header RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset, bị chặn thì trả 429
+ * với Retry-After trước khi request chạm tới controller.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean trustForwardedFor;
+    private final List<CompiledRule> rules;
+
+    public RateLimitFilter(
+            RateLimitService rateLimitService,
+            RateLimitProperties properties,
+            ObjectMapper objectMapper
+    ) {
+        this.rateLimitService = rateLimitService;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.isEnabled();
+        this.trustForwardedFor = properties.isTrustForwardedFor();
+
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        this.rules = properties.getRules()
+                .stream()
+                .map(rule -> new CompiledRule(rule, rule.getMethod(), parser.parse(rule.getPattern())))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        CompiledRule matched = match(request);
+        if (matched == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitProperties.Rule rule = matched.rule();
+        RateLimitService.Decision decision = rateLimitService.tryConsume(rule, resolveKey(rule, request));
+
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(decision.resetMillis())));
+
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader("Retry-After", String.valueOf(toSeconds(decision.retryAfterMillis())));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ApiResponse<?> apiResponse = new ApiResponse<>(
+                "Bạn gửi quá nhiều yêu cầu. Vui lòng thử lại sau.",
+                "TOO_MANY_REQUESTS"
+        );
+        objectMapper.writeValue(response.getWriter(), apiResponse);
+    }
+
+    private CompiledRule match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer pathContainer = PathContainer.parsePath(path);
+
+        for (CompiledRule compiled : rules) {
+            if (compiled.method() != null && !compiled.method().equalsIgnoreCase(request.getMethod()))
+                continue;
+            if (compiled.pattern().matches(pathContainer))
+                return compiled;
+        }
+        return null;
+    }
+
+    private String resolveKey(RateLimitProperties.Rule rule, HttpServletRequest request) {
+        if (rule.getKey() == RateLimitProperties.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+                Object uid = jwtAuthentication.getToken().getClaim("uid");
+                return "user:" + (uid != null ? uid : jwtAuthentication.getName());
+            }
+            if (authentication != null
+                    && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken))
+                return "user:" + authentication.getName();
+        }
+        return "ip:" + resolveClientIp(request);
+    }
+
+    private String resolveClientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    private record CompiledRule(RateLimitProperties.Rule rule, String method, PathPattern pattern) {
+    }
+}
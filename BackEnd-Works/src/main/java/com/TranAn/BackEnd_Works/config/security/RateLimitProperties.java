@@ -0,0 +1,67 @@
+package com.TranAn.BackEnd_Works.config.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cấu hình rate limit theo route, ví dụ ghi đè trong application.properties:
+ * <pre>
+ * rate-limit.rules[0].name=auth-login
+ * rate-limit.rules[0].method=POST
+ * rate-limit.rules[0].pattern=/auth/login
+ * rate-limit.rules[0].key=IP
+ * rate-limit.rules[0].capacity=10
+ * rate-limit.rules[0].refill-period=1m
+ * </pre>
+ * Ghi đè {@code rules} sẽ thay toàn bộ danh sách mặc định. Request chỉ áp dụng rule khớp đầu tiên.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Chỉ bật khi chạy sau proxy / CDN tin cậy, nếu không client có thể tự đặt IP giả
+    private boolean trustForwardedFor = false;
+
+    // Giới hạn số key bị chặn giữ trong bộ nhớ để chặn cục bộ không cần gọi Redis
+    private int localBlockCacheSize = 10000;
+
+    private List<Rule> rules = new ArrayList<>(List.of(
+            new Rule("auth-login", "POST", "/auth/login", KeyType.IP, 10, Duration.ofMinutes(1)),
+            new Rule("auth-refresh", "POST", "/auth/refresh-token", KeyType.IP, 30, Duration.ofMinutes(1)),
+            new Rule("auth-register", "POST", "/auth/register", KeyType.IP, 5, Duration.ofMinutes(10)),
+            new Rule("auth-password", null, "/auth/password/**", KeyType.IP, 10, Duration.ofMinutes(10)),
+            new Rule("chat", "POST", "/chat-message/**", KeyType.USER, 20, Duration.ofMinutes(1))
+    ));
+
+    public enum KeyType {
+        // Theo địa chỉ IP của client
+        IP,
+        // Theo user id trong token, request chưa đăng nhập thì theo IP
+        USER
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rule {
+        private String name;
+        // null = mọi method
+        private String method;
+        private String pattern;
+        private KeyType key = KeyType.IP;
+        // Số request tối đa trong một đợt
+        private int capacity;
+        // Thời gian để bucket rỗng được nạp đầy lại
+        private Duration refillPeriod;
+    }
+}
@@ -2,29 +2,40 @@ package com.TranAn.BackEnd_Works.config.security;
 
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
 import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Bỏ qua Bearer token ở các route không cần xác thực (token hết hạn không làm hỏng request).
+ * Danh sách route được biên dịch thành PathPattern một lần khi khởi tạo.
+ */
 public class SkipPathBearerTokenResolver implements BearerTokenResolver {
 
     private final BearerTokenResolver delegate = new DefaultBearerTokenResolver();
 
-    private final List<String> skipPaths = List.of(
-            "/auth/logout",
-            "/auth/register");
+    private final List<PathPattern> skipPaths = Stream.of(
+                    "/auth/logout",
+                    "/auth/register")
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
 
     @Override
     public String resolve(HttpServletRequest request) {
-        String path = request.getRequestURI();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer pathContainer = PathContainer.parsePath(path);
 
-        for (String skip : skipPaths) {
-            if (path.contains(skip)) {
+        for (PathPattern skip : skipPaths) {
+            if (skip.matches(pathContainer)) {
                 return null;
             }
         }
 
         return delegate.resolve(request);
     }
-}
\ No newline at end of file
+}
@@ -2,14 +2,14 @@ package com.TranAn.BackEnd_Works.controller;
 
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
-import com.TranAn.BackEnd_Works.service.AdminDashboardService;
+import com.TranAn.BackEnd_Works.service.DashboardSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,18 +20,19 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class AdminDashboardController {
 
-    private final AdminDashboardService adminDashboardService;
+    private final DashboardSnapshotService dashboardSnapshotService;
 
     @GetMapping("/stats")
     @ApiMessage("Lấy thống kê dashboard")
-    @PreAuthorize("hasAuthority('GET /admin/dashboard/stats')")
+    @RequirePermission("GET /admin/dashboard/stats")
     @Operation(
             summary = "Lấy thống kê tổng quan cho admin dashboard",
-            description = "Yêu cầu quyền: <b>GET /admin/dashboard/stats</b>"
+            description = "Yêu cầu quyền: <b>GET /admin/dashboard/stats</b><br>" +
+                    "Trả snapshot gần nhất kèm <b>generatedAt</b>; snapshot cũ được tính lại ở nền"
     )
     public ResponseEntity<?> getDashboardStats() {
         return ResponseEntity.ok(
-                adminDashboardService.getDashboardStats()
+                dashboardSnapshotService.getSnapshot()
         );
     }
 
@@ -107,6 +107,17 @@ public class AuthController {
         return ResponseEntity.ok(authService.getAllSelfSessionMetas(refreshToken));
     }
 
+    @DeleteMapping("/sessions")
+    @ApiMessage(value = "Đăng xuất khỏi tất cả thiết bị")
+    @Operation(summary = "Xóa tất cả phiên đăng nhập của người dùng hiện tại")
+    public ResponseEntity<Void> removeAllSelfSessions() {
+        ResponseCookie responseCookie = authService.handleLogoutAll();
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, responseCookie.toString())
+                .build();
+    }
+
     @DeleteMapping("/sessions/{sessionId}")
     @ApiMessage(value = "Xóa session")
     @Operation(summary = "Xóa phiên đăng nhập của người dùng theo id phiên")
@@ -0,0 +1,55 @@
+package com.TranAn.BackEnd_Works.controller;
+
+import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
+import com.TranAn.BackEnd_Works.dto.admin.ChatAnswerCacheResponseDto;
+import com.TranAn.BackEnd_Works.service.ChatAnswerCacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@Tag(name = "AI Chat Cache", description = "API quản lý cache câu trả lời của chatbot")
+@RestController
+@RequestMapping("/admin/chat-cache")
+@RequiredArgsConstructor
+public class ChatAnswerCacheController {
+
+    private final ChatAnswerCacheService chatAnswerCacheService;
+
+    @GetMapping
+    @ApiMessage("Lấy thông tin cache câu trả lời")
+    @RequirePermission("GET /admin/chat-cache")
+    @Operation(
+            summary = "Xem thống kê và các câu hỏi đang được cache",
+            description = "Yêu cầu quyền: <b>GET /admin/chat-cache</b>"
+    )
+    public ResponseEntity<ChatAnswerCacheResponseDto> inspect() {
+        return ResponseEntity.ok(chatAnswerCacheService.inspect());
+    }
+
+    @DeleteMapping
+    @ApiMessage("Xóa toàn bộ cache câu trả lời")
+    @RequirePermission("DELETE /admin/chat-cache")
+    @Operation(
+            summary = "Xóa toàn bộ cache câu trả lời",
+            description = "Yêu cầu quyền: <b>DELETE /admin/chat-cache</b>"
+    )
+    public ResponseEntity<Map<String, Integer>> purge() {
+        return ResponseEntity.ok(Map.of("removed", chatAnswerCacheService.purge()));
+    }
+
+    @DeleteMapping("/entry")
+    @ApiMessage("Xóa một mục khỏi cache câu trả lời")
+    @RequirePermission("DELETE /admin/chat-cache")
+    @Operation(
+            summary = "Xóa một câu hỏi khỏi cache theo khóa chuẩn hóa",
+            description = "Yêu cầu quyền: <b>DELETE /admin/chat-cache</b>"
+    )
+    public ResponseEntity<Map<String, Boolean>> evict(@RequestParam String key) {
+        return ResponseEntity.ok(Map.of("removed", chatAnswerCacheService.evict(key)));
+    }
+}
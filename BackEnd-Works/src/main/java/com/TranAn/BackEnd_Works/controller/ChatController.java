@@ -1,6 +1,9 @@
 package com.TranAn.BackEnd_Works.controller;
 
+import com.TranAn.BackEnd_Works.advice.exception.AiServiceTimeoutException;
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.ChatRequest;
 import com.TranAn.BackEnd_Works.dto.response.ChatMessageDto;
 import com.TranAn.BackEnd_Works.dto.response.ChatSessionDto;
@@ -10,26 +13,34 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 
+@Slf4j
 @Tag(name = "AI Chat", description = "API quản lý chat với AI")
 @RestController
 @RequiredArgsConstructor
 @RequestMapping()
 public class ChatController {
 
+    private static final String STREAM_ERROR_MESSAGE = "Không thể kết nối đến AI service. Vui lòng thử lại sau.";
+
     private final ChatService chatService;
 
     @PostMapping("/chat-message")
     @ApiMessage(value = "Gửi tin nhắn thành công")
-    @PreAuthorize("hasAuthority('POST /chat-message')")
+    @RequirePermission("POST /chat-message")
     @Operation(summary = "Gửi tin nhắn tới AI", description = "Yêu cầu quyền: <b>POST /chat-message</b>")
     public ResponseEntity<String> chatMessage(
             @Valid @RequestBody ChatRequest request,
@@ -40,9 +51,45 @@ public class ChatController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/chat-message/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @RequirePermission("POST /chat-message")
+    @Operation(
+            summary = "Gửi tin nhắn tới AI và nhận câu trả lời dạng stream (SSE)",
+            description = "Yêu cầu quyền: <b>POST /chat-message</b>. " +
+                    "Mỗi event <b>token</b> chứa một đoạn câu trả lời, event <b>done</b> báo kết thúc."
+    )
+    public ResponseEntity<Flux<ServerSentEvent<String>>> streamChatMessage(
+            @Valid @RequestBody ChatRequest request,
+            Authentication authentication) {
+
+        String userEmail = authentication.getName();
+        Flux<String> tokens;
+        try {
+            tokens = chatService.streamGeneration(request, userEmail);
+        } catch (TooManyRequestsException e) {
+            // Từ chối trước khi stream bắt đầu: trả 429 thật, nội dung vẫn là event SSE cho client
+            return ResponseEntity
+                    .status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Flux.just(ServerSentEvent.builder(e.getMessage()).event("error").build()));
+        }
+
+        return ResponseEntity.ok(tokens
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWith(Mono.just(ServerSentEvent.builder("").event("done").build()))
+                .onErrorResume(e -> Mono.just(ServerSentEvent.builder(streamErrorMessage(e)).event("error").build())));
+    }
+
+    // Chỉ trả nguyên thông báo của các exception tự định nghĩa, còn lại trả thông báo cố định và ghi log
+    private String streamErrorMessage(Throwable e) {
+        if (e instanceof TooManyRequestsException || e instanceof AiServiceTimeoutException)
+            return e.getMessage();
+        log.error("Lỗi khi stream câu trả lời AI", e);
+        return STREAM_ERROR_MESSAGE;
+    }
+
     @GetMapping("/chat-history/{sessionId}")
     @ApiMessage(value = "Lấy lịch sử chat thành công")
-    @PreAuthorize("hasAuthority('GET /chat-history')")
+    @RequirePermission("GET /chat-history")
     @Operation(summary = "Lấy lịch sử chat theo sessionId")
     public ResponseEntity<List<ChatMessageDto>> getChatHistory(
             @PathVariable String sessionId,
@@ -55,7 +102,7 @@ public class ChatController {
 
     @DeleteMapping("/chat-history/{sessionId}")
     @ApiMessage(value = "Xóa lịch sử chat thành công")
-    @PreAuthorize("hasAuthority('DELETE /chat-history')")
+    @RequirePermission("DELETE /chat-history")
     @Operation(summary = "Xóa lịch sử chat")
     public ResponseEntity<Void> clearChatHistory(
             @PathVariable String sessionId,
@@ -69,7 +116,7 @@ public class ChatController {
     // ✨ CẬP NHẬT: Trả về thông tin chi tiết của tất cả sessions
     @PostMapping("/chat-sessions")
     @ApiMessage(value = "Tạo session chat mới thành công")
-    @PreAuthorize("hasAuthority('POST /chat-message')")
+    @RequirePermission("POST /chat-message")
     @Operation(
             summary = "Tạo session chat mới",
             description = "Yêu cầu quyền: <b>POST /chat-message</b>. " +
@@ -86,7 +133,7 @@ public class ChatController {
 
     @GetMapping("/chat-sessions")
     @ApiMessage(value = "Lấy danh sách sessions thành công")
-    @PreAuthorize("hasAuthority('GET /chat-sessions')")
+    @RequirePermission("GET /chat-sessions")
     @Operation(
             summary = "Lấy tất cả chat sessions của user với thông tin chi tiết",
             description = "Yêu cầu quyền: <b>GET /chat-sessions</b>. " +
@@ -100,7 +147,7 @@ public class ChatController {
 
     @GetMapping("/chat-session/{sessionId}/info")
     @ApiMessage(value = "Lấy thông tin session thành công")
-    @PreAuthorize("hasAuthority('GET /chat-session')")
+    @RequirePermission("GET /chat-session")
     @Operation(summary = "Lấy thông tin cơ bản của session chat")
     public ResponseEntity<Map<String, Object>> getSessionInfo(
             @PathVariable String sessionId,
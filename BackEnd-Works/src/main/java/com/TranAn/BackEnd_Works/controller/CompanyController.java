@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.controller;
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.company.DefaultCompanyRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.user.RecruiterRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.ApiResponse;
@@ -21,7 +22,6 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -35,7 +35,7 @@ public class CompanyController {
 
     @PostMapping
     @ApiMessage(value = "Tạo Company")
-    @PreAuthorize("hasAuthority('POST /companies')")
+    @RequirePermission("POST /companies")
     @Operation(
             summary = "Tạo Company",
             description = "Yêu cầu quyền: <b>POST /companies</b>"
@@ -51,7 +51,7 @@ public class CompanyController {
 
     @PostMapping("/me")
     @ApiMessage(value = "Tạo Company cho người dùng hiện tại")
-    @PreAuthorize("hasAuthority('POST /companies/me')")
+    @RequirePermission("POST /companies/me")
     @Operation(
             summary = "Tạo Company cho người dùng hiện tại",
             description = "Yêu cầu quyền: <b>POST /companies/me</b>"
@@ -67,7 +67,7 @@ public class CompanyController {
 
     @GetMapping
     @ApiMessage(value = "Lấy danh sách Company")
-    @PreAuthorize("hasAuthority('GET /companies') OR isAnonymous()")
+    @RequirePermission(value = "GET /companies", allowAnonymous = true)
     @Operation(
             summary = "Lấy danh sách Company",
             description = "Yêu cầu quyền: <b>GET /companies</b>"
@@ -92,7 +92,7 @@ public class CompanyController {
 
     @GetMapping("/with-jobs-count")
     @ApiMessage(value = "Lấy danh sách Company kèm với số lượng nghề")
-    @PreAuthorize("hasAuthority('GET /companies/with-jobs-count') OR isAnonymous()")
+    @RequirePermission(value = "GET /companies/with-jobs-count", allowAnonymous = true)
     @Operation(
             summary = "Lấy danh sách Company kèm với số lượng nghề",
             description = "Yêu cầu quyền: <b>GET /companies/with-jobs-count</b>"
@@ -117,7 +117,7 @@ public class CompanyController {
 
     @GetMapping("/{id}")
     @ApiMessage(value = "Lấy Company theo id")
-    @PreAuthorize("hasAuthority('GET /companies/{id}') OR isAnonymous()")
+    @RequirePermission(value = "GET /companies/{id}", allowAnonymous = true)
     @Operation(
             summary = "Lấy Company theo id",
             description = "Yêu cầu quyền: <b>GET /companies/{id}</b>"
@@ -129,7 +129,7 @@ public class CompanyController {
 
     @GetMapping("/me")
     @ApiMessage(value = "Lấy Company theo người dùng hiện tại")
-    @PreAuthorize("hasAuthority('GET /companies/me')")
+    @RequirePermission("GET /companies/me")
     @Operation(
             summary = "Lấy Company theo người dùng hiện tại",
             description = "Yêu cầu quyền: <b>GET /companies/me</b>"
@@ -142,7 +142,7 @@ public class CompanyController {
 
     @GetMapping("/me/users")
     @ApiMessage(value = "Lấy danh sách users recruiter của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('GET /companies/me/users')")
+    @RequirePermission("GET /companies/me/users")
     @Operation(
             summary = "Lấy danh sách users recruiter của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>GET /companies/me/users</b>"
@@ -155,7 +155,7 @@ public class CompanyController {
 
     @PutMapping(value = "/{id}")
     @ApiMessage(value = "Cập nhật Company theo id")
-    @PreAuthorize("hasAuthority('PUT /companies/{id}')")
+    @RequirePermission("PUT /companies/{id}")
     @Operation(
             summary = "Cập nhật Company theo id",
             description = "Yêu cầu quyền: <b>PUT /companies/{id}</b>"
@@ -170,7 +170,7 @@ public class CompanyController {
 
     @PutMapping(value = "/me")
     @ApiMessage(value = "Cập nhật Company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('PUT /companies/me')")
+    @RequirePermission("PUT /companies/me")
     @Operation(
             summary = "Cập nhật Company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>PUT /companies/me</b>"
@@ -186,7 +186,7 @@ public class CompanyController {
 
     @DeleteMapping("/{id}")
     @ApiMessage(value = "Xóa company theo id")
-    @PreAuthorize("hasAuthority('DELETE /companies/{id}')")
+    @RequirePermission("DELETE /companies/{id}")
     @Operation(
             summary = "Xóa company theo id",
             description = "Yêu cầu quyền: <b>DELETE /companies/{id}</b>"
@@ -203,7 +203,7 @@ public class CompanyController {
 
     @PostMapping("/me/users")
     @ApiMessage(value = "Thêm người dùng khác vào company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('POST /companies/me/users')")
+    @RequirePermission("POST /companies/me/users")
     @Operation(
             summary = "Thêm người dùng khác vào company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>POST /companies/me/users</b>"
@@ -217,7 +217,7 @@ public class CompanyController {
 
     @PutMapping("/me/users")
     @ApiMessage(value = "Loại bỏ người dùng khác khỏi company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('PUT /companies/me/users')")
+    @RequirePermission("PUT /companies/me/users")
     @Operation(
             summary = "Loại bỏ người dùng khác khỏi company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>PUT /companies/me/users</b>"
@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.controller;
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.job.JobRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
@@ -17,7 +18,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -31,7 +31,7 @@ public class JobController {
 
     @PostMapping
     @ApiMessage(value = "Tạo Job")
-    @PreAuthorize("hasAuthority('POST /jobs')")
+    @RequirePermission("POST /jobs")
     @Operation(
             summary = "Tạo Job",
             description = "Yêu cầu quyền: <b>POST /jobs</b>"
@@ -42,7 +42,7 @@ public class JobController {
 
     @PostMapping("/company")
     @ApiMessage(value = "Tạo Job thuộc company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('POST /jobs/company')")
+    @RequirePermission("POST /jobs/company")
     @Operation(
             summary = "Tạo Job thuộc company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>POST /jobs/company</b>"
@@ -53,7 +53,7 @@ public class JobController {
 
     @GetMapping
     @ApiMessage(value = "Lấy danh sách Job")
-    @PreAuthorize("hasAuthority('GET /jobs') OR isAnonymous()")
+    @RequirePermission(value = "GET /jobs", allowAnonymous = true)
     @Operation(
             summary = "Lấy danh sách Job",
             description = "Yêu cầu quyền: <b>GET /jobs</b>"
@@ -78,7 +78,7 @@ public class JobController {
 
     @GetMapping("/{id}")
     @ApiMessage(value = "Lấy Job theo id")
-    @PreAuthorize("hasAuthority('GET /jobs/{id}') OR isAnonymous()")
+    @RequirePermission(value = "GET /jobs/{id}", allowAnonymous = true)
     @Operation(
             summary = "Lấy Job theo id",
             description = "Yêu cầu quyền: <b>GET /jobs/{id}</b>"
@@ -90,7 +90,7 @@ public class JobController {
 
     @GetMapping("/companies/{id}")
     @ApiMessage(value = "Lấy Job theo Company")
-    @PreAuthorize("hasAuthority('GET /jobs/companies/{id}') OR isAnonymous()")
+    @RequirePermission(value = "GET /jobs/companies/{id}", allowAnonymous = true)
     @Operation(
             summary = "Lấy Job theo Company",
             description = "Yêu cầu quyền: <b>GET /jobs/companies/{id}</b>"
@@ -102,7 +102,7 @@ public class JobController {
 
     @GetMapping("/company")
     @ApiMessage(value = "Lấy danh sách Job thuộc company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('GET /jobs/company')")
+    @RequirePermission("GET /jobs/company")
     @Operation(
             summary = "Lấy danh sách Job theo company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>GET /jobs/company</b>"
@@ -126,7 +126,7 @@ public class JobController {
 
     @PutMapping("/{id}")
     @ApiMessage(value = "Cập nhật Job theo id")
-    @PreAuthorize("hasAuthority('PUT /jobs/{id}')")
+    @RequirePermission("PUT /jobs/{id}")
     @Operation(
             summary = "Cập nhật Job theo id",
             description = "Yêu cầu quyền: <b>PUT /jobs/{id}</b>"
@@ -140,7 +140,7 @@ public class JobController {
 
     @PutMapping("/company/{id}")
     @ApiMessage(value = "Cập nhật Job theo id thuộc company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('PUT /jobs/company/{id}')")
+    @RequirePermission("PUT /jobs/company/{id}")
     @Operation(
             summary = "Cập nhật Job theo id thuộc company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>PUT /jobs/company/{id}</b>"
@@ -155,7 +155,7 @@ public class JobController {
 
     @DeleteMapping("/{id}")
     @ApiMessage(value = "Xóa Job theo id")
-    @PreAuthorize("hasAuthority('DELETE /jobs/{id}')")
+    @RequirePermission("DELETE /jobs/{id}")
     @Operation(
             summary = "Xóa Job theo id",
             description = "Yêu cầu quyền: <b>DELETE /jobs/{id}</b>"
@@ -166,7 +166,7 @@ public class JobController {
 
     @DeleteMapping("/company/{id}")
     @ApiMessage(value = "Xóa Job theo id thuộc company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('DELETE /jobs/company/{id}')")
+    @RequirePermission("DELETE /jobs/company/{id}")
     @Operation(
             summary = "Xóa Job theo id thuộc company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>DELETE /jobs/company/{id}</b>"
@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.controller;
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.permission.DefaultPermissionRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.permission.DefaultPermissionResponseDto;
@@ -16,7 +17,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -27,7 +27,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/permissions")
 @RequiredArgsConstructor
-@PreAuthorize("hasAuthority('GET /permissions/*')")
+@RequirePermission("GET /permissions/*")
 public class PermissionController {
 
     private final PermissionService permissionService;
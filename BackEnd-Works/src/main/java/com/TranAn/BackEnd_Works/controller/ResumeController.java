@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.controller;
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.resume.ResumeRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.resume.UpdateResumeStatusRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
@@ -18,7 +19,6 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -34,7 +34,7 @@ public class ResumeController {
 
     @PostMapping
     @ApiMessage(value = "Tạo Resume")
-    @PreAuthorize("hasAuthority('POST /resumes')")
+    @RequirePermission("POST /resumes")
     @Operation(
             summary = "Tạo Resume",
             description = "Yêu cầu quyền: <b>POST /resumes</b>"
@@ -50,7 +50,7 @@ public class ResumeController {
 
     @GetMapping
     @ApiMessage(value = "Lấy danh sách resume")
-    @PreAuthorize("hasAuthority('GET /resumes')")
+    @RequirePermission("GET /resumes")
     @Operation(
             summary = "Lấy danh sách resume",
             description = "Yêu cầu quyền: <b>GET /resumes</b>"
@@ -74,7 +74,7 @@ public class ResumeController {
 
     @GetMapping("/company")
     @ApiMessage(value = "Lấy danh sách resume thuộc company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('GET /resumes/company')")
+    @RequirePermission("GET /resumes/company")
     @Operation(
             summary = "Lấy danh sách resume theo company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>GET /resumes/company</b>"
@@ -98,7 +98,7 @@ public class ResumeController {
 
     @GetMapping("/me")
     @ApiMessage(value = "Lấy resume theo người dùng")
-    @PreAuthorize("hasAuthority('GET /resumes/me')")
+    @RequirePermission("GET /resumes/me")
     @Operation(
             summary = "Lấy resume của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>GET /resumes/me</b>"
@@ -121,7 +121,7 @@ public class ResumeController {
 
     @DeleteMapping("/me/jobs/{jobId}")
     @ApiMessage(value = "Xóa resume theo job id của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('DELETE /resumes/me/jobs/{jobId}')")
+    @RequirePermission("DELETE /resumes/me/jobs/{jobId}")
     @Operation(
             summary = "Xóa resume theo job id của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>DELETE /resumes/me/jobs/{jobId}</b>"
@@ -134,7 +134,7 @@ public class ResumeController {
 
     @PutMapping("/me/file/{id}")
     @ApiMessage(value = "Cập nhật file resume")
-    @PreAuthorize("hasAuthority('PUT /resumes/me/file/{id}')")
+    @RequirePermission("PUT /resumes/me/file/{id}")
     @Operation(
             summary = "Cập nhật file resume",
             description = "Yêu cầu quyền: <b>PUT /resumes/me/file/{id}</b>"
@@ -147,7 +147,7 @@ public class ResumeController {
 
     @GetMapping("/file/{id}")
     @ApiMessage(value = "Lấy file resume")
-    @PreAuthorize("hasAuthority('GET /resumes/file/{id}')")
+    @RequirePermission("GET /resumes/file/{id}")
     @Operation(
             summary = "Lấy file resume",
             description = "Yêu cầu quyền: <b>GET /resumes/file/{id}</b>"
@@ -158,7 +158,7 @@ public class ResumeController {
 
     @PutMapping("/status")
     @ApiMessage("Cập nhật trạng thái resume")
-    @PreAuthorize("hasAuthority('PUT /resumes/status')")
+    @RequirePermission("PUT /resumes/status")
     @Operation(
             summary = "Cập nhật trạng thái resume",
             description = "Yêu cầu quyền: <b>PUT /resumes/status</b>"
@@ -170,7 +170,7 @@ public class ResumeController {
 
     @PutMapping("/company/status")
     @ApiMessage("Cập nhật trạng thái resume thuộc company của người dùng hiện tại")
-    @PreAuthorize("hasAuthority('PUT /resumes/company/status')")
+    @RequirePermission("PUT /resumes/company/status")
     @Operation(
             summary = "Cập nhật trạng thái resume theo company của người dùng hiện tại",
             description = "Yêu cầu quyền: <b>PUT /resumes/company/status</b>"
@@ -2,6 +2,7 @@ package com.TranAn.BackEnd_Works.controller;
 
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.role.DefaultRoleRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.role.DefaultRoleResponseDto;
@@ -18,7 +19,6 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "Role")
@@ -30,7 +30,7 @@ public class RoleController {
 
     @PostMapping
     @ApiMessage(value = "Tạo role")
-    @PreAuthorize("hasAuthority('POST /roles')")
+    @RequirePermission("POST /roles")
     @Operation(
             summary = "Tạo role",
             description = "yêu cầu quyền: <b>POST /roles</b>"
@@ -45,7 +45,7 @@ public class RoleController {
 
     @GetMapping
     @ApiMessage(value = "Lấy danh sách role")
-    @PreAuthorize("hasAuthority('GET /roles')")
+    @RequirePermission("GET /roles")
     @Operation(
             summary = "Lấy danh sách role",
             description = "Yêu cầu quyền : <b> GET /roles</b>"
@@ -68,7 +68,7 @@ public class RoleController {
 
     @PutMapping({"/{id}"})
     @ApiMessage(value = "Cập nhật Role")
-    @PreAuthorize("hasAuthority('PUT /roles/{id}')")
+    @RequirePermission("PUT /roles/{id}")
     @Operation(
             summary = "Câp nhật Role",
             description = "Yêu cầu quyền: <b>PUT /roles/{id}</b>"
@@ -81,7 +81,7 @@ public class RoleController {
     }
     @DeleteMapping("/{id}")
     @ApiMessage(value = "Xóa Role theo id")
-    @PreAuthorize("hasAuthority('DELETE /roles/{id}')")
+    @RequirePermission("DELETE /roles/{id}")
     @Operation(
             summary = "Xóa Role theo id",
             description = "Yêu cầu quyền: <b>DELETE /roles/{id}</b>"
@@ -2,6 +2,7 @@ package com.TranAn.BackEnd_Works.controller;
 
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.skill.CreateSkillRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.PageResponseDto;
 import com.TranAn.BackEnd_Works.dto.response.skill.DefaultSkillResponseDto;
@@ -19,7 +20,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "Skill")
@@ -32,7 +32,7 @@ public class SkillController {
 
     @PostMapping
     @ApiMessage(value = "Tạo skill")
-    @PreAuthorize("hasAuthority('POST /skills')")
+    @RequirePermission("POST /skills")
     @Operation(
             summary = "Tạo skill",
             description = "Yêu cầu quyền : <b>POST /skills</b>"
@@ -44,7 +44,7 @@ public class SkillController {
     }
     @GetMapping
     @ApiMessage(value = "Lấy danh sách Skill")
-    @PreAuthorize("hasAuthority('GET /skills') OR isAnonymous()")
+    @RequirePermission(value = "GET /skills", allowAnonymous = true)
     @Operation(
             summary = "Lấy danh sách Skill",
             description = "Yêu cầu quyền: <b>GET /skills</b>"
@@ -69,7 +69,7 @@ public class SkillController {
 
     @GetMapping("/{id}")
     @ApiMessage(value = "Lấy Skill theo id")
-    @PreAuthorize("hasAuthority('GET /skills/{id}') OR isAnonymous()")
+    @RequirePermission(value = "GET /skills/{id}", allowAnonymous = true)
     @Operation(
             summary = "Lấy Skill theo id",
             description = "Yêu cầu quyền: <b>GET /skills/{id}</b>"
@@ -81,7 +81,7 @@ public class SkillController {
 
     @PutMapping
     @ApiMessage(value = "Cập nhật Skill")
-    @PreAuthorize("hasAuthority('PUT /skills')")
+    @RequirePermission("PUT /skills")
     @Operation(
             summary = "Cập nhật Skill",
             description = "Yêu cầu quyền: <b>PUT /skills</b>"
@@ -94,7 +94,7 @@ public class SkillController {
 
     @DeleteMapping("/{id}")
     @ApiMessage(value = "Xóa Skill theo id")
-    @PreAuthorize("hasAuthority('DELETE /skills/{id}')")
+    @RequirePermission("DELETE /skills/{id}")
     @Operation(
             summary = "Xóa Skill theo id",
             description = "Yêu cầu quyền: <b>DELETE /skills/{id}</b>"
@@ -2,6 +2,7 @@ package com.TranAn.BackEnd_Works.controller;
 
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.subscriber.DefaultSubscriberRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.subcriber.DefaultSubscriberResponseDto;
 import com.TranAn.BackEnd_Works.service.SubscriberService;
@@ -10,7 +11,6 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "Subscriber")
@@ -22,7 +22,7 @@ public class SubscriberController {
 
     @PostMapping("/me")
     @ApiMessage(value = "Tạo subscriber cho người dùng hiện tại")
-    @PreAuthorize("hasAuthority('POST /subscribers/me')")
+    @RequirePermission("POST /subscribers/me")
     @Operation(
             summary = "Tạo subscriber cho người dùng hiện tại",
             description = "Yêu cầu quyền: <b>POST /subscribers/me</b>"
@@ -34,7 +34,7 @@ public class SubscriberController {
     }
     @GetMapping("/me")
     @ApiMessage(value = "Lấy subscriber cho người dùng hiện tại")
-    @PreAuthorize("hasAuthority('GET /subscribers/me')")
+    @RequirePermission("GET /subscribers/me")
     @Operation(
             summary = "Lấy subscriber cho người dùng hiện tại",
             description = "Yêu cầu quyền: <b>GET /subscribers/me</b>"
@@ -44,7 +44,7 @@ public class SubscriberController {
     }
     @PutMapping("/me")
     @ApiMessage(value = "Cập nhật subscriber cho người dùng hiện tại")
-    @PreAuthorize("hasAuthority('PUT /subscribers/me')")
+    @RequirePermission("PUT /subscribers/me")
     @Operation(
             summary = "Cập nhật subscriber cho người dùng hiện tại",
             description = "Yêu cầu quyền: <b>PUT /subscribers/me</b>"
@@ -56,7 +56,7 @@ public class SubscriberController {
     }
     @DeleteMapping("/me")
     @ApiMessage(value = "Xóa subscriber cho người dùng hiện tại")
-    @PreAuthorize("hasAuthority('DELETE /subscribers/me')")
+    @RequirePermission("DELETE /subscribers/me")
     @Operation(
             summary = "Xóa subscriber cho người dùng hiện tại",
             description = "Yêu cầu quyền: <b>DELETE /subscribers/me</b>"
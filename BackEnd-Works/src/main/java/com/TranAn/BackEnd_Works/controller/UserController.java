@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.controller;
 
 import com.TranAn.BackEnd_Works.annotation.ApiMessage;
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
 import com.TranAn.BackEnd_Works.dto.request.user.SelfUserUpdatePasswordRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.user.SelfUserUpdateProfileRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.user.UserCreateRequestDto;
@@ -19,7 +20,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -31,7 +31,7 @@ public class UserController {
     private final UserService userService;
     @PostMapping
     @ApiMessage(value = "tạo user")
-    @PreAuthorize("hasAuthority('POST /users')")
+    @RequirePermission("POST /users")
     @Operation(
             summary = "Tạo User",
             description = "Yêu cầu quyền: <b>POST /users</b>"
@@ -45,7 +45,7 @@ public class UserController {
     }
     @GetMapping
     @ApiMessage(value = "Lấy danh sách User")
-    @PreAuthorize("hasAuthority('GET /users')")
+    @RequirePermission("GET /users")
     @Operation(
             summary = "Lấy danh sách User",
             description = "Yêu cầu quyền: <b>GET /users</b>"
@@ -71,7 +71,7 @@ public class UserController {
 
     @GetMapping("/{id}")
     @ApiMessage(value = "Tìm User dùng theo id")
-    @PreAuthorize("hasAuthority('GET /users/{id}')")
+    @RequirePermission("GET /users/{id}")
     @Operation(
             summary = "Tìm User theo id",
             description = "Yêu cầu quyền: <b>GET /users/{id}</b>"
@@ -82,7 +82,7 @@ public class UserController {
 
     @PutMapping
     @ApiMessage(value = "Cập nhật User")
-    @PreAuthorize("hasAuthority('PUT /users')")
+    @RequirePermission("PUT /users")
     @Operation(
             summary = "Cập nhật User",
             description = "Yêu cầu quyền: <b>PUT /users</b>"
@@ -95,7 +95,7 @@ public class UserController {
 
     @DeleteMapping("/{id}")
     @ApiMessage(value = "Xóa User theo id")
-    @PreAuthorize("hasAuthority('DELETE /users/{id}')")
+    @RequirePermission("DELETE /users/{id}")
     @Operation(
             summary = "Xóa User theo id",
             description = "Yêu cầu quyền: <b>DELETE /users/{id}</b>"
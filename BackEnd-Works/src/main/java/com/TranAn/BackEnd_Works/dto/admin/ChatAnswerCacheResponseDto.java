@@ -0,0 +1,36 @@
+package com.TranAn.BackEnd_Works.dto.admin;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatAnswerCacheResponseDto {
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String key;
+        private String question;
+        private String answerPreview;
+        private long hits;
+
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+7")
+        private Instant createdAt;
+
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+7")
+        private Instant expiresAt;
+    }
+}
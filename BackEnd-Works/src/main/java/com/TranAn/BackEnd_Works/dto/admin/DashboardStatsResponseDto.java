@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -32,6 +33,12 @@ public class DashboardStatsResponseDto {
     // Top performers
     private TopPerformers topPerformers;
 
+    // Các phần không kịp tính (quá thời gian / lỗi), phần tương ứng ở trên là null
+    private List<String> unavailableSections;
+
+    // Thời điểm bắt đầu tính số liệu (dashboard trả snapshot, có thể cũ hơn thời điểm gọi)
+    private Instant generatedAt;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
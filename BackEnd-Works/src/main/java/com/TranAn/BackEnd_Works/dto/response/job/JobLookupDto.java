@@ -0,0 +1,26 @@
+package com.TranAn.BackEnd_Works.dto.response.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Kết quả tra cứu job rút gọn trả cho chatbot (tool calling),
+ * chỉ gồm các trường cần để trả lời, không kèm mô tả dài
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobLookupDto {
+    private Long id;
+    private String name;
+    private String companyName;
+    private String location;
+    private String level;
+    private Double salary;
+    private Instant endDate;
+    private List<String> skills;
+}
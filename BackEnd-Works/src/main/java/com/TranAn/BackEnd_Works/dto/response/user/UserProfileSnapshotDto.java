@@ -0,0 +1,24 @@
+package com.TranAn.BackEnd_Works.dto.response.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Các trường hiển thị của người dùng không nằm trong token,
+ * đọc bằng một truy vấn projection và cache ngắn hạn tại mỗi instance
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserProfileSnapshotDto {
+    private Long id;
+    private String email;
+    private String name;
+    private String logoUrl;
+    private Long companyId;
+    private String roleName;
+    private Instant updatedAt;
+}
@@ -0,0 +1,48 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Bản rút gọn của ChatMessage được lưu trong Redis list (mỗi phần tử một message).
+ * Không chứa entity User để giữ payload nhỏ và tránh serialize lazy relation.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ChatHistoryEntry {
+
+    private Long id;
+    private MessageRole role;
+    private String content;
+    private Instant createdAt;
+    private String createdBy;
+    // Khóa của message (trùng chat_messages.message_key), dùng để gộp với Database không bị lặp
+    private String messageKey;
+
+    public static ChatHistoryEntry from(ChatMessage message) {
+        return new ChatHistoryEntry(
+                message.getId(),
+                message.getRole(),
+                message.getContent(),
+                message.getCreatedAt(),
+                message.getCreatedBy(),
+                message.getMessageKey()
+        );
+    }
+
+    public static ChatHistoryEntry from(PendingChatMessage message) {
+        return new ChatHistoryEntry(
+                null,
+                message.getRole(),
+                message.getContent(),
+                message.getCreatedAt(),
+                message.getCreatedBy(),
+                message.getMessageKey()
+        );
+    }
+}
@@ -7,9 +7,13 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+// Bảng được partition theo tháng trên created_at (xem ChatMessagePartitionService):
+// MySQL yêu cầu mọi unique key chứa cột partition và không cho phép foreign key
 @Table(name = "chat_messages", indexes = {
         @Index(name = "idx_user_session", columnList = "user_id, session_id"),
         @Index(name = "idx_created_at", columnList = "created_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_chat_message_key", columnNames = {"message_key", "created_at"})
 })
 @AllArgsConstructor
 @NoArgsConstructor
@@ -24,7 +28,7 @@ public class ChatMessage extends BaseEntity {
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     @ToString.Exclude
     @JsonIgnoreProperties({"company", "role", "resumes", "password"})
     private User user;
@@ -39,6 +43,10 @@ public class ChatMessage extends BaseEntity {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String content;
 
+    // Khóa duy nhất sinh lúc ghi vào Redis, dùng để flush write-behind idempotent
+    @Column(name = "message_key", length = 36)
+    private String messageKey;
+
     // Constructor để dễ tạo message
     public ChatMessage(User user, String sessionId, MessageRole role, String content) {
         this.user = user;
@@ -0,0 +1,75 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Tóm tắt của một phiên chat, được cập nhật dần mỗi khi có message mới
+ * để danh sách session chỉ cần một lần đọc theo index.
+ */
+@Entity
+@Table(name = "chat_sessions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_session_user_session", columnNames = {"user_id", "session_id"}),
+        indexes = {
+                @Index(name = "idx_chat_session_user_last", columnList = "user_id, last_message_at"),
+                @Index(name = "idx_chat_session_archived_last", columnList = "archived, last_message_at")
+        })
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@EqualsAndHashCode(callSuper = true, onlyExplicitlyIncluded = true)
+public class ChatSession extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    private User user;
+
+    @Column(name = "session_id", nullable = false, length = 100)
+    private String sessionId;
+
+    @Column(name = "first_message")
+    private String firstMessage;
+
+    @Column(name = "last_message")
+    private String lastMessage;
+
+    @Column(name = "message_count", nullable = false)
+    private long messageCount;
+
+    @Column(name = "first_message_at")
+    private Instant firstMessageAt;
+
+    @Column(name = "last_message_at")
+    private Instant lastMessageAt;
+
+    // Tóm tắt cuốn chiếu của các lượt hội thoại cũ không còn nằm trong ngân sách token
+    @Column(columnDefinition = "TEXT")
+    private String summary;
+
+    // Thời điểm của message mới nhất đã được gộp vào summary
+    @Column(name = "summarized_until")
+    private Instant summarizedUntil;
+
+    // Message của session đã được nén sang chat_session_archives và xóa khỏi chat_messages
+    private boolean archived = false;
+
+    public ChatSession(User user, String sessionId, String firstMessage, String lastMessage,
+                       long messageCount, Instant firstMessageAt, Instant lastMessageAt) {
+        this.user = user;
+        this.sessionId = sessionId;
+        this.firstMessage = firstMessage;
+        this.lastMessage = lastMessage;
+        this.messageCount = messageCount;
+        this.firstMessageAt = firstMessageAt;
+        this.lastMessageAt = lastMessageAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.common.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Toàn bộ message của một session đã lâu không hoạt động, nén (gzip JSON)
+ * thành một dòng duy nhất để bảng chat_messages chỉ chứa dữ liệu "nóng".
+ */
+@Entity
+@Table(name = "chat_session_archives",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_archive_user_session", columnNames = {"user_id", "session_id"}))
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@EqualsAndHashCode(callSuper = true, onlyExplicitlyIncluded = true)
+public class ChatSessionArchive extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "session_id", nullable = false, length = 100)
+    private String sessionId;
+
+    @Column(name = "message_count")
+    private int messageCount;
+
+    // Danh sách ChatHistoryEntry dạng JSON đã gzip
+    @Lob
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    @ToString.Exclude
+    private byte[] payload;
+
+    public ChatSessionArchive(Long userId, String sessionId, int messageCount, byte[] payload) {
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.messageCount = messageCount;
+        this.payload = payload;
+    }
+}
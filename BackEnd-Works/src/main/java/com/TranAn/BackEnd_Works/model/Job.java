@@ -12,7 +12,13 @@ import java.util.List;
 
 
 @Entity
-@Table(name = "jobs")
+@Table(
+        name = "jobs",
+        indexes = {
+                @Index(name = "idx_job_active_end_date", columnList = "active, end_date"),
+                @Index(name = "idx_job_level", columnList = "level")
+        }
+)
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -0,0 +1,26 @@
+package com.TranAn.BackEnd_Works.model;
+
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Message chat đã ghi vào Redis nhưng chưa được flush xuống bảng chat_messages.
+ * messageKey là khóa duy nhất để việc flush lại sau sự cố không tạo bản ghi trùng.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PendingChatMessage {
+
+    private String messageKey;
+    private Long userId;
+    private String sessionId;
+    private MessageRole role;
+    private String content;
+    private Instant createdAt;
+    private String createdBy;
+}
@@ -16,5 +16,6 @@ public class SessionMeta {
     private String deviceType;
     private String userAgent;
     private Instant loginAt;
+    private Instant expiresAt;
 
 }
@@ -3,6 +3,7 @@ package com.TranAn.BackEnd_Works.repository;
 import com.TranAn.BackEnd_Works.model.ChatMessage;
 import com.TranAn.BackEnd_Works.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -28,6 +29,11 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     // Xóa toàn bộ chat của một session
     void deleteByUserAndSessionId(User user, String sessionId);
 
+    // Xóa hàng loạt bằng một câu DELETE (dùng khi lưu trữ session)
+    @Modifying
+    @Query("DELETE FROM ChatMessage cm WHERE cm.user.id = :userId AND cm.sessionId = :sessionId")
+    int deleteAllInSession(@Param("userId") Long userId, @Param("sessionId") String sessionId);
+
     // Đếm số message trong session
     long countByUserAndSessionId(User user, String sessionId);
 
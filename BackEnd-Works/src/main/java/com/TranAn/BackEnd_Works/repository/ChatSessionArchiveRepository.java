@@ -0,0 +1,15 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.ChatSessionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChatSessionArchiveRepository extends JpaRepository<ChatSessionArchive, Long> {
+
+    Optional<ChatSessionArchive> findByUserIdAndSessionId(Long userId, String sessionId);
+
+    void deleteByUserIdAndSessionId(Long userId, String sessionId);
+}
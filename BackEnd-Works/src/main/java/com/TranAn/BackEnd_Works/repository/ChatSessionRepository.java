@@ -0,0 +1,65 @@
+package com.TranAn.BackEnd_Works.repository;
+
+import com.TranAn.BackEnd_Works.model.ChatSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
+
+    Optional<ChatSession> findByUserIdAndSessionId(Long userId, String sessionId);
+
+    // Các session chưa lưu trữ và không hoạt động từ trước mốc thời gian (dùng idx_chat_session_archived_last)
+    @Query("SELECT s FROM ChatSession s WHERE s.archived = false AND s.lastMessageAt < :before " +
+            "ORDER BY s.lastMessageAt ASC")
+    List<ChatSession> findIdleSessions(@Param("before") Instant before, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.archived = :archived " +
+            "WHERE s.user.id = :userId AND s.sessionId = :sessionId")
+    int markArchived(
+            @Param("userId") Long userId,
+            @Param("sessionId") String sessionId,
+            @Param("archived") boolean archived
+    );
+
+    // Danh sách session của user, mới nhất trước (dùng idx_chat_session_user_last)
+    List<ChatSession> findByUserIdOrderByLastMessageAtDesc(Long userId);
+
+    // Chỉ ghi đè khi summary mới bao phủ xa hơn summary hiện tại
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.summary = :summary, s.summarizedUntil = :until " +
+            "WHERE s.user.id = :userId AND s.sessionId = :sessionId " +
+            "AND (s.summarizedUntil IS NULL OR s.summarizedUntil < :until)")
+    int updateSummary(
+            @Param("userId") Long userId,
+            @Param("sessionId") String sessionId,
+            @Param("summary") String summary,
+            @Param("until") Instant until
+    );
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChatSession s WHERE s.user.id = :userId AND s.sessionId = :sessionId")
+    void deleteByUserIdAndSessionId(@Param("userId") Long userId, @Param("sessionId") String sessionId);
+
+    // Các cặp (user_id, session_id) có message nhưng chưa có bản tóm tắt - dùng cho backfill
+    @Query(value = "SELECT m.user_id, m.session_id, COUNT(*), MIN(m.created_at), MAX(m.created_at) " +
+            "FROM chat_messages m " +
+            "LEFT JOIN chat_sessions s ON s.user_id = m.user_id AND s.session_id = m.session_id " +
+            "WHERE s.id IS NULL " +
+            "GROUP BY m.user_id, m.session_id",
+            nativeQuery = true)
+    List<Object[]> findSessionsWithoutSummary();
+}
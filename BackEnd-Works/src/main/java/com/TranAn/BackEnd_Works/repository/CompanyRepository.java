@@ -2,6 +2,7 @@ package com.TranAn.BackEnd_Works.repository;
 
 import com.TranAn.BackEnd_Works.model.Company;
 import com.TranAn.BackEnd_Works.model.CompanyLogo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -23,15 +24,20 @@ public interface CompanyRepository extends JpaRepository<Company, Long>, JpaSpec
     @Query("SELECT COUNT(DISTINCT c) FROM Company c JOIN c.jobs j WHERE j.endDate > :now AND j.active = true")
     Long countCompaniesWithActiveJobs(@Param("now") Instant now);
 
+    // Top-N truyền qua Pageable để LIMIT chạy trong Database; Pageable.unpaged() lấy toàn bộ
     @Query("SELECT c.id, c.name, COUNT(j) " +
             "FROM Company c LEFT JOIN c.jobs j " +
             "GROUP BY c.id, c.name " +
             "ORDER BY COUNT(j) DESC")
-    List<Object[]> findTopCompaniesByJobCount();
+    List<Object[]> findTopCompaniesByJobCount(Pageable pageable);
 
     @Query("SELECT c.id, c.name, COUNT(r) " +
             "FROM Company c JOIN c.jobs j LEFT JOIN j.resumes r " +
             "GROUP BY c.id, c.name " +
             "ORDER BY COUNT(r) DESC")
-    List<Object[]> findTopCompaniesByResumeCount();
+    List<Object[]> findTopCompaniesByResumeCount(Pageable pageable);
+
+    // Tên hiển thị cho bảng xếp hạng: [id, name]
+    @Query("SELECT c.id, c.name FROM Company c WHERE c.id IN :ids")
+    List<Object[]> findNamesByIds(@Param("ids") List<Long> ids);
 }
@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.repository;
 
 import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.constant.Level;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Repository;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
@@ -48,6 +50,21 @@ public interface JobRepository extends
     @Query("SELECT COUNT(j) FROM Job j WHERE j.createdAt >= :start AND j.createdAt < :end")
     Long countByCreatedAtBetween(@Param("start") Instant start, @Param("end") Instant end);
 
+    // Số bản ghi tạo trong 6 tháng liên tiếp bằng một lần quét: mốc m0..m6 là đầu các tháng
+    // (tính theo múi giờ nghiệp vụ ở tầng service), kết quả là 6 cột theo thứ tự tháng
+    @Query("SELECT " +
+            "SUM(CASE WHEN j.createdAt >= :m0 AND j.createdAt < :m1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN j.createdAt >= :m1 AND j.createdAt < :m2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN j.createdAt >= :m2 AND j.createdAt < :m3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN j.createdAt >= :m3 AND j.createdAt < :m4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN j.createdAt >= :m4 AND j.createdAt < :m5 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN j.createdAt >= :m5 AND j.createdAt < :m6 THEN 1 ELSE 0 END) " +
+            "FROM Job j WHERE j.createdAt >= :m0 AND j.createdAt < :m6")
+    List<Object[]> countCreatedInSixMonths(
+            @Param("m0") Instant m0, @Param("m1") Instant m1, @Param("m2") Instant m2,
+            @Param("m3") Instant m3, @Param("m4") Instant m4, @Param("m5") Instant m5,
+            @Param("m6") Instant m6);
+
     @Query("SELECT COUNT(j) FROM Job j WHERE j.endDate > :date")
     Long countByEndDateAfter(@Param("date") Instant date);
 
@@ -55,11 +72,43 @@ public interface JobRepository extends
     Long countByEndDateBefore(@Param("date") Instant date);
 
     @Query("SELECT COUNT(j) FROM Job j WHERE j.level = :level")
-    Long countByLevel(@Param("level") com.TranAn.BackEnd_Works.model.constant.Level level);
+    Long countByLevel(@Param("level") Level level);
+
+    // Đếm lại theo level cho bộ đếm dashboard: [level, count]
+    @Query("SELECT j.level, COUNT(j) FROM Job j WHERE j.level IS NOT NULL GROUP BY j.level")
+    List<Object[]> countGroupByLevel();
 
     @Query("SELECT j.id, j.name, c.name, COUNT(r) " +
             "FROM Job j LEFT JOIN j.company c LEFT JOIN j.resumes r " +
             "GROUP BY j.id, j.name, c.name " +
             "ORDER BY COUNT(r) DESC")
-    List<Object[]> findTopJobsByResumeCount();
+    List<Object[]> findTopJobsByResumeCount(Pageable pageable);
+
+    // Tên hiển thị cho bảng xếp hạng: [id, name, companyName]
+    @Query("SELECT j.id, j.name, c.name FROM Job j LEFT JOIN j.company c WHERE j.id IN :ids")
+    List<Object[]> findNamesByIds(@Param("ids") List<Long> ids);
+
+    // Tra cứu job còn hạn cho chatbot, chỉ lấy các cột cần thiết (không load entity)
+    @Query("SELECT j.id, j.name, c.name, j.location, j.level, j.salary, j.endDate " +
+            "FROM Job j LEFT JOIN j.company c " +
+            "WHERE j.active = true AND j.endDate > :now " +
+            "AND (:level IS NULL OR j.level = :level) " +
+            "AND (:location IS NULL OR LOWER(j.location) LIKE LOWER(CONCAT('%', :location, '%'))) " +
+            "AND (:company IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :company, '%'))) " +
+            "AND (:skill IS NULL OR EXISTS (SELECT s FROM j.skills s WHERE LOWER(s.name) = LOWER(:skill))) " +
+            "ORDER BY j.createdAt DESC")
+    List<Object[]> lookupOpenJobs(
+            @Param("now") Instant now,
+            @Param("skill") String skill,
+            @Param("level") Level level,
+            @Param("location") String location,
+            @Param("company") String company,
+            Pageable pageable
+    );
+
+    // Chi tiết job cho chatbot: cùng điều kiện còn hạn như lookupOpenJobs
+    Optional<Job> findByIdAndActiveTrueAndEndDateAfter(Long id, Instant now);
+
+    @Query("SELECT j.id, s.name FROM Job j JOIN j.skills s WHERE j.id IN :jobIds")
+    List<Object[]> findSkillNamesByJobIds(@Param("jobIds") List<Long> jobIds);
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -36,6 +37,19 @@ public interface ResumeRepository extends
         return findAll(combined, pageable);
     }
 
+    default Page<Resume> findByUserId(
+            Long userId,
+            Specification<Resume> filterSpec,
+            Pageable pageable
+    ) {
+        Specification<Resume> userSpec = (root, q, cb) ->
+                cb.equal(root.get("user").get("id"), userId);
+
+        Specification<Resume> combined = userSpec.and(filterSpec);
+
+        return findAll(combined, pageable);
+    }
+
     default Page<Resume> findByUserCompanyId(
             Long id,
             Specification<Resume> filterSpec,
@@ -54,12 +68,35 @@ public interface ResumeRepository extends
 
     Optional<Resume> findByUserEmailAndId(String email, Long id);
 
+    Optional<Resume> findByUserIdAndJobId(Long userId, Long jobId);
+
+    Optional<Resume> findByUserIdAndId(Long userId, Long id);
+
     @Query("SELECT COUNT(r) FROM Resume r WHERE r.status = :status")
     Long countByStatus(@Param("status") ResumeStatus status);
 
+    // Đếm lại theo trạng thái cho bộ đếm dashboard: [status, count]
+    @Query("SELECT r.status, COUNT(r) FROM Resume r WHERE r.status IS NOT NULL GROUP BY r.status")
+    List<Object[]> countGroupByStatus();
+
     @Query("SELECT COUNT(r) FROM Resume r WHERE r.createdAt >= :start")
     Long countByCreatedAtAfter(@Param("start") Instant start);
 
     @Query("SELECT COUNT(r) FROM Resume r WHERE r.createdAt >= :start AND r.createdAt < :end")
     Long countByCreatedAtBetween(@Param("start") Instant start, @Param("end") Instant end);
+
+    // Số bản ghi tạo trong 6 tháng liên tiếp bằng một lần quét: mốc m0..m6 là đầu các tháng
+    // (tính theo múi giờ nghiệp vụ ở tầng service), kết quả là 6 cột theo thứ tự tháng
+    @Query("SELECT " +
+            "SUM(CASE WHEN r.createdAt >= :m0 AND r.createdAt < :m1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.createdAt >= :m1 AND r.createdAt < :m2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.createdAt >= :m2 AND r.createdAt < :m3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.createdAt >= :m3 AND r.createdAt < :m4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.createdAt >= :m4 AND r.createdAt < :m5 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.createdAt >= :m5 AND r.createdAt < :m6 THEN 1 ELSE 0 END) " +
+            "FROM Resume r WHERE r.createdAt >= :m0 AND r.createdAt < :m6")
+    List<Object[]> countCreatedInSixMonths(
+            @Param("m0") Instant m0, @Param("m1") Instant m1, @Param("m2") Instant m2,
+            @Param("m3") Instant m3, @Param("m4") Instant m4, @Param("m5") Instant m5,
+            @Param("m6") Instant m6);
 }
@@ -3,8 +3,10 @@ package com.TranAn.BackEnd_Works.repository;
 import com.TranAn.BackEnd_Works.model.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -13,4 +15,8 @@ public interface RoleRepository extends JpaRepository<Role, Long>, JpaSpecificat
 
     boolean existsByName(String name);
     Optional<Role> findByName(String name);
+
+    // Nạp toàn bộ role cùng quyền trong một truy vấn cho RoleCatalogue
+    @Query("SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.permissions")
+    List<Role> findAllWithPermissions();
 }
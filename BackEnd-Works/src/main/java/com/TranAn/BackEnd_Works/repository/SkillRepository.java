@@ -2,9 +2,11 @@ package com.TranAn.BackEnd_Works.repository;
 
 
 import com.TranAn.BackEnd_Works.model.Skill;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,9 +20,14 @@ public interface SkillRepository extends
 
     boolean existsByNameAndIdNot(String name, Long id);
 
-    @Query("SELECT s.name, COUNT(j) " +
+    // [id, name, jobCount]; top-N truyền qua Pageable để LIMIT chạy trong Database
+    @Query("SELECT s.id, s.name, COUNT(j) " +
             "FROM Skill s JOIN s.jobs j " +
-            "GROUP BY s.name " +
+            "GROUP BY s.id, s.name " +
             "ORDER BY COUNT(j) DESC")
-    List<Object[]> findTopSkillsByJobCount();
+    List<Object[]> findTopSkillsByJobCount(Pageable pageable);
+
+    // Tên hiển thị cho bảng xếp hạng: [id, name]
+    @Query("SELECT s.id, s.name FROM Skill s WHERE s.id IN :ids")
+    List<Object[]> findNamesByIds(@Param("ids") List<Long> ids);
 }
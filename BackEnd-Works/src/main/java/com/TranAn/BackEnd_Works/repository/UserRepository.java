@@ -1,5 +1,6 @@
 package com.TranAn.BackEnd_Works.repository;
 
+import com.TranAn.BackEnd_Works.dto.response.user.UserProfileSnapshotDto;
 import com.TranAn.BackEnd_Works.model.Company;
 import com.TranAn.BackEnd_Works.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -22,6 +23,20 @@ public interface UserRepository extends
 
     Optional<User> findByEmail(String email);
 
+    @Query("SELECT new com.TranAn.BackEnd_Works.dto.response.user.UserProfileSnapshotDto(" +
+            "u.id, u.email, u.name, u.logoUrl, c.id, r.name, u.updatedAt) " +
+            "FROM User u LEFT JOIN u.company c LEFT JOIN u.role r WHERE u.id = :id")
+    Optional<UserProfileSnapshotDto> findProfileSnapshotById(@Param("id") Long id);
+
+    @Query("SELECT new com.TranAn.BackEnd_Works.dto.response.user.UserProfileSnapshotDto(" +
+            "u.id, u.email, u.name, u.logoUrl, c.id, r.name, u.updatedAt) " +
+            "FROM User u LEFT JOIN u.company c LEFT JOIN u.role r WHERE u.email = :email")
+    Optional<UserProfileSnapshotDto> findProfileSnapshotByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+
     @Modifying
     @Query("UPDATE User u SET u.company = null WHERE u.company = :company")
     void detachUsersFromCompany(@Param("company") Company company);
@@ -40,7 +55,26 @@ public interface UserRepository extends
     @Query("SELECT COUNT(u) FROM User u WHERE u.createdAt >= :start AND u.createdAt < :end")
     Long countByCreatedAtBetween(@Param("start") Instant start, @Param("end") Instant end);
 
+    // Số bản ghi tạo trong 6 tháng liên tiếp bằng một lần quét: mốc m0..m6 là đầu các tháng
+    // (tính theo múi giờ nghiệp vụ ở tầng service), kết quả là 6 cột theo thứ tự tháng
+    @Query("SELECT " +
+            "SUM(CASE WHEN u.createdAt >= :m0 AND u.createdAt < :m1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.createdAt >= :m1 AND u.createdAt < :m2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.createdAt >= :m2 AND u.createdAt < :m3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.createdAt >= :m3 AND u.createdAt < :m4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.createdAt >= :m4 AND u.createdAt < :m5 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN u.createdAt >= :m5 AND u.createdAt < :m6 THEN 1 ELSE 0 END) " +
+            "FROM User u WHERE u.createdAt >= :m0 AND u.createdAt < :m6")
+    List<Object[]> countCreatedInSixMonths(
+            @Param("m0") Instant m0, @Param("m1") Instant m1, @Param("m2") Instant m2,
+            @Param("m3") Instant m3, @Param("m4") Instant m4, @Param("m5") Instant m5,
+            @Param("m6") Instant m6);
+
     @Query("SELECT COUNT(u) FROM User u WHERE u.role.name = :roleName")
     Long countByRole_Name(@Param("roleName") String roleName);
+
+    // Đếm lại theo chức vụ cho bộ đếm dashboard: [roleName, count]
+    @Query("SELECT r.name, COUNT(u) FROM User u JOIN u.role r GROUP BY r.name")
+    List<Object[]> countGroupByRoleName();
 }
 
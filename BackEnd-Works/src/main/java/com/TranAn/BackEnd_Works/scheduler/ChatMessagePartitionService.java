@@ -0,0 +1,215 @@
+package com.TranAn.BackEnd_Works.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Quản lý partition theo tháng (RANGE COLUMNS trên created_at) của bảng chat_messages.
+ * <p>
+ * Lần chạy đầu chuyển bảng sang dạng partition (bỏ foreign key, đưa created_at vào
+ * primary key / unique key như MySQL yêu cầu). Các lần sau chỉ tạo trước partition
+ * cho vài tháng tới bằng cách tách partition pmax, và bỏ các partition cũ đã rỗng
+ * (message của session cũ được ChatArchiveService chuyển sang bảng lưu trữ).
+ * <p>
+ * Mọi node đều chạy lúc khởi động và theo lịch, nhưng DDL chỉ chạy trên node giữ khóa Redis
+ * {@code chat::partition:lock}; node khác bỏ qua lượt đó. Biên partition tính theo cùng múi giờ
+ * mà created_at được ghi ({@code hibernate.jdbc.time_zone}, mặc định múi giờ của JVM).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatMessagePartitionService {
+
+    private static final String TABLE = "chat_messages";
+    private static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String LOCK_KEY = "chat::partition:lock";
+    // Đủ dài cho lần chuyển đổi đầu tiên (ALTER TABLE sao chép cả bảng)
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // Múi giờ Hibernate / JDBC dùng khi ghi DATETIME created_at
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:#{null}}")
+    private String jdbcTimeZone;
+
+    // Số tháng tới luôn có partition sẵn
+    @Value("${chat.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    // Partition cũ hơn số tháng này sẽ bị bỏ nếu đã rỗng
+    @Value("${chat.partition.retention-months:12}")
+    private int retentionMonths;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void maintainPartitions() {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+            if (!Boolean.TRUE.equals(locked)) {
+                log.debug("Chat message partition maintenance is running on another node, skipping");
+                return;
+            }
+
+            try {
+                // Kiểm tra lại sau khi có khóa: node khác có thể vừa chuyển đổi xong
+                if (!isPartitioned()) {
+                    convertToPartitioned();
+                }
+                addFuturePartitions();
+                dropEmptyOldPartitions();
+            } finally {
+                if (token.equals(redisTemplate.opsForValue().get(LOCK_KEY)))
+                    redisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.error("Chat message partition maintenance failed", e);
+        }
+    }
+
+    private ZoneId zone() {
+        return jdbcTimeZone != null && !jdbcTimeZone.isBlank() ? ZoneId.of(jdbcTimeZone) : ZoneId.systemDefault();
+    }
+
+    private boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                Integer.class, TABLE);
+        return count != null && count > 0;
+    }
+
+    private void convertToPartitioned() {
+        // 1. Bảng partition không hỗ trợ foreign key
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND CONSTRAINT_TYPE = 'FOREIGN KEY'",
+                String.class, TABLE);
+        for (String fk : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP FOREIGN KEY `" + fk + "`");
+        }
+
+        // 2. Mọi unique key phải chứa cột partition
+        List<String> uniqueKeys = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM information_schema.STATISTICS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND NON_UNIQUE = 0 " +
+                        "AND INDEX_NAME <> 'PRIMARY' " +
+                        "GROUP BY INDEX_NAME HAVING SUM(COLUMN_NAME = 'created_at') = 0",
+                String.class, TABLE);
+        for (String uk : uniqueKeys) {
+            List<String> columns = jdbcTemplate.queryForList(
+                    "SELECT COLUMN_NAME FROM information_schema.STATISTICS " +
+                            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ? " +
+                            "ORDER BY SEQ_IN_INDEX",
+                    String.class, TABLE, uk);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP INDEX `" + uk + "`, " +
+                    "ADD UNIQUE KEY `" + uk + "` (" + String.join(", ", columns) + ", created_at)");
+        }
+
+        // 3. created_at vào primary key (bắt buộc NOT NULL)
+        jdbcTemplate.update("UPDATE " + TABLE + " SET created_at = COALESCE(updated_at, NOW(6)) WHERE created_at IS NULL");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " MODIFY created_at DATETIME(6) NOT NULL, " +
+                "DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at)");
+
+        // 4. Partition từ tháng của message cũ nhất đến vài tháng tới
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM " + TABLE, Timestamp.class);
+        YearMonth current = YearMonth.now(zone());
+        // DATETIME đọc ra là giờ địa phương của created_at, lấy trực tiếp tháng của nó
+        YearMonth from = oldest != null
+                ? YearMonth.from(oldest.toLocalDateTime())
+                : current;
+
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            definitions.add(partitionDefinition(month));
+        }
+        definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(created_at) (" +
+                String.join(", ", definitions) + ")");
+        log.info("Partitioned {} by month ({} partitions)", TABLE, definitions.size());
+    }
+
+    private void addFuturePartitions() {
+        Set<String> existing = existingPartitions();
+        YearMonth current = YearMonth.now(zone());
+
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month.format(PARTITION_NAME)) && isAfterLastPartition(existing, month)) {
+                missing.add(partitionDefinition(month));
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        missing.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + MAX_PARTITION +
+                " INTO (" + String.join(", ", missing) + ")");
+        log.info("Added {} chat message partitions", missing.size() - 1);
+    }
+
+    private void dropEmptyOldPartitions() {
+        String oldestKept = YearMonth.now(zone()).minusMonths(retentionMonths).format(PARTITION_NAME);
+        List<String> candidates = existingPartitions().stream()
+                .filter(name -> !MAX_PARTITION.equals(name) && name.compareTo(oldestKept) < 0)
+                .toList();
+
+        for (String partition : candidates) {
+            List<Integer> rows = jdbcTemplate.queryForList(
+                    "SELECT 1 FROM " + TABLE + " PARTITION (" + partition + ") LIMIT 1", Integer.class);
+            if (rows.isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition);
+                log.info("Dropped empty chat message partition {}", partition);
+            }
+        }
+    }
+
+    // Chỉ tách pmax cho tháng mới hơn partition tháng lớn nhất hiện có
+    private boolean isAfterLastPartition(Set<String> existing, YearMonth month) {
+        String last = existing.stream()
+                .filter(name -> !MAX_PARTITION.equals(name))
+                .reduce((a, b) -> b)
+                .orElse(null);
+        return last == null || month.format(PARTITION_NAME).compareTo(last) > 0;
+    }
+
+    private Set<String> existingPartitions() {
+        return new TreeSet<>(jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                String.class, TABLE));
+    }
+
+    private static String partitionDefinition(YearMonth month) {
+        LocalDate upperBound = month.plusMonths(1).atDay(1);
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + upperBound + " 00:00:00')";
+    }
+}
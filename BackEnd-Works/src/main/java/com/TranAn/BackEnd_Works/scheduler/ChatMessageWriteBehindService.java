@@ -0,0 +1,264 @@
+package com.TranAn.BackEnd_Works.scheduler;
+
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import com.TranAn.BackEnd_Works.model.PendingChatMessage;
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import com.TranAn.BackEnd_Works.service.ChatRedisService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ghi message chat xuống Database theo kiểu write-behind.
+ * <p>
+ * Request chỉ đẩy message vào Redis (list chat::pending). Tiến trình này định kỳ
+ * đọc từng batch từ đầu hàng đợi, insert bằng JDBC batch rồi mới cắt khỏi Redis,
+ * nên tiến trình chết giữa chừng thì lần flush sau (trên bất kỳ node nào) sẽ ghi lại.
+ * Message đã có trong Database (theo message_key, unique) bị bỏ qua nên ghi lại không tạo
+ * bản ghi trùng. Message và phần cộng dồn vào chat_sessions được ghi trong cùng một transaction:
+ * message đã có trong Database thì tóm tắt session cũng đã tính nó, không bao giờ lệch.
+ * Chỉ một node flush tại một thời điểm nhờ khóa Redis; nếu khóa hết hạn và hai node cùng ghi
+ * một batch, node sau gặp lỗi trùng khóa và rollback cả batch (lần sau sẽ lọc ra).
+ * <p>
+ * Request không tự flush: khi hàng đợi vượt {@code chat.write-behind.max-pending},
+ * request chat mới bị từ chối (429) cho tới khi writer bắt kịp.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatMessageWriteBehindService {
+
+    private static final String FLUSH_LOCK_KEY = "chat::pending:lock";
+    private static final Duration FLUSH_LOCK_TTL = Duration.ofSeconds(30);
+    private static final long LOCK_POLL_INTERVAL_MS = 100;
+    private static final int PREVIEW_LENGTH = 50;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages " +
+                    "(message_key, user_id, session_id, role, content, created_at, updated_at, created_by, modified_by) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Tạo tóm tắt session nếu chưa có, có rồi thì cộng dồn (uk_chat_session_user_session)
+    private static final String SESSION_UPSERT_SQL =
+            "INSERT INTO chat_sessions " +
+                    "(user_id, session_id, first_message, last_message, message_count, " +
+                    "first_message_at, last_message_at, archived, created_at, updated_at, created_by, modified_by) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "message_count = message_count + VALUES(message_count), " +
+                    "last_message = VALUES(last_message), " +
+                    "last_message_at = VALUES(last_message_at)";
+
+    private final ChatRedisService chatRedisService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${chat.write-behind.batch-size:500}")
+    private int batchSize;
+
+    // Hàng đợi vượt ngưỡng này thì từ chối request chat mới (backpressure) thay vì để Redis phình ra
+    @Value("${chat.write-behind.max-pending:10000}")
+    private long maxPending;
+
+    /**
+     * Hàng đợi đã vượt ngưỡng: Database chậm hoặc writer bị kẹt
+     */
+    public boolean isBackedUp() {
+        return chatRedisService.countPending() > maxPending;
+    }
+
+    /**
+     * Flush định kỳ, đồng thời là cơ chế phục hồi: message còn trong Redis
+     * sau khi node khởi động lại sẽ được ghi ở lần chạy đầu tiên
+     */
+    @Scheduled(fixedDelayString = "${chat.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int written = flush();
+        if (written > 0) log.info("Flushed {} pending chat messages on shutdown", written);
+    }
+
+    /**
+     * Ghi toàn bộ message đang chờ xuống Database. Trả về số message đã xử lý,
+     * 0 nếu hàng đợi rỗng hoặc node khác đang flush.
+     */
+    public int flush() {
+        String token = UUID.randomUUID().toString();
+        if (!tryLock(token)) return 0;
+
+        int total = 0;
+        try {
+            while (true) {
+                List<PendingChatMessage> batch = chatRedisService.peekPending(batchSize);
+                if (batch.isEmpty()) break;
+
+                transactionTemplate.executeWithoutResult(status -> updateSessionSummaries(insertBatch(batch)));
+
+                // Batch ghi lâu hơn thời gian sống của khóa thì node khác có thể đã lấy khóa và đọc cùng
+                // đầu hàng đợi: chỉ cắt (và gia hạn khóa) khi khóa vẫn của mình, nếu không thì dừng.
+                // Message đã ghi được lọc theo message_key ở lần flush sau
+                if (!chatRedisService.removePending(batch.size(), FLUSH_LOCK_KEY, token, FLUSH_LOCK_TTL)) {
+                    log.warn("Mất khóa flush chat trong lúc ghi batch {} message, dừng flush", batch.size());
+                    break;
+                }
+
+                total += batch.size();
+                if (batch.size() < batchSize) break;
+            }
+        } catch (Exception e) {
+            // Batch chưa bị cắt khỏi Redis, lần flush sau sẽ thử lại
+            log.error("Failed to flush pending chat messages", e);
+        } finally {
+            unlock(token);
+        }
+
+        if (total > 0) log.debug("Flushed {} chat messages", total);
+        return total;
+    }
+
+    /**
+     * Bỏ các message đang chờ của một session (trước khi xóa session) để chúng không được
+     * ghi lại sau khi xóa. Chờ node đang flush xong batch của nó; không chờ được thì báo bận.
+     */
+    public int discardPending(Long userId, String sessionId) {
+        String token = UUID.randomUUID().toString();
+        long deadline = System.nanoTime() + FLUSH_LOCK_TTL.toNanos();
+        while (!tryLock(token)) {
+            if (System.nanoTime() > deadline)
+                throw new TooManyRequestsException("Hệ thống đang bận ghi lịch sử chat. Vui lòng thử lại sau.");
+            try {
+                Thread.sleep(LOCK_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bị gián đoạn khi chờ khóa flush chat", e);
+            }
+        }
+
+        try {
+            return chatRedisService.removePending(userId, sessionId);
+        } finally {
+            unlock(token);
+        }
+    }
+
+    private boolean tryLock(String token) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK_KEY, token, FLUSH_LOCK_TTL));
+    }
+
+    private void unlock(String token) {
+        if (token.equals(redisTemplate.opsForValue().get(FLUSH_LOCK_KEY))) {
+            redisTemplate.delete(FLUSH_LOCK_KEY);
+        }
+    }
+
+    /**
+     * Ghi các message chưa có trong Database, trả về các message thực sự được ghi.
+     * Message đã ghi ở lần flush trước (phục hồi sau sự cố) được lọc ra theo message_key
+     */
+    private List<PendingChatMessage> insertBatch(List<PendingChatMessage> batch) {
+        List<String> keys = batch.stream().map(PendingChatMessage::getMessageKey).toList();
+        Set<String> existing = new HashSet<>(jdbcTemplate.query(
+                "SELECT message_key FROM chat_messages WHERE message_key IN (" +
+                        String.join(",", Collections.nCopies(keys.size(), "?")) + ")",
+                (rs, rowNum) -> rs.getString(1),
+                keys.toArray()
+        ));
+
+        List<PendingChatMessage> fresh = batch
+                .stream()
+                .filter(message -> !existing.contains(message.getMessageKey()))
+                .toList();
+        if (fresh.isEmpty()) return fresh;
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, fresh, fresh.size(), (ps, message) -> {
+            Timestamp createdAt = Timestamp.from(message.getCreatedAt());
+            ps.setString(1, message.getMessageKey());
+            ps.setLong(2, message.getUserId());
+            ps.setString(3, message.getSessionId());
+            ps.setString(4, message.getRole().name());
+            ps.setString(5, message.getContent());
+            ps.setTimestamp(6, createdAt);
+            ps.setTimestamp(7, createdAt);
+            ps.setString(8, message.getCreatedBy());
+            ps.setString(9, message.getCreatedBy());
+        });
+        return fresh;
+    }
+
+    // Gộp theo session rồi cập nhật bảng tóm tắt một lần cho mỗi session trong batch,
+    // cùng transaction với insertBatch: lỗi ở đây rollback cả batch để lần sau ghi lại
+    private void updateSessionSummaries(List<PendingChatMessage> inserted) {
+        Map<String, SessionDelta> deltas = new LinkedHashMap<>();
+        for (PendingChatMessage message : inserted) {
+            deltas.computeIfAbsent(message.getUserId() + ":" + message.getSessionId(),
+                            key -> new SessionDelta(message))
+                    .add(message);
+        }
+        if (deltas.isEmpty()) return;
+
+        List<SessionDelta> rows = List.copyOf(deltas.values());
+        jdbcTemplate.batchUpdate(SESSION_UPSERT_SQL, rows, rows.size(), (ps, delta) -> {
+            Timestamp firstAt = Timestamp.from(delta.first.getCreatedAt());
+            Timestamp lastAt = Timestamp.from(delta.last.getCreatedAt());
+            ps.setLong(1, delta.userId);
+            ps.setString(2, delta.sessionId);
+            ps.setString(3, delta.first.getRole() == MessageRole.USER
+                    ? truncate(delta.first.getContent())
+                    : "Chat session");
+            ps.setString(4, truncate(delta.last.getContent()));
+            ps.setLong(5, delta.count);
+            ps.setTimestamp(6, firstAt);
+            ps.setTimestamp(7, lastAt);
+            ps.setTimestamp(8, firstAt);
+            ps.setTimestamp(9, lastAt);
+            ps.setString(10, delta.first.getCreatedBy());
+            ps.setString(11, delta.last.getCreatedBy());
+        });
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return "";
+        if (message.length() <= PREVIEW_LENGTH) return message;
+        return message.substring(0, PREVIEW_LENGTH) + "...";
+    }
+
+    private static final class SessionDelta {
+        private final Long userId;
+        private final String sessionId;
+        private final PendingChatMessage first;
+        private PendingChatMessage last;
+        private long count;
+
+        private SessionDelta(PendingChatMessage first) {
+            this.userId = first.getUserId();
+            this.sessionId = first.getSessionId();
+            this.first = first;
+        }
+
+        private void add(PendingChatMessage message) {
+            this.last = message;
+            this.count++;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.TranAn.BackEnd_Works.scheduler;
+
+import com.TranAn.BackEnd_Works.service.ChatArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatSessionArchiveCronService {
+    // Mọi node cùng chạy cron: chỉ node giữ khóa lưu trữ, node khác bỏ qua lượt này
+    private static final String LOCK_KEY = "chat::archive:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+
+    private final ChatArchiveService chatArchiveService;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // Chạy sau bảo trì partition để partition cũ rỗng có thể được bỏ ở lần kế tiếp
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void archiveIdleSessions() {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+            if (!Boolean.TRUE.equals(locked)) return;
+
+            try {
+                chatArchiveService.archiveIdleSessions();
+            } finally {
+                if (token.equals(redisTemplate.opsForValue().get(LOCK_KEY)))
+                    redisTemplate.delete(LOCK_KEY);
+            }
+        } catch (Exception e) {
+            log.error("Chat session archiving failed", e);
+        }
+    }
+}
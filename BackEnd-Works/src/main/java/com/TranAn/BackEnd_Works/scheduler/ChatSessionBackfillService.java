@@ -0,0 +1,114 @@
+package com.TranAn.BackEnd_Works.scheduler;
+
+
+import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatSession;
+import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import com.TranAn.BackEnd_Works.repository.ChatMessageRepository;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
+import com.TranAn.BackEnd_Works.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tạo bản tóm tắt chat_sessions cho các session đã có message từ trước
+ * khi bảng tóm tắt được đưa vào. Chạy một lần sau khi ứng dụng khởi động,
+ * chỉ xử lý các session chưa có tóm tắt nên chạy lại nhiều lần vẫn an toàn.
+ * <p>
+ * Chỉ một instance chạy tại một thời điểm (lock {@code chat::session_backfill:lock}); khi chạy hết
+ * không lỗi, key {@code chat::session_backfill:done} được ghi lại và các lần khởi động sau bỏ qua
+ * truy vấn quét toàn bảng. Xóa key này để chạy lại backfill.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatSessionBackfillService {
+    private static final String DONE_KEY = "chat::session_backfill:done";
+    private static final String LOCK_KEY = "chat::session_backfill:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSessionSummaries() {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(DONE_KEY))) return;
+
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) return;
+
+        try {
+            // Instance khác có thể vừa chạy xong trước khi lấy được lock
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(DONE_KEY))) return;
+
+            if (backfill()) redisTemplate.opsForValue().set(DONE_KEY, Instant.now().toString());
+        } finally {
+            if (token.equals(redisTemplate.opsForValue().get(LOCK_KEY)))
+                redisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    /**
+     * Trả về true khi mọi session đều được xử lý không lỗi
+     */
+    private boolean backfill() {
+        List<Object[]> missing = chatSessionRepository.findSessionsWithoutSummary();
+        if (missing.isEmpty()) return true;
+
+        int created = 0;
+        int failed = 0;
+        for (Object[] row : missing) {
+            try {
+                Long userId = ((Number) row[0]).longValue();
+                String sessionId = (String) row[1];
+                long messageCount = ((Number) row[2]).longValue();
+
+                User user = userRepository.getReferenceById(userId);
+                ChatMessage first = chatMessageRepository
+                        .findFirstByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId)
+                        .orElse(null);
+                ChatMessage last = chatMessageRepository
+                        .findFirstByUserAndSessionIdOrderByCreatedAtDesc(user, sessionId)
+                        .orElse(null);
+                if (first == null || last == null) continue;
+
+                chatSessionRepository.save(new ChatSession(
+                        user,
+                        sessionId,
+                        first.getRole() == MessageRole.USER ? truncate(first.getContent()) : "Chat session",
+                        truncate(last.getContent()),
+                        messageCount,
+                        first.getCreatedAt(),
+                        last.getCreatedAt()
+                ));
+                created++;
+            } catch (Exception e) {
+                failed++;
+                log.warn("Không thể tạo tóm tắt cho chat session {}: {}", row[1], e.getMessage());
+            }
+        }
+        log.info("Đã backfill {} chat session summaries, {} lỗi", created, failed);
+        return failed == 0;
+    }
+
+    private String truncate(String message) {
+        if (message == null) return "";
+        if (message.length() <= 50) return message;
+        return message.substring(0, 50) + "...";
+    }
+}
@@ -0,0 +1,24 @@
+package com.TranAn.BackEnd_Works.scheduler;
+
+import com.TranAn.BackEnd_Works.service.DashboardCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardCounterReconcileService {
+    private final DashboardCounterService dashboardCounterService;
+
+    // Đếm lại định kỳ để sửa sai lệch của bộ đếm dashboard (bulk update, lỗi Redis, ...)
+    @Scheduled(cron = "${dashboard.counters.reconcile-cron:0 */30 * * * ?}")
+    public void reconcileCounters() {
+        try {
+            dashboardCounterService.reconcile();
+        } catch (Exception e) {
+            log.error("Dashboard counter reconciliation failed", e);
+        }
+    }
+}
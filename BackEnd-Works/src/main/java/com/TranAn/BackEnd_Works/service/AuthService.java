@@ -26,6 +26,8 @@ public interface AuthService {
 
     void removeSelfSession(String sessionId);
 
+    ResponseCookie handleLogoutAll();
+
     OtpResponseDto sendOtpForPasswordReset(ForgotPasswordRequestDto request);
 
     OtpResponseDto resendOtp(ForgotPasswordRequestDto request);
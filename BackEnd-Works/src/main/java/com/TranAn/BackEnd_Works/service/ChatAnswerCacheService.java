@@ -0,0 +1,34 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.admin.ChatAnswerCacheResponseDto;
+
+import java.util.Optional;
+
+public interface ChatAnswerCacheService {
+
+    /**
+     * Tìm câu trả lời đã cache cho câu hỏi (không kèm lịch sử): khớp chính xác theo khóa chuẩn hóa,
+     * nếu không có thì lấy câu gần giống nhất vượt ngưỡng tương đồng
+     */
+    Optional<String> find(String question);
+
+    /**
+     * Lưu câu trả lời cho câu hỏi không kèm lịch sử
+     */
+    void put(String question, String answer);
+
+    /**
+     * Thống kê và danh sách các câu đang được cache (dành cho admin)
+     */
+    ChatAnswerCacheResponseDto inspect();
+
+    /**
+     * Xóa toàn bộ cache trên mọi instance, trả về số mục đã xóa ở instance hiện tại
+     */
+    int purge();
+
+    /**
+     * Xóa một mục theo khóa chuẩn hóa trên mọi instance
+     */
+    boolean evict(String key);
+}
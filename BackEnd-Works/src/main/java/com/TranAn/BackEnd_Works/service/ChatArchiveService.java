@@ -0,0 +1,23 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.User;
+
+public interface ChatArchiveService {
+
+    /**
+     * Nén các session không hoạt động quá ngưỡng thành một dòng lưu trữ và xóa khỏi chat_messages.
+     * Trả về số session đã lưu trữ.
+     */
+    int archiveIdleSessions();
+
+    /**
+     * Nếu session đang được lưu trữ thì giải nén và đưa message trở lại chat_messages.
+     * Trả về true nếu có khôi phục.
+     */
+    boolean rehydrate(User user, String sessionId);
+
+    /**
+     * Xóa bản lưu trữ của session (khi người dùng xóa lịch sử)
+     */
+    void deleteArchive(Long userId, String sessionId);
+}
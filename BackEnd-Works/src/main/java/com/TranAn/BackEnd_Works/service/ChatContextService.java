@@ -0,0 +1,14 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+
+import java.util.List;
+
+public interface ChatContextService {
+
+    /**
+     * Xây dựng prompt gửi cho AI: giữ các lượt gần nhất trong ngân sách token,
+     * các lượt cũ hơn được thay bằng bản tóm tắt cuốn chiếu của session
+     */
+    String buildPrompt(Long userId, String sessionId, List<ChatHistoryEntry> history, String currentQuestion);
+}
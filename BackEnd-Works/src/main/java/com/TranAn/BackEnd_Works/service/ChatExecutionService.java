@@ -0,0 +1,33 @@
+package com.TranAn.BackEnd_Works.service;
+
+import reactor.core.publisher.Flux;
+
+import java.util.function.Supplier;
+
+public interface ChatExecutionService {
+
+    /**
+     * Xin một suất gọi AI: kiểm tra giới hạn đồng thời của user (Redis) và chờ suất chung
+     * trong hàng đợi có giới hạn. Hết chỗ thì ném TooManyRequestsException ngay.
+     */
+    Permit acquire(Long userId);
+
+    /**
+     * Gọi AI (chặn) trong giới hạn thời gian, quá hạn thì hủy và ném AiServiceTimeoutException
+     */
+    <T> T call(Permit permit, Supplier<T> modelCall);
+
+    /**
+     * Bọc stream từ AI với giới hạn thời gian, suất được trả lại khi stream kết thúc / lỗi / bị hủy,
+     * hoặc khi stream không được subscribe trong thời gian chờ tối đa
+     */
+    Flux<String> stream(Permit permit, Supplier<Flux<String>> modelStream);
+
+    /**
+     * Suất gọi AI đã cấp, close() nhiều lần vẫn an toàn
+     */
+    interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
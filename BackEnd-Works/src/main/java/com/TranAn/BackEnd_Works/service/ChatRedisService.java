@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.service;
 
-import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.PendingChatMessage;
 
 import java.time.Duration;
 import java.util.List;
@@ -8,19 +9,49 @@ import java.util.List;
 public interface ChatRedisService {
 
     /**
-     * Lưu lịch sử chat vào Redis
+     * Lưu lịch sử chat vào Redis (ghi đè toàn bộ, dùng khi nạp lại từ Database)
      */
-    void saveChatHistory(String userId, String sessionId, List<ChatMessage> messages, Duration expire);
+    void saveChatHistory(String userId, String sessionId, List<ChatHistoryEntry> entries, Duration expire);
 
     /**
      * Lấy lịch sử chat từ Redis
      */
-    List<ChatMessage> getChatHistory(String userId, String sessionId);
+    List<ChatHistoryEntry> getChatHistory(String userId, String sessionId);
 
     /**
-     * Thêm một message vào lịch sử
+     * Thêm message vào cuối lịch sử và vào hàng đợi write-behind trong cùng một pipeline
+     * (RPUSH + LTRIM + EXPIRE + RPUSH), trả về số message đang chờ flush
      */
-    void addMessage(String userId, String sessionId, ChatMessage message, Duration expire);
+    long appendAndEnqueue(String userId, String sessionId, ChatHistoryEntry entry,
+                          PendingChatMessage pending, Duration expire);
+
+    /**
+     * Đọc (không xóa) tối đa count message đầu hàng đợi write-behind
+     */
+    List<PendingChatMessage> peekPending(int count);
+
+    /**
+     * Bỏ count message đầu hàng đợi sau khi đã flush thành công và gia hạn khóa flush, nguyên tử.
+     * Chỉ cắt khi khóa vẫn mang lockToken; trả về false nếu khóa đã mất (node khác có thể đang flush)
+     */
+    boolean removePending(int count, String lockKey, String lockToken, Duration lockTtl);
+
+    /**
+     * Các message đang chờ flush của một session. Phải đọc cả hàng đợi nên chỉ dùng khi
+     * lịch sử của session không còn trong Redis
+     */
+    List<PendingChatMessage> getPending(Long userId, String sessionId);
+
+    /**
+     * Số message đang chờ flush
+     */
+    long countPending();
+
+    /**
+     * Bỏ khỏi hàng đợi các message đang chờ của một session, trả về số message đã bỏ.
+     * Chỉ gọi khi đang giữ khóa flush (không có batch nào đang được ghi dở)
+     */
+    int removePending(Long userId, String sessionId);
 
     /**
      * Xóa lịch sử chat
@@ -36,4 +67,4 @@ public interface ChatRedisService {
      * Lấy danh sách tất cả sessionId của user
      */
     List<String> getAllSessionIds(String userId);
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.TranAn.BackEnd_Works.service;
 import com.TranAn.BackEnd_Works.dto.request.ChatRequest;
 import com.TranAn.BackEnd_Works.dto.response.ChatMessageDto;
 import com.TranAn.BackEnd_Works.dto.response.ChatSessionDto;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -13,6 +14,11 @@ public interface ChatService {
      */
     String generation(ChatRequest request, String userEmail);
 
+    /**
+     * Stream AI response token by token, the assistant message is saved when the stream completes
+     */
+    Flux<String> streamGeneration(ChatRequest request, String userEmail);
+
     /**
      * Get chat history for a specific session
      */
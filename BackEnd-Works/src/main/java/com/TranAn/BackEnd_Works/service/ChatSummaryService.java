@@ -0,0 +1,13 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+
+import java.util.List;
+
+public interface ChatSummaryService {
+
+    /**
+     * Gộp các lượt hội thoại cũ vào bản tóm tắt hiện có của session (chạy bất đồng bộ)
+     */
+    void refreshSummary(Long userId, String sessionId, String previousSummary, List<ChatHistoryEntry> olderTurns);
+}
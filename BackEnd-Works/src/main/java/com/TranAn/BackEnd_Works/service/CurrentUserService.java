@@ -0,0 +1,29 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
+import com.TranAn.BackEnd_Works.dto.response.user.UserProfileSnapshotDto;
+
+public interface CurrentUserService {
+
+    /**
+     * Người dùng của request hiện tại, dựng một lần từ claim của JWT và giữ trong request.
+     * Token cũ không có claim "uid" sẽ rơi về tra theo email (qua cache hồ sơ)
+     */
+    CurrentUser get();
+
+    /**
+     * Các trường hiển thị (tên, avatar, ...) của người dùng hiện tại, cache ngắn hạn theo user id
+     */
+    UserProfileSnapshotDto profile();
+
+    /**
+     * Bỏ cache hồ sơ của một người dùng sau khi tên / avatar / công ty / chức vụ thay đổi,
+     * trên mọi instance (sau khi transaction commit)
+     */
+    void evict(Long userId);
+
+    /**
+     * Bỏ toàn bộ cache hồ sơ (ví dụ khi xóa công ty làm thay đổi nhiều người dùng)
+     */
+    void evictAll();
+}
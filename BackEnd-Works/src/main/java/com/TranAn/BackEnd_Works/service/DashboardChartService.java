@@ -0,0 +1,27 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+public interface DashboardChartService {
+
+    enum Series {
+        USERS,
+        JOBS,
+        RESUMES
+    }
+
+    /**
+     * Múi giờ nghiệp vụ dùng để chia mốc tháng ({@code dashboard.timezone})
+     */
+    ZoneId getZone();
+
+    /**
+     * Số bản ghi tạo mới theo từng tháng trong 6 tháng gần nhất (tính cả tháng hiện tại),
+     * sắp xếp từ tháng cũ đến tháng mới
+     */
+    List<DashboardStatsResponseDto.MonthlyData> getLast6Months(Series series, Instant now);
+}
@@ -0,0 +1,63 @@
+package com.TranAn.BackEnd_Works.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DashboardCounterService {
+
+    String USERS_TOTAL = "users.total";
+    String JOBS_TOTAL = "jobs.total";
+    String RESUMES_TOTAL = "resumes.total";
+    String COMPANIES_TOTAL = "companies.total";
+    String SUBSCRIBERS_TOTAL = "subscribers.total";
+
+    /**
+     * Bảng xếp hạng duy trì bằng Redis sorted set, member là id của company / job / skill
+     */
+    enum Leaderboard {
+        COMPANIES_BY_JOBS,
+        COMPANIES_BY_RESUMES,
+        JOBS_BY_RESUMES,
+        SKILLS_BY_JOBS
+    }
+
+    record LeaderboardEntry(Long id, long score) {
+    }
+
+    static String usersByRole(String roleName) {
+        return "users.role." + roleName;
+    }
+
+    static String jobsByLevel(Object level) {
+        return "jobs.level." + level;
+    }
+
+    static String resumesByStatus(Object status) {
+        return "resumes.status." + status;
+    }
+
+    /**
+     * Toàn bộ bộ đếm (một lần đọc Redis). Chưa có bộ đếm thì đếm lại từ Database trước
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Cộng dồn vào bộ đếm. Trong transaction thì gom lại và chỉ ghi Redis sau khi commit
+     */
+    void add(String counter, long delta);
+
+    /**
+     * Cộng dồn điểm của một member trong bảng xếp hạng, cùng cơ chế gom theo transaction như {@link #add}
+     */
+    void addToLeaderboard(Leaderboard leaderboard, Long id, long delta);
+
+    /**
+     * Top-N của bảng xếp hạng theo điểm giảm dần; null nếu bảng chưa được dựng hoặc đang rỗng
+     */
+    List<LeaderboardEntry> getTop(Leaderboard leaderboard, int limit);
+
+    /**
+     * Đếm lại toàn bộ bộ đếm và bảng xếp hạng từ Database, sửa sai lệch do bulk update / lỗi Redis
+     */
+    void reconcile();
+}
@@ -0,0 +1,12 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
+
+public interface DashboardSnapshotService {
+
+    /**
+     * Snapshot thống kê dashboard gần nhất (xem {@link DashboardStatsResponseDto#getGeneratedAt()}).
+     * Snapshot cũ hơn soft TTL vẫn được trả ngay, việc tính lại chạy nền
+     */
+    DashboardStatsResponseDto getSnapshot();
+}
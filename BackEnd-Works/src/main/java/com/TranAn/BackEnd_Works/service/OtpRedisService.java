@@ -3,47 +3,45 @@ package com.TranAn.BackEnd_Works.service;
 public interface OtpRedisService {
 
     /**
-     * Tạo mã OTP ngẫu nhiên 6 chữ số
+     * Phát OTP mới cho email: kiểm tra OTP cũ, rate limit, tăng bộ đếm và lưu OTP
+     * trong một script Redis nên giới hạn số lần gửi luôn chính xác kể cả khi request đồng thời.
+     *
+     * @param resend true = gửi lại (thay OTP cũ), false = chỉ phát khi chưa có OTP còn hiệu lực
      */
-    String generateOtp();
+    IssueResult issueOtp(String email, boolean resend);
 
     /**
-     * Lưu OTP vào Redis với email làm key
+     * Xác thực OTP, nhập sai được đếm và OTP bị hủy khi sai quá số lần cho phép
+     *
+     * @param consume true = xóa OTP khi đúng (đặt lại mật khẩu), false = chỉ kiểm tra
      */
-    void saveOtp(String email, String otp);
+    VerifyStatus verifyOtp(String email, String otp, boolean consume);
 
     /**
-     * Xác thực OTP
+     * Reset rate limit (sau khi đặt lại mật khẩu thành công, hoặc dùng cho testing / admin)
      */
-    boolean verifyOtp(String email, String otp);
-
-    /**
-     * Xóa OTP sau khi sử dụng
-     */
-    void deleteOtp(String email);
-
-    /**
-     * Kiểm tra OTP có tồn tại không
-     */
-    boolean isOtpExist(String email);
+    void resetRateLimit(String email);
 
     /**
-     * Kiểm tra xem có thể gửi OTP không (Rate limiting)
+     * Thời gian sống của OTP (giây)
      */
-    boolean canSendOtp(String email);
+    long getOtpTtlSeconds();
 
-    /**
-     * Tăng số lần gửi OTP
-     */
-    void incrementSendAttempt(String email);
+    enum IssueStatus {
+        ISSUED,
+        ACTIVE_OTP_EXISTS,
+        RATE_LIMITED
+    }
 
-    /**
-     * Lấy số lần đã gửi OTP
-     */
-    int getSendAttempts(String email);
+    enum VerifyStatus {
+        VALID,
+        INVALID,
+        LOCKED
+    }
 
     /**
-     * Reset rate limit (dùng cho testing hoặc admin)
+     * @param otp mã vừa phát, null nếu không phát
      */
-    void resetRateLimit(String email);
-}
\ No newline at end of file
+    record IssueResult(IssueStatus status, int attempts, int remainingAttempts, String otp) {
+    }
+}
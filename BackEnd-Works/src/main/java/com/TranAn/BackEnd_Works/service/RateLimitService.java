@@ -0,0 +1,19 @@
+package com.TranAn.BackEnd_Works.service;
+
+import com.TranAn.BackEnd_Works.config.security.RateLimitProperties;
+
+public interface RateLimitService {
+
+    /**
+     * Lấy một token từ bucket của key theo rule. Key đang bị chặn được từ chối ngay tại node
+     * mà không gọi Redis; Redis lỗi thì cho qua để không chặn toàn bộ hệ thống
+     */
+    Decision tryConsume(RateLimitProperties.Rule rule, String key);
+
+    /**
+     * @param retryAfterMillis thời gian chờ đến khi có token (chỉ có ý nghĩa khi bị từ chối)
+     * @param resetMillis      thời gian đến khi bucket được nạp đầy
+     */
+    record Decision(boolean allowed, long limit, long remaining, long retryAfterMillis, long resetMillis) {
+    }
+}
@@ -10,11 +10,22 @@ import java.util.List;
 public interface RefreshTokenRedisService {
     void saveRefreshToken(String token, String userId, SessionMetaRequest sessionMetaRequest, Duration expire);
 
-    boolean validateToken(String token, String userId);
+    /**
+     * Xoay vòng refresh token nguyên tử: xóa token cũ và lưu token mới trong một script Lua.
+     * Trả về false nếu token cũ không còn hợp lệ (đã được dùng, đã thu hồi hoặc hết hạn)
+     */
+    boolean rotateRefreshToken(
+            String currentToken, String newToken, String userId,
+            SessionMetaRequest sessionMetaRequest, Duration expire);
 
     void deleteRefreshToken(String token, String userId);
 
     void deleteRefreshToken(String key);
 
+    /**
+     * Đăng xuất mọi thiết bị của user: xóa cả hash session trong một lệnh DEL
+     */
+    void deleteAllRefreshTokens(String userId);
+
     List<SessionMetaResponse> getAllSessionMetas(String userId, String currentRefreshToken);
 }
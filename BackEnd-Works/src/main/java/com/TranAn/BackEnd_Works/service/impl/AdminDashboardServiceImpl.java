@@ -6,301 +6,443 @@ import com.TranAn.BackEnd_Works.model.constant.Level;
 import com.TranAn.BackEnd_Works.model.constant.ResumeStatus;
 import com.TranAn.BackEnd_Works.repository.*;
 import com.TranAn.BackEnd_Works.service.AdminDashboardService;
+import com.TranAn.BackEnd_Works.service.DashboardChartService;
+import com.TranAn.BackEnd_Works.service.DashboardCounterService;
+import com.TranAn.BackEnd_Works.service.DashboardCounterService.Leaderboard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.YearMonth;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Thống kê cho admin dashboard.
+ * <p>
+ * Các phần (overview, users, jobs, ...) chạy song song trên virtual thread, mỗi truy vấn
+ * cũng là một task riêng nên thời gian trả về gần bằng truy vấn chậm nhất thay vì tổng.
+ * Số truy vấn chạy đồng thời bị giới hạn bởi {@code dashboard.stats.max-concurrent-queries}
+ * để không chiếm hết connection pool. Truy vấn trùng nhau giữa các phần (count, top skills, ...)
+ * chỉ chạy một lần trong một request. Phần nào quá {@code dashboard.stats.timeout} hoặc lỗi
+ * thì trả null và được liệt kê trong {@code unavailableSections}.
+ * <p>
+ * Số tổng và số theo chức vụ / level / trạng thái đọc từ bộ đếm duy trì sẵn
+ * ({@link DashboardCounterService}, một lần đọc Redis), không đếm lại cả bảng.
+ * Các bảng top-10 đọc từ bảng xếp hạng Redis, chỉ truy vấn Database để lấy tên theo id.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AdminDashboardServiceImpl implements AdminDashboardService {
 
+    private static final int TOP_LIMIT = 10;
+
     private final UserRepository userRepository;
     private final JobRepository jobRepository;
     private final ResumeRepository resumeRepository;
     private final CompanyRepository companyRepository;
-    private final SubscriberRepository subscriberRepository;
     private final SkillRepository skillRepository;
+    private final DashboardCounterService dashboardCounterService;
+    private final DashboardChartService dashboardChartService;
+
+    @Value("${dashboard.stats.max-concurrent-queries:4}")
+    private int maxConcurrentQueries;
+
+    @Value("${dashboard.stats.timeout:5s}")
+    private Duration timeout;
+
+    private ExecutorService executor;
+    private Semaphore queryPermits;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dashboard-stats-", 0).factory());
+        queryPermits = new Semaphore(maxConcurrentQueries);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
 
     @Override
     public DashboardStatsResponseDto getDashboardStats() {
+        StatsRequest q = new StatsRequest();
+
+        CompletableFuture<DashboardStatsResponseDto.OverviewStats> overviewStats = section(() -> getOverviewStats(q));
+        CompletableFuture<DashboardStatsResponseDto.UserStats> userStats = section(() -> getUserStats(q));
+        CompletableFuture<DashboardStatsResponseDto.JobStats> jobStats = section(() -> getJobStats(q));
+        CompletableFuture<DashboardStatsResponseDto.ResumeStats> resumeStats = section(() -> getResumeStats(q));
+        CompletableFuture<DashboardStatsResponseDto.CompanyStats> companyStats = section(() -> getCompanyStats(q));
+        CompletableFuture<DashboardStatsResponseDto.ChartData> chartData = section(() -> getChartData(q));
+        CompletableFuture<DashboardStatsResponseDto.TopPerformers> topPerformers = section(() -> getTopPerformers(q));
+
+        // Mọi phần dùng chung một deadline tính từ lúc bắt đầu request
+        long deadline = System.nanoTime() + timeout.toNanos();
         DashboardStatsResponseDto response = new DashboardStatsResponseDto();
-
-        response.setOverviewStats(getOverviewStats());
-        response.setUserStats(getUserStats());
-        response.setJobStats(getJobStats());
-        response.setResumeStats(getResumeStats());
-        response.setCompanyStats(getCompanyStats());
-        response.setChartData(getChartData());
-        response.setTopPerformers(getTopPerformers());
-
+        List<String> unavailable = new ArrayList<>();
+
+        await("overviewStats", overviewStats, deadline, unavailable, response::setOverviewStats);
+        await("userStats", userStats, deadline, unavailable, response::setUserStats);
+        await("jobStats", jobStats, deadline, unavailable, response::setJobStats);
+        await("resumeStats", resumeStats, deadline, unavailable, response::setResumeStats);
+        await("companyStats", companyStats, deadline, unavailable, response::setCompanyStats);
+        await("chartData", chartData, deadline, unavailable, response::setChartData);
+        await("topPerformers", topPerformers, deadline, unavailable, response::setTopPerformers);
+
+        response.setUnavailableSections(unavailable);
+        response.setGeneratedAt(q.now);
         return response;
     }
 
-    private DashboardStatsResponseDto.OverviewStats getOverviewStats() {
-        Instant now = Instant.now();
-        Instant startOfThisMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Instant startOfLastMonth = startOfThisMonth.atZone(ZoneId.systemDefault())
-                .minusMonths(1)
-                .toInstant();
-
-        Long totalUsers = userRepository.count();
-        Long totalJobs = jobRepository.count();
-        Long totalResumes = resumeRepository.count();
-        Long totalCompanies = companyRepository.count();
-        Long totalSubscribers = subscriberRepository.count();
+    private DashboardStatsResponseDto.OverviewStats getOverviewStats(StatsRequest q) {
+        CompletableFuture<Long> totalUsers = q.counter(DashboardCounterService.USERS_TOTAL);
+        CompletableFuture<Long> totalJobs = q.counter(DashboardCounterService.JOBS_TOTAL);
+        CompletableFuture<Long> totalResumes = q.counter(DashboardCounterService.RESUMES_TOTAL);
+        CompletableFuture<Long> totalCompanies = q.counter(DashboardCounterService.COMPANIES_TOTAL);
+        CompletableFuture<Long> totalSubscribers = q.counter(DashboardCounterService.SUBSCRIBERS_TOTAL);
 
         // Tính growth rate
-        Long usersThisMonth = userRepository.countByCreatedAtAfter(startOfThisMonth);
-        Long usersLastMonth = userRepository.countByCreatedAtBetween(startOfLastMonth, startOfThisMonth);
-        Double userGrowthRate = calculateGrowthRate(usersThisMonth, usersLastMonth);
+        CompletableFuture<Long> usersThisMonth = q.query("users.thisMonth",
+                () -> userRepository.countByCreatedAtAfter(q.startOfThisMonth));
+        CompletableFuture<Long> usersLastMonth = q.query("users.lastMonth",
+                () -> userRepository.countByCreatedAtBetween(q.startOfLastMonth, q.startOfThisMonth));
 
-        Long jobsThisMonth = jobRepository.countByCreatedAtAfter(startOfThisMonth);
-        Long jobsLastMonth = jobRepository.countByCreatedAtBetween(startOfLastMonth, startOfThisMonth);
-        Double jobGrowthRate = calculateGrowthRate(jobsThisMonth, jobsLastMonth);
+        CompletableFuture<Long> jobsThisMonth = q.query("jobs.thisMonth",
+                () -> jobRepository.countByCreatedAtAfter(q.startOfThisMonth));
+        CompletableFuture<Long> jobsLastMonth = q.query("jobs.lastMonth",
+                () -> jobRepository.countByCreatedAtBetween(q.startOfLastMonth, q.startOfThisMonth));
 
-        Long resumesThisMonth = resumeRepository.countByCreatedAtAfter(startOfThisMonth);
-        Long resumesLastMonth = resumeRepository.countByCreatedAtBetween(startOfLastMonth, startOfThisMonth);
-        Double resumeGrowthRate = calculateGrowthRate(resumesThisMonth, resumesLastMonth);
+        CompletableFuture<Long> resumesThisMonth = q.query("resumes.thisMonth",
+                () -> resumeRepository.countByCreatedAtAfter(q.startOfThisMonth));
+        CompletableFuture<Long> resumesLastMonth = q.query("resumes.lastMonth",
+                () -> resumeRepository.countByCreatedAtBetween(q.startOfLastMonth, q.startOfThisMonth));
 
         return new DashboardStatsResponseDto.OverviewStats(
-                totalUsers,
-                totalJobs,
-                totalResumes,
-                totalCompanies,
-                totalSubscribers,
-                userGrowthRate,
-                jobGrowthRate,
-                resumeGrowthRate
+                totalUsers.join(),
+                totalJobs.join(),
+                totalResumes.join(),
+                totalCompanies.join(),
+                totalSubscribers.join(),
+                calculateGrowthRate(usersThisMonth.join(), usersLastMonth.join()),
+                calculateGrowthRate(jobsThisMonth.join(), jobsLastMonth.join()),
+                calculateGrowthRate(resumesThisMonth.join(), resumesLastMonth.join())
         );
     }
 
-    private DashboardStatsResponseDto.UserStats getUserStats() {
-        Long totalUsers = userRepository.count();
+    private DashboardStatsResponseDto.UserStats getUserStats(StatsRequest q) {
+        CompletableFuture<Long> totalUsers = q.counter(DashboardCounterService.USERS_TOTAL);
 
-        Instant now = Instant.now();
-        Instant thirtyDaysAgo = now.minusSeconds(30L * 24 * 60 * 60);
+        Instant thirtyDaysAgo = q.now.minusSeconds(30L * 24 * 60 * 60);
         // Tạm thời dùng createdAt thay cho lastLogin (vì chưa có field lastLogin)
-        Long activeUsers = userRepository.countByCreatedAtAfter(thirtyDaysAgo);
-
-        Instant startOfMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newUsersThisMonth = userRepository.countByCreatedAtAfter(startOfMonth);
+        CompletableFuture<Long> activeUsers = q.query("users.last30Days",
+                () -> userRepository.countByCreatedAtAfter(thirtyDaysAgo));
+
+        CompletableFuture<Long> newUsersThisMonth = q.query("users.thisMonth",
+                () -> userRepository.countByCreatedAtAfter(q.startOfThisMonth));
 
         // Đếm theo role
-        Long adminCount = userRepository.countByRole_Name("ADMIN");
-        Long recruiterCount = userRepository.countByRole_Name("RECRUITER");
-        Long userCount = userRepository.countByRole_Name("USER");
+        CompletableFuture<Long> adminCount = q.counter(DashboardCounterService.usersByRole("ADMIN"));
+        CompletableFuture<Long> recruiterCount = q.counter(DashboardCounterService.usersByRole("RECRUITER"));
+        CompletableFuture<Long> userCount = q.counter(DashboardCounterService.usersByRole("USER"));
 
         return new DashboardStatsResponseDto.UserStats(
-                totalUsers,
-                activeUsers,
-                newUsersThisMonth,
-                adminCount,
-                recruiterCount,
-                userCount
+                totalUsers.join(),
+                activeUsers.join(),
+                newUsersThisMonth.join(),
+                adminCount.join(),
+                recruiterCount.join(),
+                userCount.join()
         );
     }
 
-    private DashboardStatsResponseDto.JobStats getJobStats() {
-        Long totalJobs = jobRepository.count();
+    private DashboardStatsResponseDto.JobStats getJobStats(StatsRequest q) {
+        CompletableFuture<Long> totalJobs = q.counter(DashboardCounterService.JOBS_TOTAL);
 
-        Instant now = Instant.now();
-        Long activeJobs = jobRepository.countByEndDateAfter(now);
-        Long expiredJobs = jobRepository.countByEndDateBefore(now);
+        CompletableFuture<Long> activeJobs = q.query("jobs.active", () -> jobRepository.countByEndDateAfter(q.now));
+        CompletableFuture<Long> expiredJobs = q.query("jobs.expired", () -> jobRepository.countByEndDateBefore(q.now));
 
-        Instant startOfMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newJobsThisMonth = jobRepository.countByCreatedAtAfter(startOfMonth);
+        CompletableFuture<Long> newJobsThisMonth = q.query("jobs.thisMonth",
+                () -> jobRepository.countByCreatedAtAfter(q.startOfThisMonth));
 
-        // Top skills - limit 10
-        List<DashboardStatsResponseDto.SkillCount> topSkills = skillRepository.findTopSkillsByJobCount()
-                .stream()
-                .limit(10)
-                .map(obj -> new DashboardStatsResponseDto.SkillCount(
-                        (String) obj[0],
-                        (Long) obj[1]
-                ))
-                .collect(Collectors.toList());
+        // Top skills - limit 10 (dùng chung với top performers)
+        CompletableFuture<List<DashboardStatsResponseDto.SkillCount>> topSkills = topSkills(q);
 
         // Đếm theo level
-        Long internJobs = jobRepository.countByLevel(Level.INTERN);
-        Long fresherJobs = jobRepository.countByLevel(Level.FRESHER);
-        Long middleJobs = jobRepository.countByLevel(Level.MIDDLE);
-        Long seniorJobs = jobRepository.countByLevel(Level.SENIOR);
-        Long leaderJobs = jobRepository.countByLevel(Level.LEADER);
+        CompletableFuture<Long> internJobs = q.counter(DashboardCounterService.jobsByLevel(Level.INTERN));
+        CompletableFuture<Long> fresherJobs = q.counter(DashboardCounterService.jobsByLevel(Level.FRESHER));
+        CompletableFuture<Long> middleJobs = q.counter(DashboardCounterService.jobsByLevel(Level.MIDDLE));
+        CompletableFuture<Long> seniorJobs = q.counter(DashboardCounterService.jobsByLevel(Level.SENIOR));
+        CompletableFuture<Long> leaderJobs = q.counter(DashboardCounterService.jobsByLevel(Level.LEADER));
 
         return new DashboardStatsResponseDto.JobStats(
-                totalJobs,
-                activeJobs,
-                expiredJobs,
-                newJobsThisMonth,
-                topSkills,
-                internJobs,
-                fresherJobs,
-                middleJobs,
-                seniorJobs,
-                leaderJobs
+                totalJobs.join(),
+                activeJobs.join(),
+                expiredJobs.join(),
+                newJobsThisMonth.join(),
+                topSkills.join(),
+                internJobs.join(),
+                fresherJobs.join(),
+                middleJobs.join(),
+                seniorJobs.join(),
+                leaderJobs.join()
         );
     }
 
-    private DashboardStatsResponseDto.ResumeStats getResumeStats() {
-        Long totalResumes = resumeRepository.count();
-        Long pendingResumes = resumeRepository.countByStatus(ResumeStatus.PENDING);
-        Long reviewingResumes = resumeRepository.countByStatus(ResumeStatus.REVIEWING);
-        Long approvedResumes = resumeRepository.countByStatus(ResumeStatus.APPROVED);
-        Long rejectedResumes = resumeRepository.countByStatus(ResumeStatus.REJECTED);
-
+    private DashboardStatsResponseDto.ResumeStats getResumeStats(StatsRequest q) {
+        CompletableFuture<Long> totalResumesFuture = q.counter(DashboardCounterService.RESUMES_TOTAL);
+        CompletableFuture<Long> pendingResumes = q.counter(DashboardCounterService.resumesByStatus(ResumeStatus.PENDING));
+        CompletableFuture<Long> reviewingResumes = q.counter(DashboardCounterService.resumesByStatus(ResumeStatus.REVIEWING));
+        CompletableFuture<Long> approvedResumesFuture = q.counter(DashboardCounterService.resumesByStatus(ResumeStatus.APPROVED));
+        CompletableFuture<Long> rejectedResumes = q.counter(DashboardCounterService.resumesByStatus(ResumeStatus.REJECTED));
+        CompletableFuture<Long> newResumesThisMonth = q.query("resumes.thisMonth",
+                () -> resumeRepository.countByCreatedAtAfter(q.startOfThisMonth));
+
+        Long totalResumes = totalResumesFuture.join();
+        Long approvedResumes = approvedResumesFuture.join();
         Double approvalRate = totalResumes > 0
                 ? (approvedResumes.doubleValue() / totalResumes.doubleValue()) * 100
                 : 0.0;
 
-        Instant startOfMonth = Instant.now().atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newResumesThisMonth = resumeRepository.countByCreatedAtAfter(startOfMonth);
-
         return new DashboardStatsResponseDto.ResumeStats(
                 totalResumes,
-                pendingResumes,
-                reviewingResumes,
+                pendingResumes.join(),
+                reviewingResumes.join(),
                 approvedResumes,
-                rejectedResumes,
+                rejectedResumes.join(),
                 approvalRate,
-                newResumesThisMonth
+                newResumesThisMonth.join()
         );
     }
 
-    private DashboardStatsResponseDto.CompanyStats getCompanyStats() {
-        Long totalCompanies = companyRepository.count();
-        Instant now = Instant.now();
-        Long activeCompanies = companyRepository.countCompaniesWithActiveJobs(now);
-
-        Instant startOfMonth = now.atZone(ZoneId.systemDefault())
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .withNano(0)
-                .toInstant();
-        Long newCompaniesThisMonth = companyRepository.countByCreatedAtAfter(startOfMonth);
+    private DashboardStatsResponseDto.CompanyStats getCompanyStats(StatsRequest q) {
+        CompletableFuture<Long> totalCompanies = q.counter(DashboardCounterService.COMPANIES_TOTAL);
+        CompletableFuture<Long> activeCompanies = q.query("companies.active",
+                () -> companyRepository.countCompaniesWithActiveJobs(q.now));
+
+        CompletableFuture<Long> newCompaniesThisMonth = q.query("companies.thisMonth",
+                () -> companyRepository.countByCreatedAtAfter(q.startOfThisMonth));
 
         // Top companies - limit 10
-        List<DashboardStatsResponseDto.CompanyJobCount> topCompanies = companyRepository.findTopCompaniesByJobCount()
-                .stream()
-                .limit(10)
-                .map(obj -> new DashboardStatsResponseDto.CompanyJobCount(
-                        ((Number) obj[0]).longValue(),
-                        (String) obj[1],
-                        ((Number) obj[2]).longValue()
-                ))
-                .collect(Collectors.toList());
+        CompletableFuture<List<DashboardStatsResponseDto.CompanyJobCount>> topCompanies = q.query("companies.topByJobs",
+                () -> topRows(Leaderboard.COMPANIES_BY_JOBS, companyRepository::findNamesByIds, companyRepository::findTopCompaniesByJobCount)
+                        .stream()
+                        .map(obj -> new DashboardStatsResponseDto.CompanyJobCount(
+                                ((Number) obj[0]).longValue(),
+                                (String) obj[1],
+                                ((Number) obj[2]).longValue()
+                        ))
+                        .collect(Collectors.toList()));
 
         return new DashboardStatsResponseDto.CompanyStats(
-                totalCompanies,
-                activeCompanies,
-                newCompaniesThisMonth,
-                topCompanies
+                totalCompanies.join(),
+                activeCompanies.join(),
+                newCompaniesThisMonth.join(),
+                topCompanies.join()
         );
     }
 
-    private DashboardStatsResponseDto.ChartData getChartData() {
-        List<DashboardStatsResponseDto.MonthlyData> usersByMonth = getLast6MonthsData("users");
-        List<DashboardStatsResponseDto.MonthlyData> jobsByMonth = getLast6MonthsData("jobs");
-        List<DashboardStatsResponseDto.MonthlyData> resumesByMonth = getLast6MonthsData("resumes");
-
-        return new DashboardStatsResponseDto.ChartData(usersByMonth, jobsByMonth, resumesByMonth);
+    private DashboardStatsResponseDto.ChartData getChartData(StatsRequest q) {
+        // Mỗi series một truy vấn (tháng đã kết thúc lấy từ cache), ba series chạy song song
+        CompletableFuture<List<DashboardStatsResponseDto.MonthlyData>> usersByMonth = q.query("chart.users",
+                () -> dashboardChartService.getLast6Months(DashboardChartService.Series.USERS, q.now));
+        CompletableFuture<List<DashboardStatsResponseDto.MonthlyData>> jobsByMonth = q.query("chart.jobs",
+                () -> dashboardChartService.getLast6Months(DashboardChartService.Series.JOBS, q.now));
+        CompletableFuture<List<DashboardStatsResponseDto.MonthlyData>> resumesByMonth = q.query("chart.resumes",
+                () -> dashboardChartService.getLast6Months(DashboardChartService.Series.RESUMES, q.now));
+
+        return new DashboardStatsResponseDto.ChartData(
+                usersByMonth.join(),
+                jobsByMonth.join(),
+                resumesByMonth.join()
+        );
     }
 
-    private DashboardStatsResponseDto.TopPerformers getTopPerformers() {
+    private DashboardStatsResponseDto.TopPerformers getTopPerformers(StatsRequest q) {
         // Top companies by resumes - limit 10
-        List<DashboardStatsResponseDto.CompanyResumeCount> topCompaniesByResumes = companyRepository.findTopCompaniesByResumeCount()
-                .stream()
-                .limit(10)
-                .map(obj -> new DashboardStatsResponseDto.CompanyResumeCount(
-                        ((Number) obj[0]).longValue(),
-                        (String) obj[1],
-                        ((Number) obj[2]).longValue()
-                ))
-                .collect(Collectors.toList());
+        CompletableFuture<List<DashboardStatsResponseDto.CompanyResumeCount>> topCompaniesByResumes = q.query("companies.topByResumes",
+                () -> topRows(Leaderboard.COMPANIES_BY_RESUMES, companyRepository::findNamesByIds, companyRepository::findTopCompaniesByResumeCount)
+                        .stream()
+                        .map(obj -> new DashboardStatsResponseDto.CompanyResumeCount(
+                                ((Number) obj[0]).longValue(),
+                                (String) obj[1],
+                                ((Number) obj[2]).longValue()
+                        ))
+                        .collect(Collectors.toList()));
 
         // Top jobs by resumes - limit 10
-        List<DashboardStatsResponseDto.JobResumeCount> topJobsByResumes = jobRepository.findTopJobsByResumeCount()
-                .stream()
-                .limit(10)
-                .map(obj -> new DashboardStatsResponseDto.JobResumeCount(
-                        ((Number) obj[0]).longValue(),
-                        (String) obj[1],
-                        obj[2] != null ? (String) obj[2] : "N/A",
-                        ((Number) obj[3]).longValue()
-                ))
-                .collect(Collectors.toList());
-
-        // Top skills - limit 10
-        List<DashboardStatsResponseDto.SkillCount> topSkills = skillRepository.findTopSkillsByJobCount()
-                .stream()
-                .limit(10)
-                .map(obj -> new DashboardStatsResponseDto.SkillCount(
-                        (String) obj[0],
-                        (Long) obj[1]
-                ))
-                .collect(Collectors.toList());
-
-        return new DashboardStatsResponseDto.TopPerformers(topCompaniesByResumes, topJobsByResumes, topSkills);
+        CompletableFuture<List<DashboardStatsResponseDto.JobResumeCount>> topJobsByResumes = q.query("jobs.topByResumes",
+                () -> topRows(Leaderboard.JOBS_BY_RESUMES, jobRepository::findNamesByIds, jobRepository::findTopJobsByResumeCount)
+                        .stream()
+                        .map(obj -> new DashboardStatsResponseDto.JobResumeCount(
+                                ((Number) obj[0]).longValue(),
+                                (String) obj[1],
+                                obj[2] != null ? (String) obj[2] : "N/A",
+                                ((Number) obj[3]).longValue()
+                        ))
+                        .collect(Collectors.toList()));
+
+        // Top skills - limit 10 (dùng chung với job stats)
+        CompletableFuture<List<DashboardStatsResponseDto.SkillCount>> topSkills = topSkills(q);
+
+        return new DashboardStatsResponseDto.TopPerformers(
+                topCompaniesByResumes.join(),
+                topJobsByResumes.join(),
+                topSkills.join()
+        );
     }
 
-    private List<DashboardStatsResponseDto.MonthlyData> getLast6MonthsData(String type) {
-        List<DashboardStatsResponseDto.MonthlyData> result = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
+    private CompletableFuture<List<DashboardStatsResponseDto.SkillCount>> topSkills(StatsRequest q) {
+        return q.query("skills.topByJobs",
+                () -> topRows(Leaderboard.SKILLS_BY_JOBS, skillRepository::findNamesByIds, skillRepository::findTopSkillsByJobCount)
+                        .stream()
+                        .map(obj -> new DashboardStatsResponseDto.SkillCount(
+                                (String) obj[1],
+                                ((Number) obj[2]).longValue()
+                        ))
+                        .collect(Collectors.toList()));
+    }
 
-        for (int i = 5; i >= 0; i--) {
-            YearMonth yearMonth = YearMonth.now().minusMonths(i);
-            String monthStr = yearMonth.format(formatter);
+    /**
+     * Top-N dạng [id, các cột tên..., count] giống truy vấn Database.
+     * Đọc từ bảng xếp hạng Redis rồi lấy tên theo id; id không còn trong Database (đã xóa) bị bỏ qua,
+     * vì vậy lấy dư gấp đôi. Bảng chưa được dựng hoặc Redis lỗi thì truy vấn Database với LIMIT.
+     */
+    private List<Object[]> topRows(
+            Leaderboard leaderboard,
+            Function<List<Long>, List<Object[]>> namesByIds,
+            Function<Pageable, List<Object[]>> fromDatabase
+    ) {
+        List<DashboardCounterService.LeaderboardEntry> top;
+        try {
+            top = dashboardCounterService.getTop(leaderboard, TOP_LIMIT * 2);
+        } catch (Exception e) {
+            log.warn("Không đọc được bảng xếp hạng {}: {}", leaderboard, e.getMessage());
+            top = null;
+        }
+        if (top == null) return fromDatabase.apply(PageRequest.of(0, TOP_LIMIT));
+        if (top.isEmpty()) return List.of();
 
-            Instant startOfMonth = yearMonth.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
-            Instant endOfMonth = yearMonth.atEndOfMonth().atTime(23, 59, 59).atZone(ZoneId.systemDefault()).toInstant();
+        Map<Long, Object[]> names = namesByIds.apply(top.stream().map(DashboardCounterService.LeaderboardEntry::id).toList())
+                .stream()
+                .collect(Collectors.toMap(row -> ((Number) row[0]).longValue(), row -> row));
 
-            Long count = switch (type) {
-                case "users" -> userRepository.countByCreatedAtBetween(startOfMonth, endOfMonth);
-                case "jobs" -> jobRepository.countByCreatedAtBetween(startOfMonth, endOfMonth);
-                case "resumes" -> resumeRepository.countByCreatedAtBetween(startOfMonth, endOfMonth);
-                default -> 0L;
-            };
+        List<Object[]> rows = new ArrayList<>(TOP_LIMIT);
+        for (DashboardCounterService.LeaderboardEntry entry : top) {
+            Object[] name = names.get(entry.id());
+            if (name == null) continue;
 
-            result.add(new DashboardStatsResponseDto.MonthlyData(monthStr, count));
+            Object[] row = Arrays.copyOf(name, name.length + 1);
+            row[name.length] = entry.score();
+            rows.add(row);
+            if (rows.size() == TOP_LIMIT) break;
         }
-
-        return result;
+        return rows;
     }
 
     private Double calculateGrowthRate(Long current, Long previous) {
         if (previous == 0) return current > 0 ? 100.0 : 0.0;
         return ((current - previous) / previous.doubleValue()) * 100;
     }
+
+    // ================================================
+    // THỰC THI SONG SONG
+    // ================================================
+
+    private <T> CompletableFuture<T> section(Supplier<T> builder) {
+        return CompletableFuture.supplyAsync(builder, executor);
+    }
+
+    private <T> void await(
+            String name,
+            CompletableFuture<T> section,
+            long deadline,
+            List<String> unavailable,
+            Consumer<T> setter
+    ) {
+        try {
+            setter.accept(section.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            log.warn("Dashboard section {} timed out after {}", name, timeout);
+            unavailable.add(name);
+        } catch (ExecutionException e) {
+            log.warn("Dashboard section {} failed", name, e.getCause());
+            unavailable.add(name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unavailable.add(name);
+        }
+    }
+
+    /**
+     * Trạng thái của một lần lấy thống kê: mốc thời gian dùng chung cho mọi phần
+     * và các truy vấn đã chạy, để truy vấn trùng key chỉ chạy một lần
+     */
+    private final class StatsRequest {
+        private final Instant now = Instant.now();
+        // Mốc tháng theo múi giờ nghiệp vụ, khớp với biểu đồ theo tháng
+        private final ZoneId zone = dashboardChartService.getZone();
+        private final Instant startOfThisMonth = YearMonth.from(now.atZone(zone))
+                .atDay(1)
+                .atStartOfDay(zone)
+                .toInstant();
+        private final Instant startOfLastMonth = YearMonth.from(now.atZone(zone))
+                .minusMonths(1)
+                .atDay(1)
+                .atStartOfDay(zone)
+                .toInstant();
+
+        private final Map<String, CompletableFuture<?>> queries = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        <T> CompletableFuture<T> query(String key, Supplier<T> query) {
+            return (CompletableFuture<T>) queries.computeIfAbsent(key,
+                    k -> CompletableFuture.supplyAsync(() -> runBounded(query), executor));
+        }
+
+        /**
+         * Giá trị một bộ đếm; toàn bộ bộ đếm được đọc một lần cho cả request
+         */
+        CompletableFuture<Long> counter(String name) {
+            return query("counters", dashboardCounterService::getCounters)
+                    .thenApply(counters -> counters.getOrDefault(name, 0L));
+        }
+    }
+
+    private <T> T runBounded(Supplier<T> query) {
+        try {
+            queryPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi chờ truy vấn thống kê", e);
+        }
+        try {
+            return query.get();
+        } finally {
+            queryPermits.release();
+        }
+    }
 }
@@ -1,15 +1,21 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.config.auth.AuthConfiguration;
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
+import com.TranAn.BackEnd_Works.config.auth.PermissionBitsetAuthoritiesConverter;
+import com.TranAn.BackEnd_Works.config.auth.PermissionCatalogue;
+import com.TranAn.BackEnd_Works.config.auth.RoleCatalogue;
 import com.TranAn.BackEnd_Works.dto.request.auth.*;
 import com.TranAn.BackEnd_Works.dto.response.auth.*;
 import com.TranAn.BackEnd_Works.dto.response.user.UserDetailsResponseDto;
+import com.TranAn.BackEnd_Works.dto.response.user.UserProfileSnapshotDto;
 import com.TranAn.BackEnd_Works.dto.response.user.UserSessionResponseDto;
 import com.TranAn.BackEnd_Works.model.Role;
 import com.TranAn.BackEnd_Works.model.User;
 import com.TranAn.BackEnd_Works.repository.RoleRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
 import com.TranAn.BackEnd_Works.service.AuthService;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
 import com.TranAn.BackEnd_Works.service.EmailService;
 import com.TranAn.BackEnd_Works.service.OtpRedisService;
 import com.TranAn.BackEnd_Works.service.RefreshTokenRedisService;
@@ -22,6 +28,7 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.*;
@@ -31,6 +38,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
 import java.util.List;
+import java.util.UUID;
 
 
 @Service
@@ -46,6 +54,9 @@ public class AuthServiceImpl implements AuthService {
     private final EmailService emailService;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final PermissionCatalogue permissionCatalogue;
+    private final RoleCatalogue roleCatalogue;
+    private final CurrentUserService currentUserService;
 
     @Value("${app.environment:development}")
     private String environment;
@@ -104,65 +115,60 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public ResponseCookie handleLogout(String refreshToken) {
         if (refreshToken != null) {
-            String email = jwtDecoder.decode(refreshToken).getSubject();
+            Jwt jwt = jwtDecoder.decode(refreshToken);
+            refreshTokenRedisService.deleteRefreshToken(refreshToken, resolveUserId(jwt));
+        }
 
-            User user = userRepository
-                    .findByEmail(email)
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        return clearRefreshTokenCookie();
+    }
 
-            refreshTokenRedisService.deleteRefreshToken(refreshToken, user.getId().toString());
-        }
+    @Override
+    public ResponseCookie handleLogoutAll() {
+        refreshTokenRedisService.deleteAllRefreshTokens(currentUserService.get().id().toString());
 
-        return ResponseCookie
-                .from("refresh_token", "")
-                .httpOnly(true)
-                .path("/")
-                .sameSite("Strict")
-                .maxAge(0)
-                .build();
+        return clearRefreshTokenCookie();
     }
 
     @Override
     public AuthResult handleRefresh(String refreshToken, SessionMetaRequest sessionMetaRequest) {
-        String email = jwtDecoder.decode(refreshToken).getSubject();
+        Jwt jwt = jwtDecoder.decode(refreshToken);
+        String email = jwt.getSubject();
 
-        User user = userRepository
-                .findByEmail(email)
+        // Token mới cần quyền hiện tại của chức vụ nên vẫn đọc user, nhưng theo khóa chính từ claim "uid"
+        User user = (jwt.getClaim("uid") instanceof Number uid
+                ? userRepository.findById(uid.longValue())
+                : userRepository.findByEmail(email))
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-        String userId = user.getId().toString();
-
-        if (!refreshTokenRedisService.validateToken(refreshToken, userId))
-            throw new BadJwtException(null);
 
         if (!user.getEmail().equalsIgnoreCase(email))
             throw new BadJwtException(null);
 
-        refreshTokenRedisService.deleteRefreshToken(refreshToken, userId);
+        // Kiểm tra + xóa token cũ + lưu token mới trong một script: hai request refresh
+        // đồng thời cùng một token thì chỉ một request thành công, token đã dùng bị từ chối
+        String newRefreshToken = buildRefreshJwt(user);
+        boolean rotated = refreshTokenRedisService.rotateRefreshToken(
+                refreshToken,
+                newRefreshToken,
+                user.getId().toString(),
+                sessionMetaRequest,
+                Duration.ofSeconds(refreshTokenExpiration));
+        if (!rotated)
+            throw new BadJwtException(null);
 
-        return buildAuthResult(user, sessionMetaRequest);
+        return buildAuthResult(user, newRefreshToken);
     }
 
     @Override
     public List<SessionMetaResponse> getAllSelfSessionMetas(String refreshToken) {
-        String email = jwtDecoder.decode(refreshToken).getSubject();
-
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-        String userId = user.getId().toString();
+        String userId = resolveUserId(jwtDecoder.decode(refreshToken));
 
         return refreshTokenRedisService.getAllSessionMetas(userId, refreshToken);
     }
 
     @Override
     public UserDetailsResponseDto getCurrentUserDetails() {
-        String currentUserEmail = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
         User user = userRepository
-                .findByEmail(currentUserEmail)
+                .findById(currentUserService.get().id())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
 
         return new UserDetailsResponseDto(
@@ -180,12 +186,28 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public UserSessionResponseDto getCurrentUser() {
-        String currentUserEmail = SecurityContextHolder
+        // Định danh, công ty, chức vụ và quyền lấy từ token; tên / avatar từ cache hồ sơ
+        CurrentUser currentUser = currentUserService.get();
+        UserProfileSnapshotDto profile = currentUserService.profile();
+
+        List<String> permissions = SecurityContextHolder
                 .getContext()
                 .getAuthentication()
-                .getName();
+                .getAuthorities()
+                .stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
 
-        return mapToUserInformation(currentUserEmail);
+        return new UserSessionResponseDto(
+                currentUser.email(),
+                profile.getName(),
+                currentUser.id(),
+                currentUser.hasCompany() ? currentUser.companyId().toString() : null,
+                currentUser.role(),
+                permissions,
+                profile.getLogoUrl(),
+                profile.getUpdatedAt() != null ? profile.getUpdatedAt().toString() : null
+        );
     }
 
     @Override
@@ -193,15 +215,9 @@ public class AuthServiceImpl implements AuthService {
         String[] part = sessionId.split(":");
         String sessionUserId = part[3];
 
-        String loginUserId = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-        User user = userRepository
-                .findByEmail(loginUserId)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        Long loginUserId = currentUserService.get().id();
 
-        if (!user.getId().toString().equalsIgnoreCase(sessionUserId))
+        if (!loginUserId.toString().equalsIgnoreCase(sessionUserId))
             throw new AccessDeniedException("Không có quyền truy cập");
 
         refreshTokenRedisService.deleteRefreshToken(sessionId);
@@ -213,42 +229,28 @@ public class AuthServiceImpl implements AuthService {
                 .findByEmail(request.getEmail())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng với email này"));
 
-        // Kiểm tra nếu OTP còn hiệu lực
-        if (otpRedisService.isOtpExist(request.getEmail())) {
+        // Kiểm tra OTP cũ + rate limit + lưu OTP mới trong một lần gọi Redis
+        OtpRedisService.IssueResult result = otpRedisService.issueOtp(request.getEmail(), false);
+
+        if (result.status() == OtpRedisService.IssueStatus.ACTIVE_OTP_EXISTS) {
             throw new IllegalArgumentException(
                     "Mã OTP trước đó vẫn còn hiệu lực. Vui lòng kiểm tra email hoặc đợi 5 phút để gửi lại."
             );
         }
-
-        // Kiểm tra rate limit
-        if (!otpRedisService.canSendOtp(request.getEmail())) {
-            int attempts = otpRedisService.getSendAttempts(request.getEmail());
+        if (result.status() == OtpRedisService.IssueStatus.RATE_LIMITED) {
             throw new IllegalArgumentException(
-                    "Bạn đã gửi OTP quá " + attempts + " lần. Vui lòng thử lại sau 15 phút."
+                    "Bạn đã gửi OTP quá " + result.attempts() + " lần. Vui lòng thử lại sau 15 phút."
             );
         }
 
-        // Tạo mã OTP
-        String otp = otpRedisService.generateOtp();
-
-        // Lưu OTP vào Redis
-        otpRedisService.saveOtp(request.getEmail(), otp);
-
-        // Tăng số lần gửi
-        otpRedisService.incrementSendAttempt(request.getEmail());
-
         // Gửi email
-        emailService.sendOtpEmail(request.getEmail(), otp, user.getName());
-
-        // Tính số lần gửi còn lại
-        int currentAttempts = otpRedisService.getSendAttempts(request.getEmail());
-        int remainingAttempts = 3 - currentAttempts;
+        emailService.sendOtpEmail(request.getEmail(), result.otp(), user.getName());
 
         return new OtpResponseDto(
                 true,
                 "Mã OTP đã được gửi đến email của bạn. Vui lòng kiểm tra hộp thư.",
-                300L, // 5 phút = 300 giây
-                remainingAttempts
+                otpRedisService.getOtpTtlSeconds(),
+                result.remainingAttempts()
         );
     }
 
@@ -258,81 +260,57 @@ public class AuthServiceImpl implements AuthService {
                 .findByEmail(request.getEmail())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng với email này"));
 
-        // Kiểm tra rate limit
-        if (!otpRedisService.canSendOtp(request.getEmail())) {
-            int attempts = otpRedisService.getSendAttempts(request.getEmail());
+        // Rate limit + thay OTP cũ trong một lần gọi Redis
+        OtpRedisService.IssueResult result = otpRedisService.issueOtp(request.getEmail(), true);
+
+        if (result.status() == OtpRedisService.IssueStatus.RATE_LIMITED) {
             throw new IllegalArgumentException(
-                    "Bạn đã gửi OTP quá " + attempts + " lần. Vui lòng thử lại sau 15 phút."
+                    "Bạn đã gửi OTP quá " + result.attempts() + " lần. Vui lòng thử lại sau 15 phút."
             );
         }
 
-        // Xóa OTP cũ (nếu có)
-        if (otpRedisService.isOtpExist(request.getEmail())) {
-            otpRedisService.deleteOtp(request.getEmail());
-        }
-
-        // Tạo mã OTP mới
-        String otp = otpRedisService.generateOtp();
-
-        // Lưu OTP mới vào Redis
-        otpRedisService.saveOtp(request.getEmail(), otp);
-
-        // Tăng số lần gửi
-        otpRedisService.incrementSendAttempt(request.getEmail());
-
         // Gửi email
-        emailService.sendOtpEmail(request.getEmail(), otp, user.getName());
-
-        // Tính số lần gửi còn lại
-        int currentAttempts = otpRedisService.getSendAttempts(request.getEmail());
-        int remainingAttempts = 3 - currentAttempts;
+        emailService.sendOtpEmail(request.getEmail(), result.otp(), user.getName());
 
         return new OtpResponseDto(
                 true,
                 "Mã OTP mới đã được gửi đến email của bạn.",
-                300L,
-                remainingAttempts
+                otpRedisService.getOtpTtlSeconds(),
+                result.remainingAttempts()
         );
     }
 
     @Override
     public VerifyOtpResponseDto verifyOtp(VerifyOtpRequestDto request) {
-        // Kiểm tra user tồn tại
-        userRepository
-                .findByEmail(request.getEmail())
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        // OTP chỉ được phát cho email đã tồn tại nên không cần tra bảng users ở bước này
+        OtpRedisService.VerifyStatus status = otpRedisService.verifyOtp(request.getEmail(), request.getOtp(), false);
+        boolean isValid = status == OtpRedisService.VerifyStatus.VALID;
 
-        // Xác thực OTP
-        boolean isValid = otpRedisService.verifyOtp(request.getEmail(), request.getOtp());
-
-        String message = isValid
-                ? "Mã OTP hợp lệ. Bạn có thể tiến hành đặt lại mật khẩu."
-                : "Mã OTP không hợp lệ hoặc đã hết hạn.";
-
-        return new VerifyOtpResponseDto(true, message, isValid);
+        return new VerifyOtpResponseDto(true, otpMessage(status), isValid);
     }
 
     @Override
     public ResetPasswordResponseDto resetPassword(ResetPasswordRequestDto request) {
+        // Xác thực và tiêu thụ OTP trong cùng một script: một OTP chỉ đặt lại mật khẩu được một lần
+        OtpRedisService.VerifyStatus status = otpRedisService.verifyOtp(request.getEmail(), request.getOtp(), true);
+        if (status != OtpRedisService.VerifyStatus.VALID) {
+            throw new IllegalArgumentException(otpMessage(status));
+        }
+
         User user = userRepository
                 .findByEmail(request.getEmail())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
 
-        // Xác thực OTP trước khi reset password
-        if (!otpRedisService.verifyOtp(request.getEmail(), request.getOtp())) {
-            throw new IllegalArgumentException("Mã OTP không hợp lệ hoặc đã hết hạn");
-        }
-
         // Cập nhật mật khẩu mới
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
 
-        // Xóa OTP sau khi sử dụng
-        otpRedisService.deleteOtp(request.getEmail());
-
         // Reset rate limit sau khi đổi mật khẩu thành công
         otpRedisService.resetRateLimit(request.getEmail());
 
+        // Mật khẩu đã đổi: thu hồi mọi phiên đăng nhập cũ
+        refreshTokenRedisService.deleteAllRefreshTokens(user.getId().toString());
+
         return new ResetPasswordResponseDto(
                 true,
                 "Mật khẩu đã được đặt lại thành công. Bạn có thể đăng nhập với mật khẩu mới."
@@ -346,14 +324,9 @@ public class AuthServiceImpl implements AuthService {
         if (user == null)
             throw new EntityNotFoundException("Không tìm thấy người dùng");
 
-        Role role = user.getRole();
-        List<String> permissions = null;
-        if (user.getRole() != null && user.getRole().getPermissions() != null)
-            permissions = role
-                    .getPermissions()
-                    .stream()
-                    .map(x -> x.getMethod() + " " + x.getApiPath())
-                    .toList();
+        // Tên quyền lấy từ danh mục role, không lazy load roles_permissions
+        RoleCatalogue.RoleEntry role = roleCatalogue.get(user.getRole());
+        List<String> permissions = role != null ? role.authorities() : null;
 
         String companyId = (user.getCompany() == null) ? null : user.getCompany().getId().toString();
 
@@ -362,24 +335,13 @@ public class AuthServiceImpl implements AuthService {
                 user.getName(),
                 user.getId(),
                 companyId,
-                role.getName(),
+                role != null ? role.name() : null,
                 permissions,
                 user.getLogoUrl(),
                 user.getUpdatedAt().toString()
         );
     }
 
-    private UserSessionResponseDto mapToUserInformation(String email) {
-        if (email == null || email.isBlank())
-            throw new EntityNotFoundException("Email không được để trống");
-
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-
-        return mapToUserInformation(user);
-    }
-
     private AuthResult buildAuthResult(String email, SessionMetaRequest sessionMetaRequest) {
         User user = userRepository
                 .findByEmail(email)
@@ -389,13 +351,17 @@ public class AuthServiceImpl implements AuthService {
     }
 
     private AuthResult buildAuthResult(User user, SessionMetaRequest sessionMetaRequest) {
-        String refreshToken = buildJwt(refreshTokenExpiration, user);
+        String refreshToken = buildRefreshJwt(user);
         refreshTokenRedisService.saveRefreshToken(
                 refreshToken,
                 user.getId().toString(),
                 sessionMetaRequest,
                 Duration.ofSeconds(refreshTokenExpiration));
 
+        return buildAuthResult(user, refreshToken);
+    }
+
+    private AuthResult buildAuthResult(User user, String refreshToken) {
         // Bắt đầu xây dựng cookie, nhưng chưa build vội
         ResponseCookie.ResponseCookieBuilder cookieBuilder = ResponseCookie
                 .from("refresh_token", refreshToken)
@@ -430,25 +396,66 @@ public class AuthServiceImpl implements AuthService {
         return new AuthResult(authTokenResponseDto, responseCookie);
     }
 
+    private ResponseCookie clearRefreshTokenCookie() {
+        return ResponseCookie
+                .from("refresh_token", "")
+                .httpOnly(true)
+                .path("/")
+                .sameSite("Strict")
+                .maxAge(0)
+                .build();
+    }
+
+    private String otpMessage(OtpRedisService.VerifyStatus status) {
+        return switch (status) {
+            case VALID -> "Mã OTP hợp lệ. Bạn có thể tiến hành đặt lại mật khẩu.";
+            case LOCKED -> "Bạn đã nhập sai mã OTP quá nhiều lần. Vui lòng yêu cầu mã OTP mới.";
+            case INVALID -> "Mã OTP không hợp lệ hoặc đã hết hạn";
+        };
+    }
+
+    private String resolveUserId(Jwt jwt) {
+        if (jwt.getClaim("uid") instanceof Number uid) return uid.toString();
+
+        // Token phát trước khi có claim "uid"
+        return userRepository
+                .findByEmail(jwt.getSubject())
+                .map(user -> user.getId().toString())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+    }
+
+    // Refresh token có jti ngẫu nhiên: hai token phát trong cùng một giây vẫn khác nhau,
+    // nên key session trong Redis không bao giờ trùng khi xoay vòng
+    private String buildRefreshJwt(User user) {
+        return buildJwt(refreshTokenExpiration, user, UUID.randomUUID().toString());
+    }
+
     private String buildJwt(Long expirationRate, User user) {
+        return buildJwt(expirationRate, user, null);
+    }
+
+    private String buildJwt(Long expirationRate, User user, String tokenId) {
         Instant now = Instant.now();
         Instant validity = now.plus(expirationRate, ChronoUnit.SECONDS);
 
         JwsHeader jwsHeader = JwsHeader.with(AuthConfiguration.MAC_ALGORITHM).build();
 
-        Role role = user.getRole();
-        List<String> permissions = role != null && role.getPermissions() != null
-                ? role.getPermissions().stream().map(p -> p.getMethod() + " " + p.getApiPath()).toList()
-                : List.of();
+        RoleCatalogue.RoleEntry role = roleCatalogue.get(user.getRole());
 
-        JwtClaimsSet claims = JwtClaimsSet.builder()
+        // Token gọn: chỉ các định danh cần cho request + quyền dạng bitset theo danh mục quyền.
+        // Thông tin hiển thị của user vẫn trả trong body khi đăng nhập / GET account
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
                 .issuedAt(now)
                 .expiresAt(validity)
                 .subject(user.getEmail())
-                .claim("user", mapToUserInformation(user))
-                .claim("permissions", permissions)
-                .build();
-
-        return jwtEncoder.encode(JwtEncoderParameters.from(jwsHeader, claims)).getTokenValue();
+                .claim("uid", user.getId())
+                .claim(PermissionBitsetAuthoritiesConverter.PERMISSION_VERSION_CLAIM, permissionCatalogue.version())
+                .claim(PermissionBitsetAuthoritiesConverter.PERMISSION_BITS_CLAIM,
+                        role != null ? role.permissionBits() : permissionCatalogue.encode(null));
+        if (role != null) claims.claim("role", role.name());
+        if (user.getCompany() != null) claims.claim("cid", user.getCompany().getId());
+        if (tokenId != null) claims.id(tokenId);
+
+        return jwtEncoder.encode(JwtEncoderParameters.from(jwsHeader, claims.build())).getTokenValue();
     }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.admin.ChatAnswerCacheResponseDto;
+import com.TranAn.BackEnd_Works.service.ChatAnswerCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Cache cục bộ câu trả lời của AI cho các câu hỏi không kèm lịch sử.
+ * <p>
+ * Khóa là câu hỏi đã chuẩn hóa: chữ thường, bỏ dấu tiếng Việt và dấu câu,
+ * các từ được sắp xếp và loại trùng. Nếu không khớp chính xác, câu hỏi
+ * được so với các mục còn hạn bằng độ tương đồng Jaccard trên tập từ.
+ * Cache giới hạn theo số mục (LRU) và thời gian sống.
+ * <p>
+ * Mỗi instance giữ cache riêng; {@link #purge()} và {@link #evict(String)} phát lệnh xóa
+ * qua pub/sub {@code chat::answer_cache:purge} để mọi instance cùng bỏ các mục tương ứng.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatAnswerCacheServiceImpl implements ChatAnswerCacheService {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final int PREVIEW_LENGTH = 100;
+    private static final String PURGE_CHANNEL = "chat::answer_cache:purge";
+    // Khóa chuẩn hóa chỉ gồm [a-z0-9 ] nên không thể trùng
+    private static final String PURGE_ALL = "*";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${chat.answer-cache.max-size:500}")
+    private int maxSize;
+
+    @Value("${chat.answer-cache.ttl:6h}")
+    private Duration ttl;
+
+    @Value("${chat.answer-cache.similarity-threshold:0.85}")
+    private double similarityThreshold;
+
+    // Câu quá ngắn (1-2 từ) dễ trùng nhầm nên chỉ nhận khớp chính xác
+    @Value("${chat.answer-cache.min-tokens-for-similarity:3}")
+    private int minTokensForSimilarity;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // access-order LinkedHashMap làm LRU, mọi truy cập đều qua khóa của chính map
+    private final LinkedHashMap<String, CachedAnswer> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedAnswer> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> removeLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(PURGE_CHANNEL)
+        );
+    }
+
+    @Override
+    public Optional<String> find(String question) {
+        String[] tokens = tokenize(question);
+        if (tokens.length == 0) return Optional.empty();
+        String key = String.join(" ", tokens);
+        Instant now = Instant.now();
+
+        synchronized (entries) {
+            CachedAnswer exact = entries.get(key);
+            if (exact != null) {
+                if (exact.expiresAt.isAfter(now)) return hit(exact);
+                entries.remove(key);
+            }
+
+            if (tokens.length >= minTokensForSimilarity) {
+                CachedAnswer best = null;
+                double bestScore = similarityThreshold;
+                for (var iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                    CachedAnswer candidate = iterator.next();
+                    if (!candidate.expiresAt.isAfter(now)) {
+                        iterator.remove();
+                        continue;
+                    }
+                    double score = jaccard(tokens, candidate.tokens);
+                    if (score >= bestScore) {
+                        bestScore = score;
+                        best = candidate;
+                    }
+                }
+                if (best != null) {
+                    // Đánh dấu truy cập để LRU giữ lại mục hay dùng
+                    entries.get(best.key);
+                    return hit(best);
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(String question, String answer) {
+        if (answer == null || answer.isBlank()) return;
+        String[] tokens = tokenize(question);
+        if (tokens.length == 0) return;
+
+        String key = String.join(" ", tokens);
+        Instant now = Instant.now();
+        CachedAnswer entry = new CachedAnswer(key, tokens, question, answer, now, now.plus(ttl));
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    @Override
+    public ChatAnswerCacheResponseDto inspect() {
+        Instant now = Instant.now();
+        List<ChatAnswerCacheResponseDto.Entry> snapshot = new ArrayList<>();
+        synchronized (entries) {
+            entries.values().removeIf(e -> !e.expiresAt.isAfter(now));
+            for (CachedAnswer e : entries.values()) {
+                snapshot.add(new ChatAnswerCacheResponseDto.Entry(
+                        e.key,
+                        e.question,
+                        e.answer.length() <= PREVIEW_LENGTH ? e.answer : e.answer.substring(0, PREVIEW_LENGTH) + "...",
+                        e.hits.get(),
+                        e.createdAt,
+                        e.expiresAt
+                ));
+            }
+        }
+        return new ChatAnswerCacheResponseDto(snapshot.size(), maxSize, hits.get(), misses.get(), snapshot);
+    }
+
+    @Override
+    public int purge() {
+        int removed = removeLocal(PURGE_ALL);
+        broadcast(PURGE_ALL);
+        log.info("Purged {} cached chat answers", removed);
+        return removed;
+    }
+
+    @Override
+    public boolean evict(String key) {
+        boolean removed = removeLocal(key) > 0;
+        broadcast(key);
+        return removed;
+    }
+
+    private void broadcast(String target) {
+        try {
+            redisTemplate.convertAndSend(PURGE_CHANNEL, target);
+        } catch (Exception e) {
+            // Các instance khác tự hết hạn sau ttl
+            log.warn("Không thể phát lệnh xóa cache câu trả lời {}: {}", target, e.getMessage());
+        }
+    }
+
+    // Trả về số mục đã xóa trên instance hiện tại
+    private int removeLocal(String target) {
+        synchronized (entries) {
+            if (PURGE_ALL.equals(target)) {
+                int removed = entries.size();
+                entries.clear();
+                return removed;
+            }
+            return entries.remove(target) != null ? 1 : 0;
+        }
+    }
+
+    private Optional<String> hit(CachedAnswer entry) {
+        entry.hits.incrementAndGet();
+        hits.incrementAndGet();
+        return Optional.of(entry.answer);
+    }
+
+    // Chuẩn hóa: chữ thường, bỏ dấu (kể cả đ), bỏ dấu câu, tách từ, sắp xếp, loại trùng
+    private static String[] tokenize(String text) {
+        if (text == null) return new String[0];
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT).replace('đ', 'd'), Normalizer.Form.NFD);
+        normalized = COMBINING_MARKS.matcher(normalized).replaceAll("");
+        normalized = NON_ALPHANUMERIC.matcher(normalized).replaceAll(" ").trim();
+        if (normalized.isEmpty()) return new String[0];
+        return new TreeSet<>(Arrays.asList(normalized.split(" "))).toArray(String[]::new);
+    }
+
+    // Jaccard trên hai mảng đã sắp xếp, không trùng phần tử
+    private static double jaccard(String[] a, String[] b) {
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            int cmp = a[i].compareTo(b[j]);
+            if (cmp == 0) {
+                common++;
+                i++;
+                j++;
+            } else if (cmp < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    private static final class CachedAnswer {
+        private final String key;
+        private final String[] tokens;
+        private final String question;
+        private final String answer;
+        private final Instant createdAt;
+        private final Instant expiresAt;
+        private final AtomicLong hits = new AtomicLong();
+
+        private CachedAnswer(String key, String[] tokens, String question, String answer,
+                             Instant createdAt, Instant expiresAt) {
+            this.key = key;
+            this.tokens = tokens;
+            this.question = question;
+            this.answer = answer;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatSession;
+import com.TranAn.BackEnd_Works.model.ChatSessionArchive;
+import com.TranAn.BackEnd_Works.model.User;
+import com.TranAn.BackEnd_Works.repository.ChatMessageRepository;
+import com.TranAn.BackEnd_Works.repository.ChatSessionArchiveRepository;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
+import com.TranAn.BackEnd_Works.service.ChatArchiveService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatArchiveServiceImpl implements ChatArchiveService {
+
+    private static final TypeReference<List<ChatHistoryEntry>> ENTRY_LIST = new TypeReference<>() {
+    };
+
+    private static final String RESTORE_SQL =
+            "INSERT IGNORE INTO chat_messages " +
+                    "(id, user_id, session_id, role, content, created_at, updated_at, created_by, modified_by) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatSessionArchiveRepository chatSessionArchiveRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Value("${chat.archive.idle-after:30d}")
+    private Duration idleAfter;
+
+    @Value("${chat.archive.batch-size:200}")
+    private int batchSize;
+
+    @Override
+    public int archiveIdleSessions() {
+        Instant cutoff = Instant.now().minus(idleAfter);
+        int archived = 0;
+
+        while (true) {
+            List<ChatSession> idle = chatSessionRepository.findIdleSessions(cutoff, PageRequest.of(0, batchSize));
+            if (idle.isEmpty()) break;
+
+            int archivedInPage = 0;
+            for (ChatSession session : idle) {
+                try {
+                    Boolean done = transactionTemplate.execute(status -> archive(session));
+                    if (Boolean.TRUE.equals(done)) archivedInPage++;
+                } catch (Exception e) {
+                    log.warn("Không thể lưu trữ chat session {}: {}", session.getSessionId(), e.getMessage());
+                }
+            }
+            archived += archivedInPage;
+            // Cả trang đều lỗi thì dừng để không lặp vô hạn trên cùng các session
+            if (archivedInPage == 0 || idle.size() < batchSize) break;
+        }
+
+        if (archived > 0) log.info("Archived {} idle chat sessions", archived);
+        return archived;
+    }
+
+    // Chạy trong transaction: ghi bản lưu trữ, xóa message nóng, đánh dấu session
+    private boolean archive(ChatSession session) {
+        Long userId = session.getUser().getId();
+        String sessionId = session.getSessionId();
+
+        List<ChatMessage> messages = chatMessageRepository
+                .findByUserAndSessionIdOrderByCreatedAtAsc(session.getUser(), sessionId);
+
+        ChatSessionArchive archive = chatSessionArchiveRepository
+                .findByUserIdAndSessionId(userId, sessionId)
+                .orElse(null);
+
+        // Session đã từng được lưu trữ rồi khôi phục: gộp message cũ với message mới
+        List<ChatHistoryEntry> entries = new ArrayList<>();
+        if (archive != null) entries.addAll(decode(archive.getPayload()));
+        for (ChatMessage message : messages) entries.add(ChatHistoryEntry.from(message));
+
+        if (entries.isEmpty()) {
+            chatSessionRepository.markArchived(userId, sessionId, true);
+            return false;
+        }
+
+        byte[] payload = encode(entries);
+        if (archive == null) {
+            archive = new ChatSessionArchive(userId, sessionId, entries.size(), payload);
+        } else {
+            archive.setMessageCount(entries.size());
+            archive.setPayload(payload);
+        }
+        chatSessionArchiveRepository.save(archive);
+
+        chatMessageRepository.deleteAllInSession(userId, sessionId);
+        chatSessionRepository.markArchived(userId, sessionId, true);
+        return true;
+    }
+
+    @Override
+    public boolean rehydrate(User user, String sessionId) {
+        Boolean restored = transactionTemplate.execute(status -> {
+            ChatSessionArchive archive = chatSessionArchiveRepository
+                    .findByUserIdAndSessionId(user.getId(), sessionId)
+                    .orElse(null);
+            if (archive == null) return false;
+
+            List<ChatHistoryEntry> entries = decode(archive.getPayload());
+            jdbcTemplate.batchUpdate(RESTORE_SQL, entries, entries.size(), (ps, entry) -> {
+                Timestamp createdAt = entry.getCreatedAt() != null ? Timestamp.from(entry.getCreatedAt()) : null;
+                ps.setObject(1, entry.getId());
+                ps.setLong(2, user.getId());
+                ps.setString(3, sessionId);
+                ps.setString(4, entry.getRole().name());
+                ps.setString(5, entry.getContent());
+                ps.setTimestamp(6, createdAt);
+                ps.setTimestamp(7, createdAt);
+                ps.setString(8, entry.getCreatedBy());
+                ps.setString(9, entry.getCreatedBy());
+            });
+
+            chatSessionArchiveRepository.delete(archive);
+            chatSessionRepository.markArchived(user.getId(), sessionId, false);
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(restored)) {
+            log.info("Rehydrated archived chat session {} for user {}", sessionId, user.getId());
+        }
+        return Boolean.TRUE.equals(restored);
+    }
+
+    @Override
+    public void deleteArchive(Long userId, String sessionId) {
+        transactionTemplate.executeWithoutResult(status ->
+                chatSessionArchiveRepository.deleteByUserIdAndSessionId(userId, sessionId));
+    }
+
+    private byte[] encode(List<ChatHistoryEntry> entries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không thể nén lịch sử chat", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<ChatHistoryEntry> decode(byte[] payload) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(gzip, ENTRY_LIST);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không thể giải nén lịch sử chat", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.ChatSession;
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
+import com.TranAn.BackEnd_Works.service.ChatContextService;
+import com.TranAn.BackEnd_Works.service.ChatSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ChatContextServiceImpl implements ChatContextService {
+
+    private static final String USER_PREFIX = "👤 Người dùng";
+    private static final String ASSISTANT_PREFIX = "🤖 Trợ lý";
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatSummaryService chatSummaryService;
+
+    // Đếm token cục bộ (cl100k), không cần gọi ra ngoài
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    // Ngân sách token cho phần lịch sử (tóm tắt + các lượt gần nhất)
+    @Value("${chat.context.max-history-tokens:2000}")
+    private int maxHistoryTokens;
+
+    @Override
+    public String buildPrompt(Long userId, String sessionId, List<ChatHistoryEntry> history, String currentQuestion) {
+        // 1. Đi ngược từ message mới nhất, giữ lại cho đến khi hết ngân sách
+        int used = 0;
+        int firstKept = history.size();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            int tokens = estimate(history.get(i));
+            if (used + tokens > maxHistoryTokens) break;
+            used += tokens;
+            firstKept = i;
+        }
+
+        List<ChatHistoryEntry> recent = history.subList(firstKept, history.size());
+        List<ChatHistoryEntry> older = history.subList(0, firstKept);
+
+        // 2. Có lượt bị loại thì dùng tóm tắt của session thay thế
+        String summary = null;
+        if (!older.isEmpty()) {
+            ChatSession session = chatSessionRepository.findByUserIdAndSessionId(userId, sessionId).orElse(null);
+            summary = session != null ? session.getSummary() : null;
+            Instant summarizedUntil = session != null ? session.getSummarizedUntil() : null;
+
+            // Tóm tắt chiếm một phần ngân sách: bỏ bớt lượt cũ nhất trong phần giữ lại cho vừa
+            if (summary != null) {
+                int summaryTokens = tokenCountEstimator.estimate(summary);
+                int drop = 0;
+                while (drop < recent.size() && used + summaryTokens > maxHistoryTokens) {
+                    used -= estimate(recent.get(drop));
+                    drop++;
+                }
+                if (drop > 0) {
+                    older = history.subList(0, firstKept + drop);
+                    recent = history.subList(firstKept + drop, history.size());
+                }
+            }
+
+            // 3. Tóm tắt chưa bao phủ hết các lượt bị loại: cập nhật nền, lượt này dùng bản hiện có
+            List<ChatHistoryEntry> unsummarized = older.stream()
+                    .filter(e -> summarizedUntil == null
+                            || (e.getCreatedAt() != null && e.getCreatedAt().isAfter(summarizedUntil)))
+                    .toList();
+            if (!unsummarized.isEmpty()) {
+                chatSummaryService.refreshSummary(userId, sessionId, summary, unsummarized);
+            }
+        }
+
+        return render(summary, recent, currentQuestion);
+    }
+
+    private String render(String summary, List<ChatHistoryEntry> recent, String currentQuestion) {
+        StringBuilder prompt = new StringBuilder();
+
+        if (summary != null && !summary.isBlank()) {
+            prompt.append("=== Tóm tắt các phần trước của cuộc hội thoại ===\n\n");
+            prompt.append(summary).append("\n\n");
+        }
+
+        if (!recent.isEmpty()) {
+            prompt.append("=== Lịch sử cuộc hội thoại ===\n\n");
+            for (ChatHistoryEntry msg : recent) {
+                prompt.append(prefix(msg)).append(": ").append(msg.getContent()).append("\n\n");
+            }
+            prompt.append("=== Hết lịch sử ===\n\n");
+        }
+
+        prompt.append(USER_PREFIX).append(" (câu hỏi hiện tại): ").append(currentQuestion);
+        prompt.append("\n\n").append(ASSISTANT_PREFIX).append(": ");
+
+        return prompt.toString();
+    }
+
+    private int estimate(ChatHistoryEntry entry) {
+        String content = entry.getContent() == null ? "" : entry.getContent();
+        // Cộng thêm vài token cho tiền tố vai trò và dòng trống
+        return tokenCountEstimator.estimate(content) + 8;
+    }
+
+    private static String prefix(ChatHistoryEntry entry) {
+        return entry.getRole() == MessageRole.USER ? USER_PREFIX : ASSISTANT_PREFIX;
+    }
+}
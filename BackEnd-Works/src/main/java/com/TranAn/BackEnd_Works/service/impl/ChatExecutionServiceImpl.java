@@ -0,0 +1,223 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.advice.exception.AiServiceTimeoutException;
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import com.TranAn.BackEnd_Works.service.ChatExecutionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead cho các lời gọi AI.
+ * <p>
+ * - Giới hạn số lời gọi đồng thời trên mỗi node (Semaphore)<br>
+ * - Hàng đợi chờ có giới hạn, đầy hoặc chờ quá lâu thì trả 429 ngay<br>
+ * - Giới hạn số request đang chạy của mỗi user, lưu ở Redis để áp dụng trên mọi node<br>
+ * - Mỗi lời gọi có thời gian tối đa, quá hạn thì hủy
+ * <p>
+ * Hủy Future không ngắt được I/O HTTP đang chờ: read timeout của HTTP client được đặt bằng
+ * {@code chat.execution.timeout} (ChatConfig) để thread bị treo tự được giải phóng. Trong lúc đó
+ * pool gọi AI có số thread cố định và không có hàng đợi: hết thread thì từ chối (429) ngay
+ * thay vì để lời gọi mới xếp hàng sau các lời gọi bị treo rồi quá hạn.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatExecutionServiceImpl implements ChatExecutionService {
+
+    private static final String INFLIGHT_PREFIX = "chat::inflight:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.execution.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${chat.execution.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${chat.execution.max-queue-wait:2s}")
+    private Duration maxQueueWait;
+
+    @Value("${chat.execution.per-user-limit:2}")
+    private int perUserLimit;
+
+    @Value("${chat.execution.timeout:60s}")
+    private Duration timeout;
+
+    private Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private ExecutorService modelExecutor;
+
+    private Timer queueWaitTimer;
+    private Timer modelLatencyTimer;
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrent, true);
+        modelExecutor = new ThreadPoolExecutor(
+                maxConcurrent,
+                maxConcurrent,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setName("chat-model-" + thread.getId());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        queueWaitTimer = Timer.builder("chat.queue.wait")
+                .description("Thời gian chờ suất gọi AI")
+                .register(meterRegistry);
+        modelLatencyTimer = Timer.builder("chat.model.latency")
+                .description("Thời gian gọi AI")
+                .register(meterRegistry);
+        timeoutCounter = Counter.builder("chat.timeouts")
+                .description("Số lời gọi AI bị hủy do quá thời gian")
+                .register(meterRegistry);
+        meterRegistry.gauge("chat.queue.size", waiting);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        modelExecutor.shutdownNow();
+    }
+
+    @Override
+    public Permit acquire(Long userId) {
+        // 1. Giới hạn theo user (dùng chung giữa các node)
+        String inflightKey = INFLIGHT_PREFIX + userId;
+        Long inflight = redisTemplate.opsForValue().increment(inflightKey);
+        // TTL an toàn: node chết giữa chừng thì bộ đếm vẫn tự hết hạn
+        redisTemplate.expire(inflightKey, timeout.plus(maxQueueWait).plusSeconds(30));
+        if (inflight != null && inflight > perUserLimit) {
+            redisTemplate.opsForValue().decrement(inflightKey);
+            reject("user_limit");
+            throw new TooManyRequestsException(
+                    "Bạn đang có quá nhiều câu hỏi chờ AI trả lời. Vui lòng đợi và thử lại.");
+        }
+
+        // 2. Hàng đợi chung có giới hạn
+        boolean acquired = false;
+        try {
+            if (waiting.incrementAndGet() > queueCapacity) {
+                reject("queue_full");
+                throw new TooManyRequestsException("Hệ thống AI đang quá tải. Vui lòng thử lại sau.");
+            }
+
+            long start = System.nanoTime();
+            try {
+                acquired = permits.tryAcquire(maxQueueWait.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queueWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (!acquired) {
+                reject("queue_timeout");
+                throw new TooManyRequestsException("Hệ thống AI đang quá tải. Vui lòng thử lại sau.");
+            }
+        } finally {
+            waiting.decrementAndGet();
+            if (!acquired) redisTemplate.opsForValue().decrement(inflightKey);
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+                redisTemplate.opsForValue().decrement(inflightKey);
+            }
+        };
+    }
+
+    @Override
+    public <T> T call(Permit permit, Supplier<T> modelCall) {
+        Future<T> future;
+        try {
+            future = modelExecutor.submit(modelCall::get);
+        } catch (RejectedExecutionException e) {
+            // Mọi thread đang bị chiếm bởi lời gọi đã quá hạn nhưng chưa trả về
+            reject("executor_saturated");
+            throw new TooManyRequestsException("Hệ thống AI đang quá tải. Vui lòng thử lại sau.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCounter.increment();
+            throw new AiServiceTimeoutException("AI phản hồi quá lâu. Vui lòng thử lại sau.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AiServiceTimeoutException("Yêu cầu tới AI đã bị hủy.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new RuntimeException(e.getCause());
+        } finally {
+            modelLatencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Flux<String> stream(Permit permit, Supplier<Flux<String>> modelStream) {
+        // Suất được xin trước khi trả response (để từ chối bằng 429 thật); Flux không bao giờ
+        // được subscribe thì suất tự trả lại sau max-queue-wait thay vì bị giữ mãi
+        AtomicBoolean subscribed = new AtomicBoolean();
+        Schedulers.parallel().schedule(() -> {
+            if (!subscribed.get()) permit.close();
+        }, maxQueueWait.toMillis(), TimeUnit.MILLISECONDS);
+
+        return Flux.defer(() -> {
+                    long start = System.nanoTime();
+                    // Hạn cho cả lời gọi tính từ lúc subscribe; Flux.timeout(Duration) chỉ giới hạn
+                    // khoảng cách giữa hai token nên model nhả token chậm vẫn giữ suất mãi được
+                    return modelStream.get()
+                            .takeUntilOther(Mono.delay(timeout).then(Mono.error(new TimeoutException())))
+                            .onErrorMap(TimeoutException.class, e -> {
+                                timeoutCounter.increment();
+                                return new AiServiceTimeoutException("AI phản hồi quá lâu. Vui lòng thử lại sau.");
+                            })
+                            .doFinally(signal ->
+                                    modelLatencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                })
+                .doOnSubscribe(subscription -> subscribed.set(true))
+                .doFinally(signal -> permit.close());
+    }
+
+    private void reject(String reason) {
+        meterRegistry.counter("chat.rejections", "reason", reason).increment();
+        log.debug("Rejected chat request: {}", reason);
+    }
+}
@@ -1,111 +1,167 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
-import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.PendingChatMessage;
 import com.TranAn.BackEnd_Works.service.ChatRedisService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChatRedisServiceImpl implements ChatRedisService {
 
-    private final RedisTemplate<String, List<ChatMessage>> redisChatTemplate;
-    private final ObjectMapper objectMapper = createObjectMapper();
-    
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        return mapper;
-    }
+    private final RedisTemplate<String, ChatHistoryEntry> redisChatTemplate;
+    private final RedisTemplate<String, PendingChatMessage> redisPendingChatTemplate;
 
-    private static final String CHAT_HISTORY_PREFIX = "chat::history:";
+    private static final String CHAT_HISTORY_PREFIX = "chat::messages:";
+    private static final String CHAT_PENDING_KEY = "chat::pending";
     private static final Duration DEFAULT_EXPIRATION = Duration.ofHours(24); // Chat history tồn tại 24h trong Redis
+    private static final int MAX_HISTORY_MESSAGES = 50; // Chỉ giữ N message gần nhất trong Redis
+    private static final RedisScript<Long> PENDING_ACK_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/chat-pending-ack.lua"), Long.class);
 
     private String buildKey(String userId, String sessionId) {
         return CHAT_HISTORY_PREFIX + userId + ":" + sessionId;
     }
 
     @Override
-    public void saveChatHistory(String userId, String sessionId, List<ChatMessage> messages, Duration expire) {
+    public void saveChatHistory(String userId, String sessionId, List<ChatHistoryEntry> entries, Duration expire) {
         String key = buildKey(userId, sessionId);
-        redisChatTemplate.opsForValue().set(key, messages, expire != null ? expire : DEFAULT_EXPIRATION);
+
+        redisChatTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, ChatHistoryEntry> ops = (RedisOperations<String, ChatHistoryEntry>) operations;
+                ops.delete(key);
+                if (!entries.isEmpty()) {
+                    ops.opsForList().rightPushAll(key, entries);
+                    ops.opsForList().trim(key, -MAX_HISTORY_MESSAGES, -1);
+                    ops.expire(key, expire != null ? expire : DEFAULT_EXPIRATION);
+                }
+                return null;
+            }
+        });
     }
 
     @Override
-    public List<ChatMessage> getChatHistory(String userId, String sessionId) {
+    public List<ChatHistoryEntry> getChatHistory(String userId, String sessionId) {
         String key = buildKey(userId, sessionId);
-        Object rawValue = redisChatTemplate.opsForValue().get(key);
-        
-        if (rawValue == null) {
+        List<ChatHistoryEntry> entries = redisChatTemplate.opsForList().range(key, 0, -1);
+
+        if (entries == null || entries.isEmpty()) {
             return Collections.emptyList();
         }
-        
-        // Nếu đã là List<ChatMessage> thì trả về luôn
-        if (rawValue instanceof List) {
-            List<?> list = (List<?>) rawValue;
-            
-            // Kiểm tra phần tử đầu tiên để xác định kiểu
-            if (list.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            Object firstElement = list.get(0);
-            
-            // Nếu đã là ChatMessage thì return
-            if (firstElement instanceof ChatMessage) {
-                @SuppressWarnings("unchecked")
-                List<ChatMessage> messages = (List<ChatMessage>) list;
-                return messages;
-            }
-            
-            // Nếu là LinkedHashMap thì convert sang ChatMessage
-            if (firstElement instanceof LinkedHashMap) {
-                try {
-                    return list.stream()
-                            .map(item -> {
-                                if (item instanceof LinkedHashMap) {
-                                    return objectMapper.convertValue(item, ChatMessage.class);
-                                }
-                                return (ChatMessage) item;
-                            })
-                            .collect(Collectors.toList());
-                } catch (Exception e) {
-                    log.error("Error converting LinkedHashMap to ChatMessage", e);
-                    return Collections.emptyList();
-                }
-            }
-        }
-        
-        return Collections.emptyList();
+
+        return entries;
     }
 
     @Override
-    public void addMessage(String userId, String sessionId, ChatMessage message, Duration expire) {
-        String key = buildKey(userId, sessionId);
-        List<ChatMessage> history = getChatHistory(userId, sessionId);
+    @SuppressWarnings("unchecked")
+    public long appendAndEnqueue(String userId, String sessionId, ChatHistoryEntry entry,
+                                 PendingChatMessage pending, Duration expire) {
+        byte[] historyKey = ((RedisSerializer<String>) redisChatTemplate.getKeySerializer())
+                .serialize(buildKey(userId, sessionId));
+        byte[] historyValue = ((RedisSerializer<ChatHistoryEntry>) redisChatTemplate.getValueSerializer())
+                .serialize(entry);
+        byte[] pendingKey = ((RedisSerializer<String>) redisPendingChatTemplate.getKeySerializer())
+                .serialize(CHAT_PENDING_KEY);
+        byte[] pendingValue = ((RedisSerializer<PendingChatMessage>) redisPendingChatTemplate.getValueSerializer())
+                .serialize(pending);
+        long expireSeconds = (expire != null ? expire : DEFAULT_EXPIRATION).toSeconds();
+
+        // Một round trip: lịch sử dùng cho prompt + hàng đợi ghi xuống Database
+        List<Object> results = redisChatTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.listCommands().rPush(historyKey, historyValue);
+            connection.listCommands().lTrim(historyKey, -MAX_HISTORY_MESSAGES, -1);
+            connection.keyCommands().expire(historyKey, expireSeconds);
+            connection.listCommands().rPush(pendingKey, pendingValue);
+            return null;
+        });
+
+        Object pendingSize = results.get(results.size() - 1);
+        return pendingSize instanceof Long size ? size : 0L;
+    }
 
-        if (history.isEmpty()) {
-            history = new ArrayList<>();
-        } else {
-            history = new ArrayList<>(history); // Tạo mutable list
-        }
+    @Override
+    public List<PendingChatMessage> peekPending(int count) {
+        List<PendingChatMessage> pending = redisPendingChatTemplate.opsForList().range(CHAT_PENDING_KEY, 0, count - 1);
+        return pending == null ? Collections.emptyList() : pending;
+    }
 
-        history.add(message);
-        saveChatHistory(userId, sessionId, history, expire != null ? expire : DEFAULT_EXPIRATION);
+    @Override
+    public boolean removePending(int count, String lockKey, String lockToken, Duration lockTtl) {
+        Long removed = redisPendingChatTemplate.execute(
+                PENDING_ACK_SCRIPT,
+                RedisSerializer.string(),
+                RedisSerializer.string(),
+                List.of(lockKey, CHAT_PENDING_KEY),
+                lockToken,
+                String.valueOf(count),
+                String.valueOf(lockTtl.toMillis())
+        );
+        return removed != null && removed == 1;
+    }
+
+    @Override
+    public List<PendingChatMessage> getPending(Long userId, String sessionId) {
+        List<PendingChatMessage> pending = redisPendingChatTemplate.opsForList().range(CHAT_PENDING_KEY, 0, -1);
+        if (pending == null) return Collections.emptyList();
+
+        return pending.stream()
+                .filter(message -> message != null
+                        && userId.equals(message.getUserId())
+                        && sessionId.equals(message.getSessionId()))
+                .toList();
+    }
+
+    @Override
+    public long countPending() {
+        Long size = redisPendingChatTemplate.opsForList().size(CHAT_PENDING_KEY);
+        return size != null ? size : 0L;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int removePending(Long userId, String sessionId) {
+        byte[] pendingKey = ((RedisSerializer<String>) redisPendingChatTemplate.getKeySerializer())
+                .serialize(CHAT_PENDING_KEY);
+        RedisSerializer<PendingChatMessage> valueSerializer =
+                (RedisSerializer<PendingChatMessage>) redisPendingChatTemplate.getValueSerializer();
+
+        // LREM theo đúng bytes đã lưu, không serialize lại (JSON serialize lại có thể khác bytes gốc)
+        return redisPendingChatTemplate.execute((RedisCallback<Integer>) connection -> {
+            List<byte[]> values = connection.listCommands().lRange(pendingKey, 0, -1);
+            if (values == null) return 0;
+
+            int removed = 0;
+            for (byte[] value : values) {
+                PendingChatMessage message = valueSerializer.deserialize(value);
+                if (message == null
+                        || !userId.equals(message.getUserId())
+                        || !sessionId.equals(message.getSessionId())) continue;
+
+                Long count = connection.listCommands().lRem(pendingKey, 1, value);
+                if (count != null) removed += count.intValue();
+            }
+            return removed;
+        });
     }
 
     @Override
@@ -131,7 +187,7 @@ public class ChatRedisServiceImpl implements ChatRedisService {
 
         List<String> sessionIds = new ArrayList<>();
         for (String key : keys) {
-            // Extract sessionId from key: "chat::history:userId:sessionId"
+            // Extract sessionId from key: "chat::messages:userId:sessionId"
             String sessionId = key.substring(key.lastIndexOf(":") + 1);
             sessionIds.add(sessionId);
         }
@@ -1,25 +1,42 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
+import com.TranAn.BackEnd_Works.advice.exception.AiServiceTimeoutException;
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
 import com.TranAn.BackEnd_Works.dto.request.ChatRequest;
 import com.TranAn.BackEnd_Works.dto.response.ChatMessageDto;
 import com.TranAn.BackEnd_Works.dto.response.ChatSessionDto;
-import com.TranAn.BackEnd_Works.model.ChatMessage;
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.PendingChatMessage;
 import com.TranAn.BackEnd_Works.model.User;
 import com.TranAn.BackEnd_Works.model.constant.MessageRole;
 import com.TranAn.BackEnd_Works.repository.ChatMessageRepository;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.scheduler.ChatMessageWriteBehindService;
+import com.TranAn.BackEnd_Works.service.ChatAnswerCacheService;
+import com.TranAn.BackEnd_Works.service.ChatArchiveService;
+import com.TranAn.BackEnd_Works.service.ChatContextService;
+import com.TranAn.BackEnd_Works.service.ChatExecutionService;
 import com.TranAn.BackEnd_Works.service.ChatRedisService;
 import com.TranAn.BackEnd_Works.service.ChatService;
-import jakarta.persistence.EntityNotFoundException;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -30,126 +47,248 @@ public class ChatServiceImpl implements ChatService {
 
     private final ChatClient chatClient;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatSessionRepository chatSessionRepository;
     private final ChatRedisService chatRedisService;
+    private final ChatContextService chatContextService;
+    private final ChatExecutionService chatExecutionService;
+    private final ChatAnswerCacheService chatAnswerCacheService;
+    private final ChatMessageWriteBehindService chatMessageWriteBehindService;
+    private final ChatArchiveService chatArchiveService;
     private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final TransactionTemplate transactionTemplate;
 
     private static final int MAX_HISTORY_MESSAGES = 50;
     private static final Duration REDIS_EXPIRE = Duration.ofHours(24);
 
+    // User của request lấy từ claim của token (CurrentUserService), không truy vấn bảng users;
+    // chỗ cần entity User thì dùng reference theo id.
+    // Không bọc cả luồng trong @Transactional: lời gọi AI có thể kéo dài nhiều giây,
+    // mỗi bước đọc/ghi Database chạy trong transaction ngắn của repository nên connection
+    // được trả về pool trước khi chờ AI
     @Override
-    @Transactional
     public String generation(ChatRequest request, String userEmail) {
 
         // 1. Lấy thông tin user
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with email: " + userEmail));
+        CurrentUser currentUser = currentUserService.get();
+        User user = userRepository.getReferenceById(currentUser.id());
+        rejectIfBackedUp();
 
-        String userId = user.getId().toString();
-
-        // 2. Lấy lịch sử từ Redis trước
-        List<ChatMessage> history = chatRedisService.getChatHistory(userId, request.getSessionId());
+        // 2. Lấy lịch sử (Redis trước, Database sau)
+        List<ChatHistoryEntry> history = loadHistory(user, request.getSessionId());
 
-        // 3. Nếu Redis không có, load từ Database
+        // 3. Câu hỏi mở đầu session (không có lịch sử) thì thử cache câu trả lời trước
         if (history.isEmpty()) {
-            history = chatMessageRepository
-                    .findByUserAndSessionIdOrderByCreatedAtAsc(user, request.getSessionId())
-                    .stream()
-                    .limit(MAX_HISTORY_MESSAGES)
-                    .collect(Collectors.toList());
-
-            // Cache vào Redis
-            if (!history.isEmpty()) {
-                chatRedisService.saveChatHistory(userId, request.getSessionId(), history, REDIS_EXPIRE);
+            Optional<String> cached = chatAnswerCacheService.find(request.getQuestion());
+            if (cached.isPresent()) {
+                saveMessage(currentUser, request.getSessionId(), MessageRole.USER, request.getQuestion());
+                saveMessage(currentUser, request.getSessionId(), MessageRole.ASSISTANT, cached.get());
+                log.info("Answered from cache in session {}", request.getSessionId());
+                return cached.get();
             }
         }
 
-        // 4. Tạo và lưu message của user
-        ChatMessage userMessage = ChatMessage.builder()
-                .user(user)
-                .sessionId(request.getSessionId())
-                .role(MessageRole.USER)
-                .content(request.getQuestion())
-                .build();
+        // 4. Xin suất gọi AI trước khi ghi gì vào lịch sử (quá tải thì trả 429 ngay)
+        try (ChatExecutionService.Permit permit = chatExecutionService.acquire(user.getId())) {
+
+            // 5. Lưu message của user
+            saveMessage(currentUser, request.getSessionId(), MessageRole.USER, request.getQuestion());
+
+            log.info("User {} sent message in session {}", currentUser.email(), request.getSessionId());
+
+            // 6. Xây dựng prompt với lịch sử (giới hạn theo ngân sách token, phần cũ dùng tóm tắt)
+            String promptWithHistory = chatContextService.buildPrompt(
+                    user.getId(), request.getSessionId(), history, request.getQuestion());
+
+            // 7. Gọi AI (ngoài transaction, không giữ connection, có giới hạn thời gian)
+            String response;
+            try {
+                response = chatExecutionService.call(permit, () -> chatClient.prompt()
+                        .user(promptWithHistory)
+                        .call()
+                        .content());
+            } catch (AiServiceTimeoutException e) {
+                log.warn("AI call timed out in session {}", request.getSessionId());
+                throw e;
+            } catch (Exception e) {
+                log.error("Error calling AI service", e);
+                throw new RuntimeException("Không thể kết nối đến AI service. Vui lòng thử lại sau.");
+            }
 
-        // Lưu vào Database
-        chatMessageRepository.save(userMessage);
+            // 8. Lưu response của AI (và cache nếu là câu hỏi mở đầu)
+            saveMessage(currentUser, request.getSessionId(), MessageRole.ASSISTANT, response);
+            if (history.isEmpty()) {
+                chatAnswerCacheService.put(request.getQuestion(), response);
+            }
 
-        // Thêm vào Redis
-        chatRedisService.addMessage(userId, request.getSessionId(), userMessage, REDIS_EXPIRE);
+            log.info("AI responded in session {}", request.getSessionId());
 
-        log.info("User {} sent message in session {}", user.getEmail(), request.getSessionId());
+            return response;
+        }
+    }
 
-        // 5. Xây dựng prompt với lịch sử
-        String promptWithHistory = buildPromptWithHistory(history, request.getQuestion());
+    @Override
+    public Flux<String> streamGeneration(ChatRequest request, String userEmail) {
+        CurrentUser currentUser = currentUserService.get();
+        User user = userRepository.getReferenceById(currentUser.id());
+        rejectIfBackedUp();
 
-        // 6. Gọi AI
-        String response;
-        try {
-            response = chatClient.prompt()
-                    .user(promptWithHistory)
-                    .call()
-                    .content();
-        } catch (Exception e) {
-            log.error("Error calling AI service", e);
-            throw new RuntimeException("Không thể kết nối đến AI service. Vui lòng thử lại sau.");
+        List<ChatHistoryEntry> history = loadHistory(user, request.getSessionId());
+
+        if (history.isEmpty()) {
+            Optional<String> cached = chatAnswerCacheService.find(request.getQuestion());
+            if (cached.isPresent()) {
+                saveMessage(currentUser, request.getSessionId(), MessageRole.USER, request.getQuestion());
+                saveMessage(currentUser, request.getSessionId(), MessageRole.ASSISTANT, cached.get());
+                log.info("Streamed answer from cache in session {}", request.getSessionId());
+                return Flux.just(cached.get());
+            }
         }
 
-        // 7. Tạo và lưu response của AI
-        ChatMessage assistantMessage = ChatMessage.builder()
-                .user(user)
-                .sessionId(request.getSessionId())
-                .role(MessageRole.ASSISTANT)
-                .content(response)
-                .build();
+        // Xin suất trước khi trả Flux: bị từ chối thì ném ra ngay để trả 429 thật,
+        // không phải event error trên response 200 đã gửi header
+        ChatExecutionService.Permit permit = chatExecutionService.acquire(user.getId());
 
-        // Lưu vào Database
-        chatMessageRepository.save(assistantMessage);
+        String promptWithHistory;
+        try {
+            saveMessage(currentUser, request.getSessionId(), MessageRole.USER, request.getQuestion());
 
-        // Thêm vào Redis
-        chatRedisService.addMessage(userId, request.getSessionId(), assistantMessage, REDIS_EXPIRE);
+            log.info("User {} sent streaming message in session {}", currentUser.email(), request.getSessionId());
 
-        log.info("AI responded in session {}", request.getSessionId());
+            promptWithHistory = chatContextService.buildPrompt(
+                    user.getId(), request.getSessionId(), history, request.getQuestion());
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
 
-        return response;
+        // Gom các chunk lại để lưu câu trả lời hoàn chỉnh khi stream kết thúc
+        StringBuilder answer = new StringBuilder();
+
+        return chatExecutionService.stream(permit, () -> chatClient.prompt()
+                        .user(promptWithHistory)
+                        .stream()
+                        .content())
+                .doOnNext(answer::append)
+                .doOnComplete(() -> {
+                    saveMessage(currentUser, request.getSessionId(), MessageRole.ASSISTANT, answer.toString());
+                    if (history.isEmpty()) {
+                        chatAnswerCacheService.put(request.getQuestion(), answer.toString());
+                    }
+                    log.info("AI streamed response in session {}", request.getSessionId());
+                })
+                .doOnError(e -> log.error("Error streaming from AI service", e))
+                .onErrorMap(e -> !(e instanceof AiServiceTimeoutException),
+                        e -> new RuntimeException("Không thể kết nối đến AI service. Vui lòng thử lại sau.", e));
     }
 
-    private String buildPromptWithHistory(List<ChatMessage> history, String currentQuestion) {
-        StringBuilder prompt = new StringBuilder();
+    // Helper: Lấy lịch sử từ Redis, nếu không có thì load N message gần nhất từ Database và cache lại
+    private List<ChatHistoryEntry> loadHistory(User user, String sessionId) {
+        String userId = user.getId().toString();
+
+        List<ChatHistoryEntry> history = chatRedisService.getChatHistory(userId, sessionId);
 
-        if (!history.isEmpty()) {
-            prompt.append("=== Lịch sử cuộc hội thoại ===\n\n");
-            for (ChatMessage msg : history) {
-                String prefix = msg.getRole() == MessageRole.USER ? "👤 Người dùng" : "🤖 Trợ lý";
-                prompt.append(prefix).append(": ").append(msg.getContent()).append("\n\n");
+        if (history.isEmpty()) {
+            // Session cũ đã được lưu trữ thì khôi phục về chat_messages trước khi đọc
+            chatArchiveService.rehydrate(user, sessionId);
+
+            List<ChatHistoryEntry> messages = loadFromDatabase(user, sessionId, history);
+            history = new ArrayList<>(messages.subList(
+                    Math.max(0, messages.size() - MAX_HISTORY_MESSAGES),
+                    messages.size()
+            ));
+
+            if (!history.isEmpty()) {
+                chatRedisService.saveChatHistory(userId, sessionId, history, REDIS_EXPIRE);
             }
-            prompt.append("=== Hết lịch sử ===\n\n");
         }
 
-        prompt.append("👤 Người dùng (câu hỏi hiện tại): ").append(currentQuestion);
-        prompt.append("\n\n🤖 Trợ lý: ");
+        return history;
+    }
 
-        return prompt.toString();
+    // Helper: Lịch sử trong Database cộng với các message chưa flush, loại trùng theo message_key.
+    // Message chưa flush nằm ở cuối lịch sử Redis; Redis không còn lịch sử thì đọc từ hàng đợi write-behind
+    private List<ChatHistoryEntry> loadFromDatabase(User user, String sessionId, List<ChatHistoryEntry> cached) {
+        List<ChatHistoryEntry> unflushed = cached.isEmpty()
+                ? chatRedisService.getPending(user.getId(), sessionId).stream().map(ChatHistoryEntry::from).toList()
+                : cached;
+
+        List<ChatHistoryEntry> history = chatMessageRepository
+                .findByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId)
+                .stream()
+                .map(ChatHistoryEntry::from)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (unflushed.isEmpty()) return history;
+
+        Set<String> stored = new HashSet<>();
+        for (ChatHistoryEntry entry : history) {
+            if (entry.getMessageKey() != null) stored.add(entry.getMessageKey());
+        }
+        boolean merged = false;
+        for (ChatHistoryEntry entry : unflushed) {
+            if (entry.getMessageKey() != null && stored.add(entry.getMessageKey())) {
+                history.add(entry);
+                merged = true;
+            }
+        }
+        if (merged) {
+            history.sort(Comparator.comparing(ChatHistoryEntry::getCreatedAt,
+                    Comparator.nullsFirst(Comparator.naturalOrder())));
+        }
+        return history;
     }
 
+    // Helper: Hàng đợi write-behind quá dài (Database chậm hoặc writer bị kẹt) thì từ chối request mới (429)
+    // trước khi ghi gì, để buffer trong Redis có giới hạn
+    private void rejectIfBackedUp() {
+        if (chatMessageWriteBehindService.isBackedUp())
+            throw new TooManyRequestsException("Hệ thống đang quá tải. Vui lòng thử lại sau.");
+    }
+
+    // Helper: Lưu message theo kiểu write-behind: chỉ một round trip Redis trên đường request
+    // (lịch sử + hàng đợi), ChatMessageWriteBehindService ghi xuống Database theo batch
+    private ChatHistoryEntry saveMessage(CurrentUser user, String sessionId, MessageRole role, String content) {
+        Instant now = Instant.now();
+        // Gán sẵn người tạo vì khi stream kết thúc, callback chạy ngoài SecurityContext của request
+        String createdBy = user.email();
+
+        PendingChatMessage pending = new PendingChatMessage(
+                UUID.randomUUID().toString(), user.id(), sessionId, role, content, now, createdBy);
+        ChatHistoryEntry entry = ChatHistoryEntry.from(pending);
+
+        chatRedisService.appendAndEnqueue(user.id().toString(), sessionId, entry, pending, REDIS_EXPIRE);
+
+        return entry;
+    }
+
+    // Không dùng transaction read-only: có thể phải khôi phục session đã lưu trữ (ghi Database)
     @Override
-    @Transactional(readOnly = true)
     public List<ChatMessageDto> getChatHistory(String userEmail, String sessionId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        CurrentUser currentUser = currentUserService.get();
+        User user = userRepository.getReferenceById(currentUser.id());
 
         String userId = user.getId().toString();
 
         // Lấy từ Redis trước
-        List<ChatMessage> history = chatRedisService.getChatHistory(userId, sessionId);
+        List<ChatHistoryEntry> cached = chatRedisService.getChatHistory(userId, sessionId);
 
-        // Nếu Redis không có, load từ Database
-        if (history.isEmpty()) {
-            history = chatMessageRepository.findByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId);
+        // Redis chỉ giữ N message gần nhất: chưa đầy cửa sổ nghĩa là đã đủ toàn bộ lịch sử
+        if (!cached.isEmpty() && cached.size() < MAX_HISTORY_MESSAGES) {
+            return cached.stream()
+                    .map(this::convertToDto)
+                    .collect(Collectors.toList());
+        }
 
-            // Cache vào Redis
-            if (!history.isEmpty()) {
-                chatRedisService.saveChatHistory(userId, sessionId, history, REDIS_EXPIRE);
-            }
+        // Nếu Redis không có (hoặc có thể đã bị cắt bớt), load từ Database
+        // và gộp các message chưa flush để không bị thiếu phần cuối
+        if (cached.isEmpty()) {
+            chatArchiveService.rehydrate(user, sessionId);
+        }
+        List<ChatHistoryEntry> history = loadFromDatabase(user, sessionId, cached);
+
+        // Cache vào Redis
+        if (cached.isEmpty() && !history.isEmpty()) {
+            chatRedisService.saveChatHistory(userId, sessionId, history, REDIS_EXPIRE);
         }
 
         return history.stream()
@@ -157,16 +296,25 @@ public class ChatServiceImpl implements ChatService {
                 .collect(Collectors.toList());
     }
 
+    // Không bọc cả hàm trong @Transactional: việc bỏ message đang chờ trong Redis không rollback được,
+    // chỉ phần xóa Database chạy trong transaction
     @Override
-    @Transactional
     public void clearChatHistory(String userEmail, String sessionId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        CurrentUser currentUser = currentUserService.get();
+        User user = userRepository.getReferenceById(currentUser.id());
 
         String userId = user.getId().toString();
 
+        // Bỏ các message của session còn trong hàng đợi (chờ batch đang ghi dở xong)
+        // để chúng không được ghi lại sau khi đã xóa
+        chatMessageWriteBehindService.discardPending(user.getId(), sessionId);
+
         // Xóa khỏi Database
-        chatMessageRepository.deleteByUserAndSessionId(user, sessionId);
+        transactionTemplate.executeWithoutResult(status -> {
+            chatMessageRepository.deleteByUserAndSessionId(user, sessionId);
+            chatSessionRepository.deleteByUserIdAndSessionId(user.getId(), sessionId);
+        });
+        chatArchiveService.deleteArchive(user.getId(), sessionId);
 
         // Xóa khỏi Redis
         chatRedisService.deleteChatHistory(userId, sessionId);
@@ -177,8 +325,8 @@ public class ChatServiceImpl implements ChatService {
     @Override
     @Transactional(readOnly = true)
     public boolean sessionExists(String userEmail, String sessionId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        CurrentUser currentUser = currentUserService.get();
+        User user = userRepository.getReferenceById(currentUser.id());
 
         String userId = user.getId().toString();
 
@@ -194,8 +342,8 @@ public class ChatServiceImpl implements ChatService {
     @Override
     @Transactional(readOnly = true)
     public long countMessages(String userEmail, String sessionId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        CurrentUser currentUser = currentUserService.get();
+        User user = userRepository.getReferenceById(currentUser.id());
 
         return chatMessageRepository.countByUserAndSessionId(user, sessionId);
     }
@@ -203,50 +351,18 @@ public class ChatServiceImpl implements ChatService {
     @Override
     @Transactional(readOnly = true)
     public List<ChatSessionDto> getAllSessions(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        // Lấy danh sách sessionId từ Database
-        List<String> sessionIds = chatMessageRepository.findDistinctSessionIdsByUser(user);
-
-        List<ChatSessionDto> sessions = new ArrayList<>();
-
-        for (String sessionId : sessionIds) {
-            // Lấy message đầu tiên và cuối cùng
-            ChatMessage firstMessage = chatMessageRepository
-                    .findFirstByUserAndSessionIdOrderByCreatedAtAsc(user, sessionId)
-                    .orElse(null);
-
-            ChatMessage lastMessage = chatMessageRepository
-                    .findFirstByUserAndSessionIdOrderByCreatedAtDesc(user, sessionId)
-                    .orElse(null);
-
-            long messageCount = chatMessageRepository.countByUserAndSessionId(user, sessionId);
-
-            if (firstMessage != null && lastMessage != null) {
-                // Lấy nội dung của user message (bỏ qua assistant message)
-                String firstContent = firstMessage.getRole() == MessageRole.USER
-                        ? firstMessage.getContent()
-                        : "Chat session";
-
-                String lastContent = lastMessage.getRole() == MessageRole.USER
-                        ? lastMessage.getContent()
-                        : lastMessage.getContent();
-
-                ChatSessionDto sessionDto = ChatSessionDto.builder()
-                        .sessionId(sessionId)
-                        .firstMessage(truncateMessage(firstContent, 50))
-                        .lastMessage(truncateMessage(lastContent, 50))
-                        .messageCount(messageCount)
-                        .createdAt(firstMessage.getCreatedAt())
-                        .lastMessageTime(lastMessage.getCreatedAt())
-                        .build();
-
-                sessions.add(sessionDto);
-            }
-        }
-
-        return sessions;
+        // Một lần đọc theo index (user_id, last_message_at) trên bảng tóm tắt
+        return chatSessionRepository.findByUserIdOrderByLastMessageAtDesc(currentUserService.get().id())
+                .stream()
+                .map(session -> ChatSessionDto.builder()
+                        .sessionId(session.getSessionId())
+                        .firstMessage(session.getFirstMessage())
+                        .lastMessage(session.getLastMessage())
+                        .messageCount(session.getMessageCount())
+                        .createdAt(session.getFirstMessageAt())
+                        .lastMessageTime(session.getLastMessageAt())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -257,20 +373,13 @@ public class ChatServiceImpl implements ChatService {
         return sessionId;
     }
 
-    // Helper: Cắt message quá dài
-    private String truncateMessage(String message, int maxLength) {
-        if (message == null) return "";
-        if (message.length() <= maxLength) return message;
-        return message.substring(0, maxLength) + "...";
-    }
-
-    private ChatMessageDto convertToDto(ChatMessage message) {
+    private ChatMessageDto convertToDto(ChatHistoryEntry entry) {
         return ChatMessageDto.builder()
-                .id(message.getId())
-                .role(message.getRole())
-                .content(message.getContent())
-                .createdAt(message.getCreatedAt())
-                .createdBy(message.getCreatedBy())
+                .id(entry.getId())
+                .role(entry.getRole())
+                .content(entry.getContent())
+                .createdAt(entry.getCreatedAt())
+                .createdBy(entry.getCreatedBy())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.advice.exception.TooManyRequestsException;
+import com.TranAn.BackEnd_Works.model.ChatHistoryEntry;
+import com.TranAn.BackEnd_Works.model.constant.MessageRole;
+import com.TranAn.BackEnd_Works.repository.ChatSessionRepository;
+import com.TranAn.BackEnd_Works.service.ChatExecutionService;
+import com.TranAn.BackEnd_Works.service.ChatSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tóm tắt cuốn chiếu các lượt hội thoại cũ, chạy nền.
+ * <p>
+ * Lời gọi AI đi qua {@link ChatExecutionService} như lời gọi chat thường (giới hạn đồng thời,
+ * giới hạn theo user, thời gian tối đa, metrics); hệ thống đang quá tải thì bỏ qua lượt tóm tắt này.
+ * Client dùng ở đây không gắn công cụ tra cứu job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatSummaryServiceImpl implements ChatSummaryService {
+
+    private final ChatClient summaryChatClient;
+    private final ChatExecutionService chatExecutionService;
+    private final ChatSessionRepository chatSessionRepository;
+
+    // Mỗi session chỉ có một lượt tóm tắt chạy cùng lúc
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    @Async
+    @Override
+    public void refreshSummary(Long userId, String sessionId, String previousSummary, List<ChatHistoryEntry> olderTurns) {
+        if (olderTurns.isEmpty()) return;
+
+        String lockKey = userId + ":" + sessionId;
+        if (!inProgress.add(lockKey)) return;
+
+        try {
+            Instant until = olderTurns.stream()
+                    .map(ChatHistoryEntry::getCreatedAt)
+                    .filter(Objects::nonNull)
+                    .max(Instant::compareTo)
+                    .orElse(null);
+            if (until == null) return;
+
+            String prompt = buildSummaryPrompt(previousSummary, olderTurns);
+            String summary;
+            try (ChatExecutionService.Permit permit = chatExecutionService.acquire(userId)) {
+                summary = chatExecutionService.call(permit, () -> summaryChatClient.prompt()
+                        .user(prompt)
+                        .call()
+                        .content());
+            }
+            if (summary == null || summary.isBlank()) return;
+
+            chatSessionRepository.updateSummary(userId, sessionId, summary.trim(), until);
+            log.info("Updated rolling summary for session {} ({} turns folded)", sessionId, olderTurns.size());
+        } catch (TooManyRequestsException e) {
+            // Nhường suất cho câu hỏi của người dùng, lượt sau sẽ tóm tắt lại
+            log.debug("Bỏ qua tóm tắt chat session {} do hệ thống AI đang bận", sessionId);
+        } catch (Exception e) {
+            // Lượt sau sẽ thử lại, trong lúc đó prompt dùng tóm tắt cũ
+            log.warn("Không thể cập nhật tóm tắt cho chat session {}: {}", sessionId, e.getMessage());
+        } finally {
+            inProgress.remove(lockKey);
+        }
+    }
+
+    private String buildSummaryPrompt(String previousSummary, List<ChatHistoryEntry> olderTurns) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("Hãy tóm tắt ngắn gọn cuộc hội thoại dưới đây giữa người dùng và trợ lý tuyển dụng. ")
+                .append("Giữ lại các thông tin quan trọng (mục tiêu, kỹ năng, vị trí, công ty, yêu cầu đã nêu, ")
+                .append("các câu trả lời then chốt). Không quá 200 từ, chỉ trả về nội dung tóm tắt.\n\n");
+
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            prompt.append("=== Tóm tắt trước đó ===\n\n").append(previousSummary).append("\n\n");
+        }
+
+        prompt.append("=== Các lượt hội thoại cần gộp thêm ===\n\n");
+        for (ChatHistoryEntry msg : olderTurns) {
+            String prefix = msg.getRole() == MessageRole.USER ? "Người dùng" : "Trợ lý";
+            prompt.append(prefix).append(": ").append(msg.getContent()).append("\n\n");
+        }
+
+        return prompt.toString();
+    }
+}
@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.advice.exception.ResourceAlreadyExistsException;
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
 import com.TranAn.BackEnd_Works.dto.request.company.DefaultCompanyRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.user.RecruiterRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.company.DefaultCompanyExtendedResponseDto;
@@ -14,6 +15,7 @@ import com.TranAn.BackEnd_Works.repository.CompanyRepository;
 import com.TranAn.BackEnd_Works.repository.JobRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
 import com.TranAn.BackEnd_Works.service.CompanyService;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
 import com.TranAn.BackEnd_Works.service.JobService;
 import com.TranAn.BackEnd_Works.service.S3Service;
 import jakarta.persistence.EntityNotFoundException;
@@ -22,7 +24,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -43,6 +44,7 @@ public class CompanyServiceImpl implements CompanyService {
 
     private final S3Service s3Service;
     private final JobService jobService;
+    private final CurrentUserService currentUserService;
 
     @Override
     public DefaultCompanyResponseDto saveCompany(
@@ -54,13 +56,8 @@ public class CompanyServiceImpl implements CompanyService {
         Company savedCompany = companyRepository.saveAndFlush(company);
 
         if (isRecruiter) {
-            String email = SecurityContextHolder
-                    .getContext()
-                    .getAuthentication()
-                    .getName();
-
             User user = userRepository
-                    .findByEmail(email)
+                    .findById(currentUserService.get().id())
                     .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
 
             if (user.getCompany() != null)
@@ -68,6 +65,7 @@ public class CompanyServiceImpl implements CompanyService {
 
             user.setCompany(savedCompany);
             userRepository.saveAndFlush(user);
+            currentUserService.evict(user.getId());
 
             savedCompany.setOwner(user);
         }
@@ -99,19 +97,14 @@ public class CompanyServiceImpl implements CompanyService {
         Company company;
 
         if (isRecruiter) {
-            String email = SecurityContextHolder
-                    .getContext()
-                    .getAuthentication()
-                    .getName();
-
-            User user = userRepository
-                    .findByEmail(email)
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+            CurrentUser currentUser = currentUserService.get();
 
-            if (user.getCompany() == null)
+            if (!currentUser.hasCompany())
                 throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
-            company = user.getCompany();
+            company = companyRepository
+                    .findById(currentUser.companyId())
+                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty người dùng"));
         } else
             company = companyRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty"));
 
@@ -155,41 +148,34 @@ public class CompanyServiceImpl implements CompanyService {
 
     @Override
     public DefaultCompanyResponseDto findSelfCompany() {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
+        CurrentUser currentUser = currentUserService.get();
 
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
-        return mapToResponseDto(user.getCompany());
+        return companyRepository
+                .findById(currentUser.companyId())
+                .map(this::mapToResponseDto)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty người dùng"));
     }
 
     @Override
     public List<RecruiterResponseDto> findAllRecruitersBySelfCompany() {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        CurrentUser currentUser = currentUserService.get();
 
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Người dùng không có công ty");
 
+        Company company = companyRepository
+                .findById(currentUser.companyId())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty người dùng"));
+
         List<User> recruiterList = userRepository
-                .findByCompanyId(user.getCompany().getId());
+                .findByCompanyId(company.getId());
 
         Long ownerId;
-        if (user.getCompany().getOwner() != null)
-            ownerId = user.getCompany().getOwner().getId();
+        if (company.getOwner() != null)
+            ownerId = company.getOwner().getId();
         else
             ownerId = null;
 
@@ -205,20 +191,13 @@ public class CompanyServiceImpl implements CompanyService {
 
     @Override
     public void addMemberToCompany(RecruiterRequestDto recruiterRequestDto) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        CurrentUser currentUser = currentUserService.get();
 
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Người dùng không có công ty");
 
         Company company = companyRepository
-                .findById(user.getCompany().getId())
+                .findById(currentUser.companyId())
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty người dùng"));
 
         String emailRecruiter = recruiterRequestDto.getEmail();
@@ -231,24 +210,22 @@ public class CompanyServiceImpl implements CompanyService {
 
         recruiter.setCompany(company);
         userRepository.saveAndFlush(recruiter);
+        currentUserService.evict(recruiter.getId());
     }
 
     @Override
     public void removeMemberFromCompany(RecruiterRequestDto recruiterRequestDto) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
+        CurrentUser currentUser = currentUserService.get();
 
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Người dùng không có công ty");
 
-        if (user.getCompany().getOwner() == null || 
-            !Objects.equals(user.getCompany().getOwner().getId(), user.getId()))
+        Company company = companyRepository
+                .findById(currentUser.companyId())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty người dùng"));
+
+        if (company.getOwner() == null ||
+            !Objects.equals(company.getOwner().getId(), currentUser.id()))
             throw new AccessDeniedException("Không có quyền truy cập");
 
         String emailRecruiter = recruiterRequestDto.getEmail();
@@ -259,11 +236,12 @@ public class CompanyServiceImpl implements CompanyService {
         if (recruiter.getCompany() == null)
             throw new EntityNotFoundException("Người dùng cần loại bỏ không có công ty");
 
-        if (!Objects.equals(recruiter.getCompany().getId(), user.getCompany().getId()))
+        if (!Objects.equals(recruiter.getCompany().getId(), company.getId()))
             throw new EntityNotFoundException("Người dùng này thuộc công ty khác");
 
         recruiter.setCompany(null);
         userRepository.saveAndFlush(recruiter);
+        currentUserService.evict(recruiter.getId());
     }
 
     @Override
@@ -273,6 +251,7 @@ public class CompanyServiceImpl implements CompanyService {
 
         // 1. Detach users from company
         userRepository.detachUsersFromCompany(company);
+        currentUserService.evictAll();
 
         // 2. Set owner to null để tránh constraint violation
         if (company.getOwner() != null) {
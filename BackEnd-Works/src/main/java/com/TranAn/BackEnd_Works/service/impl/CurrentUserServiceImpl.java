@@ -0,0 +1,204 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
+import com.TranAn.BackEnd_Works.dto.response.user.UserProfileSnapshotDto;
+import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dựng {@link CurrentUser} từ claim của access token thay cho
+ * {@code userRepository.findByEmail(...)} ở đầu mỗi service.
+ * <p>
+ * Kết quả được giữ trong request attribute nên mỗi request chỉ đọc claim một lần.
+ * Các trường không có trong token (tên, avatar, ...) đọc bằng một truy vấn projection
+ * và cache cục bộ theo user id với thời gian sống ngắn; các thao tác cập nhật hồ sơ
+ * gọi {@link #evict(Long)} để thay đổi có hiệu lực ngay.
+ * <p>
+ * Công ty của người dùng luôn lấy từ cache hồ sơ chứ không từ claim "cid": recruiter bị loại khỏi
+ * công ty mất quyền ngay, không phải chờ access token hết hạn. Sau khi transaction commit,
+ * {@link #evict(Long)} phát user id qua pub/sub để các instance khác cũng bỏ bản cache của họ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CurrentUserServiceImpl implements CurrentUserService {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserServiceImpl.class.getName() + ".CURRENT_USER";
+    private static final String EVICT_CHANNEL = "auth::current_user:evict";
+    private static final String EVICT_ALL = "*";
+
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${current-user.cache.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${current-user.cache.max-size:10000}")
+    private int maxSize;
+
+    // access-order LinkedHashMap làm LRU, mọi truy cập đều qua khóa của chính map
+    private final LinkedHashMap<Long, CachedProfile> profiles = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedProfile> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onEvict(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(EVICT_CHANNEL)
+        );
+    }
+
+    @Override
+    public CurrentUser get() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof CurrentUser cached)
+            return cached;
+
+        CurrentUser currentUser = resolve();
+        if (attributes != null)
+            attributes.setAttribute(REQUEST_ATTRIBUTE, currentUser, RequestAttributes.SCOPE_REQUEST);
+        return currentUser;
+    }
+
+    @Override
+    public UserProfileSnapshotDto profile() {
+        return loadProfile(get().id());
+    }
+
+    @Override
+    public void evict(Long userId) {
+        if (userId == null) return;
+        evictAfterCommit(userId.toString());
+    }
+
+    @Override
+    public void evictAll() {
+        evictAfterCommit(EVICT_ALL);
+    }
+
+    /**
+     * Bỏ cache ngay và bỏ lại sau commit: request khác có thể đã nạp lại giá trị cũ
+     * trong lúc transaction chưa commit. Các instance khác được báo sau commit
+     */
+    private void evictAfterCommit(String target) {
+        onEvict(target);
+        clearRequestAttribute();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onEvict(target);
+                    broadcast(target);
+                }
+            });
+            return;
+        }
+        broadcast(target);
+    }
+
+    private void broadcast(String target) {
+        try {
+            redisTemplate.convertAndSend(EVICT_CHANNEL, target);
+        } catch (Exception e) {
+            // Các instance khác tự hết hạn sau ttl
+            log.warn("Không thể phát bỏ cache hồ sơ {}: {}", target, e.getMessage());
+        }
+    }
+
+    private void onEvict(String target) {
+        synchronized (profiles) {
+            if (EVICT_ALL.equals(target)) {
+                profiles.clear();
+                return;
+            }
+            try {
+                profiles.remove(Long.parseLong(target));
+            } catch (NumberFormatException ignored) {
+                // Tin nhắn không hợp lệ
+            }
+        }
+    }
+
+    private CurrentUser resolve() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken)
+            throw new EntityNotFoundException("Không tìm thấy người dùng");
+
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            Jwt jwt = jwtAuthentication.getToken();
+            if (jwt.getClaim("uid") instanceof Number uid) {
+                // Công ty dùng cho kiểm tra quyền: đọc qua cache hồ sơ (bỏ khi đổi công ty), không tin claim "cid"
+                Long companyId = loadProfile(uid.longValue()).getCompanyId();
+
+                return new CurrentUser(uid.longValue(), jwt.getSubject(), companyId, jwt.getClaimAsString("role"));
+            }
+        }
+
+        // Token cũ (chưa có "uid") hoặc xác thực không qua JWT
+        UserProfileSnapshotDto profile = userRepository
+                .findProfileSnapshotByEmail(authentication.getName())
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        store(profile);
+        return new CurrentUser(profile.getId(), profile.getEmail(), profile.getCompanyId(), profile.getRoleName());
+    }
+
+    private UserProfileSnapshotDto loadProfile(Long userId) {
+        Instant now = Instant.now();
+        synchronized (profiles) {
+            CachedProfile cached = profiles.get(userId);
+            if (cached != null && cached.expiresAt.isAfter(now)) return cached.profile;
+        }
+
+        UserProfileSnapshotDto profile = userRepository
+                .findProfileSnapshotById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        store(profile);
+        return profile;
+    }
+
+    private void store(UserProfileSnapshotDto profile) {
+        synchronized (profiles) {
+            profiles.put(profile.getId(), new CachedProfile(profile, Instant.now().plus(ttl)));
+        }
+    }
+
+    private void clearRequestAttribute() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null)
+            attributes.removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private record CachedProfile(UserProfileSnapshotDto profile, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import com.TranAn.BackEnd_Works.repository.ResumeRepository;
+import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.DashboardChartService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dữ liệu biểu đồ 6 tháng của dashboard.
+ * <p>
+ * Mốc đầu tháng được tính theo múi giờ nghiệp vụ ({@code dashboard.timezone}) chứ không theo
+ * múi giờ của máy chủ. Cả 6 tháng của một series được đếm bằng một truy vấn quét khoảng
+ * createdAt một lần. Tháng đã kết thúc không còn thay đổi nên được lưu vĩnh viễn trong
+ * Redis hash {@code dashboard::monthly:<series>} (field = "yyyy-MM"); khi đã đủ cache,
+ * mỗi series chỉ còn một truy vấn COUNT cho tháng hiện tại.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardChartServiceImpl implements DashboardChartService {
+
+    private static final String CACHE_KEY_PREFIX = "dashboard::monthly:";
+    private static final int MONTHS = 6;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final UserRepository userRepository;
+    private final JobRepository jobRepository;
+    private final ResumeRepository resumeRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${dashboard.timezone:Asia/Ho_Chi_Minh}")
+    private ZoneId zone;
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public List<DashboardStatsResponseDto.MonthlyData> getLast6Months(Series series, Instant now) {
+        YearMonth currentMonth = YearMonth.from(now.atZone(zone));
+        List<String> months = new ArrayList<>(MONTHS);
+        for (int i = MONTHS - 1; i >= 0; i--) {
+            months.add(currentMonth.minusMonths(i).format(MONTH_FORMAT));
+        }
+
+        String cacheKey = CACHE_KEY_PREFIX + series.name().toLowerCase();
+        List<String> closedMonths = months.subList(0, MONTHS - 1);
+        Map<String, Long> counts = readClosedMonths(cacheKey, closedMonths);
+
+        if (counts != null) {
+            counts.put(months.get(MONTHS - 1), countBetween(series, startOf(currentMonth), startOf(currentMonth.plusMonths(1))));
+        } else {
+            counts = countSixMonths(series, currentMonth.minusMonths(MONTHS - 1), months);
+            writeClosedMonths(cacheKey, closedMonths, counts);
+        }
+
+        List<DashboardStatsResponseDto.MonthlyData> result = new ArrayList<>(MONTHS);
+        for (String month : months) {
+            result.add(new DashboardStatsResponseDto.MonthlyData(month, counts.getOrDefault(month, 0L)));
+        }
+        return result;
+    }
+
+    /**
+     * Các tháng đã kết thúc lấy từ cache; thiếu bất kỳ tháng nào (hoặc Redis lỗi) thì trả null
+     */
+    private Map<String, Long> readClosedMonths(String cacheKey, List<String> closedMonths) {
+        try {
+            List<Object> cached = redisTemplate.opsForHash().multiGet(cacheKey, new ArrayList<>(closedMonths));
+            Map<String, Long> counts = new HashMap<>();
+            for (int i = 0; i < closedMonths.size(); i++) {
+                Object value = cached.get(i);
+                if (value == null) return null;
+                counts.put(closedMonths.get(i), Long.parseLong(value.toString()));
+            }
+            return counts;
+        } catch (Exception e) {
+            log.warn("Không đọc được cache biểu đồ {}: {}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeClosedMonths(String cacheKey, List<String> closedMonths, Map<String, Long> counts) {
+        Map<String, String> values = new HashMap<>();
+        for (String month : closedMonths) {
+            values.put(month, String.valueOf(counts.getOrDefault(month, 0L)));
+        }
+        try {
+            redisTemplate.opsForHash().putAll(cacheKey, values);
+        } catch (Exception e) {
+            log.warn("Không ghi được cache biểu đồ {}: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    private Map<String, Long> countSixMonths(Series series, YearMonth firstMonth, List<String> months) {
+        Instant[] bounds = new Instant[MONTHS + 1];
+        for (int i = 0; i <= MONTHS; i++) {
+            bounds[i] = startOf(firstMonth.plusMonths(i));
+        }
+
+        List<Object[]> rows = switch (series) {
+            case USERS -> userRepository.countCreatedInSixMonths(
+                    bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5], bounds[6]);
+            case JOBS -> jobRepository.countCreatedInSixMonths(
+                    bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5], bounds[6]);
+            case RESUMES -> resumeRepository.countCreatedInSixMonths(
+                    bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5], bounds[6]);
+        };
+
+        Map<String, Long> counts = new HashMap<>();
+        Object[] row = rows.isEmpty() ? new Object[MONTHS] : rows.get(0);
+        for (int i = 0; i < MONTHS; i++) {
+            // SUM trên tập rỗng trả về null
+            counts.put(months.get(i), row[i] != null ? ((Number) row[i]).longValue() : 0L);
+        }
+        return counts;
+    }
+
+    private Long countBetween(Series series, Instant start, Instant end) {
+        return switch (series) {
+            case USERS -> userRepository.countByCreatedAtBetween(start, end);
+            case JOBS -> jobRepository.countByCreatedAtBetween(start, end);
+            case RESUMES -> resumeRepository.countByCreatedAtBetween(start, end);
+        };
+    }
+
+    private Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay(zone).toInstant();
+    }
+}
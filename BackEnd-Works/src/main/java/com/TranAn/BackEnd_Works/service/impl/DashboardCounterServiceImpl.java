@@ -0,0 +1,237 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.repository.*;
+import com.TranAn.BackEnd_Works.service.DashboardCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bộ đếm và bảng xếp hạng cho dashboard, lưu trong Redis.
+ * <p>
+ * - Bộ đếm: hash {@code dashboard::counters} (field = tên bộ đếm, value = số lượng)<br>
+ * - Bảng xếp hạng: sorted set {@code dashboard::top:<tên bảng>} (member = id, score = số lượng)
+ * <p>
+ * Cả hai được cộng / trừ từ sự kiện insert / delete / update của entity
+ * (DashboardCounterEventListener). Các thay đổi trong một transaction được gom lại
+ * và ghi bằng một pipeline HINCRBY / ZINCRBY sau khi commit, rollback thì bỏ.
+ * Bulk update bằng JPQL không phát sự kiện nên số liệu có thể lệch; {@link #reconcile()}
+ * chạy định kỳ để đếm lại từ Database, dựng vào key tạm rồi RENAME đè key thật.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardCounterServiceImpl implements DashboardCounterService {
+
+    private static final String COUNTERS_KEY = "dashboard::counters";
+    private static final String LEADERBOARD_KEY_PREFIX = "dashboard::top:";
+    private static final String RECONCILE_LOCK_KEY = "dashboard::counters:lock";
+    private static final Duration RECONCILE_LOCK_TTL = Duration.ofMinutes(5);
+
+    // Key resource gom thay đổi của transaction hiện tại
+    private static final Object PENDING_RESOURCE = DashboardCounterServiceImpl.class.getName() + ".PENDING";
+
+    private final UserRepository userRepository;
+    private final JobRepository jobRepository;
+    private final ResumeRepository resumeRepository;
+    private final CompanyRepository companyRepository;
+    private final SubscriberRepository subscriberRepository;
+    private final SkillRepository skillRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<Object, Object> raw = redisTemplate.opsForHash().entries(COUNTERS_KEY);
+        if (raw.isEmpty()) return recount(true);
+
+        Map<String, Long> counters = new HashMap<>(raw.size() * 2);
+        raw.forEach((field, value) -> counters.put(field.toString(), Long.parseLong(value.toString())));
+        return counters;
+    }
+
+    @Override
+    public void add(String counter, long delta) {
+        enqueue(new Target(COUNTERS_KEY, counter, false), delta);
+    }
+
+    @Override
+    public void addToLeaderboard(Leaderboard leaderboard, Long id, long delta) {
+        if (id == null) return;
+        enqueue(new Target(leaderboardKey(leaderboard), id.toString(), true), delta);
+    }
+
+    @Override
+    public List<LeaderboardEntry> getTop(Leaderboard leaderboard, int limit) {
+        String key = leaderboardKey(leaderboard);
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1);
+        // Sorted set rỗng không tồn tại trong Redis: để người gọi truy vấn Database
+        if (tuples == null || tuples.isEmpty()) return null;
+
+        List<LeaderboardEntry> entries = new ArrayList<>(tuples.size());
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            long score = tuple.getScore() != null ? tuple.getScore().longValue() : 0;
+            if (score > 0) entries.add(new LeaderboardEntry(Long.parseLong(tuple.getValue()), score));
+        }
+        return entries;
+    }
+
+    @Override
+    public void reconcile() {
+        recount(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void enqueue(Target target, long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Map.of(target, delta));
+            return;
+        }
+
+        Map<Target, Long> pending = (Map<Target, Long>) TransactionSynchronizationManager.getResource(PENDING_RESOURCE);
+        if (pending == null) {
+            Map<Target, Long> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(PENDING_RESOURCE, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_RESOURCE);
+                    if (status == STATUS_COMMITTED) apply(created);
+                }
+            });
+            pending = created;
+        }
+        pending.merge(target, delta, Long::sum);
+    }
+
+    private void apply(Map<Target, Long> deltas) {
+        Map<Target, Long> nonZero = new HashMap<>(deltas);
+        nonZero.values().removeIf(delta -> delta == 0);
+        if (nonZero.isEmpty()) return;
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                nonZero.forEach((target, delta) -> {
+                    byte[] key = target.key().getBytes(StandardCharsets.UTF_8);
+                    byte[] field = target.field().getBytes(StandardCharsets.UTF_8);
+                    if (target.sortedSet()) connection.zSetCommands().zIncrBy(key, delta, field);
+                    else connection.hashCommands().hIncrBy(key, field, delta);
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            // Không làm hỏng request đã commit; lần reconcile kế tiếp sẽ sửa
+            log.warn("Không thể cập nhật bộ đếm dashboard: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Đếm lại từ Database rồi ghi đè hash và các sorted set. Chỉ một node đếm tại một thời điểm;
+     * nếu node khác đang đếm thì {@code waitForOther = false} bỏ qua lượt này,
+     * còn khi đọc lần đầu vẫn trả số vừa đếm (không ghi) để dashboard có dữ liệu.
+     */
+    private Map<String, Long> recount(boolean waitForOther) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(RECONCILE_LOCK_KEY, token, RECONCILE_LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked) && !waitForOther) return Map.of();
+
+        try {
+            Map<String, Long> counters = countFromDatabase();
+            if (Boolean.TRUE.equals(locked)) {
+                rebuildLeaderboards(token);
+
+                Map<String, String> values = new HashMap<>(counters.size() * 2);
+                counters.forEach((field, value) -> values.put(field, value.toString()));
+                // Ghi vào key tạm rồi RENAME đè key thật (nguyên tử): người đọc không bao giờ thấy hash rỗng
+                // hay ghi dở. Thay đổi xen giữa lúc đếm và lúc ghi có thể mất, lần reconcile sau sẽ sửa
+                String temporaryKey = temporaryKey(COUNTERS_KEY, token);
+                redisTemplate.opsForHash().putAll(temporaryKey, values);
+                redisTemplate.rename(temporaryKey, COUNTERS_KEY);
+                log.debug("Reconciled {} dashboard counters", counters.size());
+            }
+            return counters;
+        } finally {
+            if (Boolean.TRUE.equals(locked) && token.equals(redisTemplate.opsForValue().get(RECONCILE_LOCK_KEY)))
+                redisTemplate.delete(RECONCILE_LOCK_KEY);
+        }
+    }
+
+    private Map<String, Long> countFromDatabase() {
+        Map<String, Long> counters = new HashMap<>();
+        counters.put(USERS_TOTAL, userRepository.count());
+        counters.put(JOBS_TOTAL, jobRepository.count());
+        counters.put(RESUMES_TOTAL, resumeRepository.count());
+        counters.put(COMPANIES_TOTAL, companyRepository.count());
+        counters.put(SUBSCRIBERS_TOTAL, subscriberRepository.count());
+
+        putGrouped(counters, userRepository.countGroupByRoleName(), row -> DashboardCounterService.usersByRole((String) row));
+        putGrouped(counters, jobRepository.countGroupByLevel(), DashboardCounterService::jobsByLevel);
+        putGrouped(counters, resumeRepository.countGroupByStatus(), DashboardCounterService::resumesByStatus);
+        return counters;
+    }
+
+    private void rebuildLeaderboards(String token) {
+        // Các truy vấn trả [id, ..., count]; cột cuối là điểm
+        rebuildLeaderboard(Leaderboard.COMPANIES_BY_JOBS, token, companyRepository.findTopCompaniesByJobCount(Pageable.unpaged()));
+        rebuildLeaderboard(Leaderboard.COMPANIES_BY_RESUMES, token, companyRepository.findTopCompaniesByResumeCount(Pageable.unpaged()));
+        rebuildLeaderboard(Leaderboard.JOBS_BY_RESUMES, token, jobRepository.findTopJobsByResumeCount(Pageable.unpaged()));
+        rebuildLeaderboard(Leaderboard.SKILLS_BY_JOBS, token, skillRepository.findTopSkillsByJobCount(Pageable.unpaged()));
+    }
+
+    private void rebuildLeaderboard(Leaderboard leaderboard, String token, List<Object[]> rows) {
+        byte[] key = leaderboardKey(leaderboard).getBytes(StandardCharsets.UTF_8);
+        byte[] temporaryKey = temporaryKey(leaderboardKey(leaderboard), token).getBytes(StandardCharsets.UTF_8);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Object[] row : rows) {
+                byte[] member = row[0].toString().getBytes(StandardCharsets.UTF_8);
+                double score = ((Number) row[row.length - 1]).doubleValue();
+                connection.zSetCommands().zAdd(temporaryKey, score, member);
+            }
+            return null;
+        });
+
+        // Sorted set rỗng không được tạo, không có gì để RENAME: chỉ bỏ bảng cũ
+        if (rows.isEmpty()) redisTemplate.delete(leaderboardKey(leaderboard));
+        else redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.keyCommands().rename(temporaryKey, key);
+            return null;
+        });
+    }
+
+    private static void putGrouped(
+            Map<String, Long> counters,
+            List<Object[]> rows,
+            Function<Object, String> field
+    ) {
+        for (Object[] row : rows) {
+            counters.put(field.apply(row[0]), ((Number) row[1]).longValue());
+        }
+    }
+
+    private static String temporaryKey(String key, String token) {
+        return key + ":rebuild:" + token;
+    }
+
+    private static String leaderboardKey(Leaderboard leaderboard) {
+        return LEADERBOARD_KEY_PREFIX + leaderboard.name().toLowerCase();
+    }
+
+    private record Target(String key, String field, boolean sortedSet) {
+    }
+}
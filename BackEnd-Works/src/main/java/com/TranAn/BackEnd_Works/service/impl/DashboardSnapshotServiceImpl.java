@@ -0,0 +1,179 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.dto.admin.DashboardStatsResponseDto;
+import com.TranAn.BackEnd_Works.service.AdminDashboardService;
+import com.TranAn.BackEnd_Works.service.DashboardSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Snapshot thống kê dashboard theo kiểu stale-while-revalidate.
+ * <p>
+ * Snapshot mới nhất được giữ trong bộ nhớ và trong Redis ({@code dashboard::snapshot}, JSON).
+ * Mọi lượt xem đều trả snapshot ngay; snapshot cũ hơn {@code dashboard.snapshot.soft-ttl}
+ * thì kích hoạt một lần tính lại chạy nền. Trong một instance chỉ có một lần tính lại tại một thời điểm,
+ * giữa các instance thì phối hợp bằng lock Redis {@code dashboard::snapshot:lock}: instance không lấy được lock
+ * bỏ qua và đọc lại snapshot từ Redis ở lượt xem sau.
+ * <p>
+ * Chỉ lần xem đầu tiên (chưa có snapshot ở đâu cả) phải chờ tính xong. Snapshot trong Redis hết hạn
+ * sau {@code dashboard.snapshot.max-age} để không trả số liệu quá cũ khi không còn ai tính lại.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardSnapshotServiceImpl implements DashboardSnapshotService {
+
+    private static final String SNAPSHOT_KEY = "dashboard::snapshot";
+    private static final String LOCK_KEY = "dashboard::snapshot:lock";
+
+    // Chu kỳ đọc lại Redis khi chờ instance khác tính snapshot đầu tiên
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final AdminDashboardService adminDashboardService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${dashboard.snapshot.soft-ttl:30s}")
+    private Duration softTtl;
+
+    @Value("${dashboard.snapshot.max-age:1h}")
+    private Duration maxAge;
+
+    // Lớn hơn dashboard.stats.timeout: lock hết hạn khi instance giữ lock chết giữa chừng
+    @Value("${dashboard.snapshot.lock-ttl:1m}")
+    private Duration lockTtl;
+
+    private ExecutorService executor;
+
+    private volatile DashboardStatsResponseDto snapshot;
+    private final AtomicReference<CompletableFuture<DashboardStatsResponseDto>> inFlight = new AtomicReference<>();
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dashboard-snapshot-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public DashboardStatsResponseDto getSnapshot() {
+        DashboardStatsResponseDto current = snapshot;
+        if (isFresh(current)) return current;
+
+        // Instance khác có thể đã tính lại: lấy bản mới hơn từ Redis trước khi tự tính
+        DashboardStatsResponseDto shared = readShared();
+        if (shared != null && (current == null || shared.getGeneratedAt().isAfter(current.getGeneratedAt()))) {
+            snapshot = shared;
+            current = shared;
+        }
+        if (isFresh(current)) return current;
+
+        if (current != null) {
+            refresh(false);
+            return current;
+        }
+
+        // Chưa có snapshot nào: chờ lần tính đầu tiên
+        DashboardStatsResponseDto computed = refresh(true).join();
+        return computed != null ? computed : adminDashboardService.getDashboardStats();
+    }
+
+    private boolean isFresh(DashboardStatsResponseDto current) {
+        return current != null
+                && current.getGeneratedAt() != null
+                && current.getGeneratedAt().plus(softTtl).isAfter(Instant.now());
+    }
+
+    /**
+     * Tính lại snapshot trên virtual thread; các lượt gọi trong lúc đang tính dùng chung một future
+     */
+    private CompletableFuture<DashboardStatsResponseDto> refresh(boolean waitForOther) {
+        CompletableFuture<DashboardStatsResponseDto> running = inFlight.get();
+        if (running != null) return running;
+
+        CompletableFuture<DashboardStatsResponseDto> created = new CompletableFuture<>();
+        if (!inFlight.compareAndSet(null, created)) return inFlight.get();
+
+        executor.execute(() -> {
+            try {
+                created.complete(recompute(waitForOther));
+            } catch (Exception e) {
+                log.warn("Không thể tính lại snapshot dashboard: {}", e.getMessage());
+                created.complete(null);
+            } finally {
+                inFlight.compareAndSet(created, null);
+            }
+        });
+        return created;
+    }
+
+    private DashboardStatsResponseDto recompute(boolean waitForOther) throws InterruptedException {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl);
+
+        if (!Boolean.TRUE.equals(locked)) {
+            if (!waitForOther) return null;
+
+            // Instance khác đang tính: chờ snapshot của nó, quá thời gian lock thì tự tính (không ghi Redis)
+            long deadline = System.nanoTime() + lockTtl.toNanos();
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(POLL_INTERVAL_MS);
+                DashboardStatsResponseDto shared = readShared();
+                if (shared != null) {
+                    snapshot = shared;
+                    return shared;
+                }
+            }
+            return adminDashboardService.getDashboardStats();
+        }
+
+        try {
+            DashboardStatsResponseDto computed = adminDashboardService.getDashboardStats();
+            snapshot = computed;
+            writeShared(computed);
+            return computed;
+        } finally {
+            if (token.equals(redisTemplate.opsForValue().get(LOCK_KEY)))
+                redisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    private DashboardStatsResponseDto readShared() {
+        try {
+            String json = redisTemplate.opsForValue().get(SNAPSHOT_KEY);
+            if (json == null) return null;
+
+            DashboardStatsResponseDto shared = objectMapper.readValue(json, DashboardStatsResponseDto.class);
+            return shared.getGeneratedAt() != null ? shared : null;
+        } catch (Exception e) {
+            log.warn("Không đọc được snapshot dashboard từ Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(DashboardStatsResponseDto computed) {
+        try {
+            redisTemplate.opsForValue().set(SNAPSHOT_KEY, objectMapper.writeValueAsString(computed), maxAge);
+        } catch (Exception e) {
+            // Instance hiện tại vẫn có bản trong bộ nhớ; instance khác sẽ tự tính
+            log.warn("Không lưu được snapshot dashboard vào Redis: {}", e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
 import com.TranAn.BackEnd_Works.dto.request.job.JobRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.job.JobResponseDto;
 import com.TranAn.BackEnd_Works.model.*;
 import com.TranAn.BackEnd_Works.repository.*;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
 import com.TranAn.BackEnd_Works.service.JobService;
 import com.TranAn.BackEnd_Works.service.S3Service;
 import jakarta.persistence.EntityNotFoundException;
@@ -12,7 +14,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,9 +27,9 @@ public class JobServiceImpl implements JobService {
     private final JobRepository jobRepository;
     private final SkillRepository skillRepository;
     private final CompanyRepository companyRepository;
-    private final UserRepository userRepository;
     private final ResumeRepository resumeRepository;
     private final S3Service s3Service;
+    private final CurrentUserService currentUserService;
     @Override
     public Page<JobResponseDto> findAllJobs(Specification<Job> spec, Pageable pageable) {
         return jobRepository.findAll(spec, pageable)
@@ -39,20 +40,13 @@ public class JobServiceImpl implements JobService {
     public Page<JobResponseDto> findAllJobsForRecruiterCompany(
             Specification<Job> spec, Pageable pageable
     ) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
+        CurrentUser currentUser = currentUserService.get();
 
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
         return jobRepository
-                .findByCompanyId(user.getCompany().getId(), spec, pageable)
+                .findByCompanyId(currentUser.companyId(), spec, pageable)
                 .map(this::mapToResponseDto);
     }
 
@@ -80,19 +74,14 @@ public class JobServiceImpl implements JobService {
         );
 
         if (isRecruiter) {
-            String email = SecurityContextHolder
-                    .getContext()
-                    .getAuthentication()
-                    .getName();
-
-            User user = userRepository
-                    .findByEmail(email)
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+            CurrentUser currentUser = currentUserService.get();
 
-            if (user.getCompany() == null)
+            if (!currentUser.hasCompany())
                 throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
-            job.setCompany(user.getCompany());
+            job.setCompany(companyRepository
+                    .findById(currentUser.companyId())
+                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công ty người dùng")));
         } else {
             Company company = null;
             if (jobRequestDto.getCompany() != null)
@@ -145,17 +134,10 @@ public class JobServiceImpl implements JobService {
         job.setActive(jobRequestDto.getActive());
 
         if (isRecruiter) {
-            String email = SecurityContextHolder
-                    .getContext()
-                    .getAuthentication()
-                    .getName();
+            CurrentUser currentUser = currentUserService.get();
 
-            User user = userRepository
-                    .findByEmail(email)
-                    .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-
-            if (user.getCompany() == null || job.getCompany() == null || 
-                !user.getCompany().getId().equals(job.getCompany().getId()))
+            if (!currentUser.hasCompany() || job.getCompany() == null ||
+                !currentUser.companyId().equals(job.getCompany().getId()))
                 throw new AccessDeniedException("Không có quyền truy cập");
         } else if (
                 jobRequestDto.getCompany() != null && !Objects.equals(jobRequestDto.getCompany().getId(), job.getCompany().getId())
@@ -213,23 +195,16 @@ public class JobServiceImpl implements JobService {
 
     @Override
     public JobResponseDto deleteJobByIdForRecruiterCompany(Long id) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        CurrentUser currentUser = currentUserService.get();
 
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
         Job job = jobRepository
                 .findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy công việc"));
 
-        if (!user.getCompany().getId().equals(job.getCompany().getId()))
+        if (!currentUser.companyId().equals(job.getCompany().getId()))
             throw new EntityNotFoundException("Không có quyền truy cập");
 
         cleanupJobResumesAndSkills(job);
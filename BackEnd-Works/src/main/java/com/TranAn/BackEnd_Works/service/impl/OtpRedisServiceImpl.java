@@ -2,11 +2,14 @@ package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.service.OtpRedisService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
 import java.time.Duration;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -16,117 +19,83 @@ public class OtpRedisServiceImpl implements OtpRedisService {
 
     private static final String OTP_PREFIX = "otp:";
     private static final String RATE_LIMIT_PREFIX = "otp_rate_limit:";
-    private static final int OTP_LENGTH = 6;
+    private static final String FAILED_ATTEMPTS_PREFIX = "otp_failed:";
     private static final Duration OTP_EXPIRATION = Duration.ofMinutes(5); // OTP hết hạn sau 5 phút
     private static final Duration RATE_LIMIT_DURATION = Duration.ofMinutes(15); // Rate limit 15 phút
     private static final int MAX_ATTEMPTS = 3; // Tối đa 3 lần gửi OTP trong 15 phút
+    private static final int MAX_FAILED_ATTEMPTS = 5; // Nhập sai 5 lần thì hủy OTP
 
-    /**
-     * Tạo mã OTP ngẫu nhiên 6 chữ số
-     */
-    @Override
-    public String generateOtp() {
-        SecureRandom random = new SecureRandom();
-        int otp = random.nextInt(900000) + 100000; // Tạo số từ 100000 đến 999999
-        return String.valueOf(otp);
-    }
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ISSUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/otp-issue.lua"), List.class);
+    private static final RedisScript<Long> VERIFY_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/otp-verify.lua"), Long.class);
 
-    /**
-     * Lưu OTP vào Redis với email làm key
-     */
-    @Override
-    public void saveOtp(String email, String otp) {
-        String key = OTP_PREFIX + email;
-        redisTemplate.opsForValue().set(key, otp, OTP_EXPIRATION);
-    }
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-    /**
-     * Xác thực OTP
-     */
     @Override
-    public boolean verifyOtp(String email, String otp) {
-        String key = OTP_PREFIX + email;
-        String storedOtp = redisTemplate.opsForValue().get(key);
-
-        if (storedOtp == null) {
-            return false; // OTP không tồn tại hoặc đã hết hạn
-        }
-
-        return storedOtp.equals(otp);
+    public IssueResult issueOtp(String email, boolean resend) {
+        String otp = generateOtp();
+
+        List<?> result = redisTemplate.execute(
+                ISSUE_SCRIPT,
+                List.of(OTP_PREFIX + email, RATE_LIMIT_PREFIX + email, FAILED_ATTEMPTS_PREFIX + email),
+                otp,
+                String.valueOf(OTP_EXPIRATION.toSeconds()),
+                String.valueOf(RATE_LIMIT_DURATION.toSeconds()),
+                String.valueOf(MAX_ATTEMPTS),
+                resend ? "1" : "0"
+        );
+        if (result == null || result.size() < 2)
+            throw new IllegalStateException("Không thể tạo mã OTP");
+
+        int code = ((Number) result.get(0)).intValue();
+        int attempts = ((Number) result.get(1)).intValue();
+        int remainingAttempts = Math.max(0, MAX_ATTEMPTS - attempts);
+
+        return switch (code) {
+            case 1 -> new IssueResult(IssueStatus.ISSUED, attempts, remainingAttempts, otp);
+            case 0 -> new IssueResult(IssueStatus.ACTIVE_OTP_EXISTS, attempts, remainingAttempts, null);
+            default -> new IssueResult(IssueStatus.RATE_LIMITED, attempts, remainingAttempts, null);
+        };
     }
 
-    /**
-     * Xóa OTP sau khi sử dụng
-     */
     @Override
-    public void deleteOtp(String email) {
-        String key = OTP_PREFIX + email;
-        redisTemplate.delete(key);
+    public VerifyStatus verifyOtp(String email, String otp, boolean consume) {
+        if (otp == null || otp.isBlank()) return VerifyStatus.INVALID;
+
+        Long result = redisTemplate.execute(
+                VERIFY_SCRIPT,
+                List.of(OTP_PREFIX + email, FAILED_ATTEMPTS_PREFIX + email),
+                otp,
+                String.valueOf(MAX_FAILED_ATTEMPTS),
+                consume ? "1" : "0"
+        );
+        if (result == null) return VerifyStatus.INVALID;
+        if (result == 1L) return VerifyStatus.VALID;
+        if (result == -1L) return VerifyStatus.LOCKED;
+        return VerifyStatus.INVALID;
     }
 
     /**
-     * Kiểm tra OTP có tồn tại không
-     */
-    @Override
-    public boolean isOtpExist(String email) {
-        String key = OTP_PREFIX + email;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
-    }
-
-    /**
-     * Kiểm tra xem có thể gửi OTP không (Rate limiting)
-     */
-    @Override
-    public boolean canSendOtp(String email) {
-        String key = RATE_LIMIT_PREFIX + email;
-        String attemptsStr = redisTemplate.opsForValue().get(key);
-
-        if (attemptsStr != null) {
-            int attempts = Integer.parseInt(attemptsStr);
-            return attempts < MAX_ATTEMPTS;
-        }
-
-        return true; // Chưa có attempt nào
-    }
-
-    /**
-     * Tăng số lần gửi OTP
+     * Reset rate limit (dùng cho testing hoặc admin)
      */
     @Override
-    public void incrementSendAttempt(String email) {
+    public void resetRateLimit(String email) {
         String key = RATE_LIMIT_PREFIX + email;
-        String attemptsStr = redisTemplate.opsForValue().get(key);
-
-        if (attemptsStr == null) {
-            // Lần đầu tiên gửi OTP
-            redisTemplate.opsForValue().set(key, "1", RATE_LIMIT_DURATION);
-        } else {
-            // Tăng số lần gửi
-            redisTemplate.opsForValue().increment(key);
-        }
+        redisTemplate.delete(key);
     }
 
-    /**
-     * Lấy số lần đã gửi OTP
-     */
     @Override
-    public int getSendAttempts(String email) {
-        String key = RATE_LIMIT_PREFIX + email;
-        String attemptsStr = redisTemplate.opsForValue().get(key);
-
-        if (attemptsStr == null) {
-            return 0;
-        }
-
-        return Integer.parseInt(attemptsStr);
+    public long getOtpTtlSeconds() {
+        return OTP_EXPIRATION.toSeconds();
     }
 
     /**
-     * Reset rate limit (dùng cho testing hoặc admin)
+     * Tạo mã OTP ngẫu nhiên 6 chữ số
      */
-    @Override
-    public void resetRateLimit(String email) {
-        String key = RATE_LIMIT_PREFIX + email;
-        redisTemplate.delete(key);
+    private String generateOtp() {
+        int otp = RANDOM.nextInt(900000) + 100000; // Tạo số từ 100000 đến 999999
+        return String.valueOf(otp);
     }
-}
\ No newline at end of file
+}
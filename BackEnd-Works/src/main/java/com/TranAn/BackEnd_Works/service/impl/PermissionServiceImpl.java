@@ -1,5 +1,7 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
+import com.TranAn.BackEnd_Works.config.auth.PermissionCatalogue;
+import com.TranAn.BackEnd_Works.config.auth.RoleCatalogue;
 import com.TranAn.BackEnd_Works.dto.request.permission.DefaultPermissionRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.permission.DefaultPermissionResponseDto;
 import com.TranAn.BackEnd_Works.model.Permission;
@@ -22,6 +24,9 @@ public class PermissionServiceImpl implements PermissionService {
 
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
+    private final PermissionCatalogue permissionCatalogue;
+    private final RoleCatalogue roleCatalogue;
+
     @Override
     public Page<DefaultPermissionResponseDto> findAllPermission(Specification<Permission> spec, Pageable pageable) {
         return permissionRepository
@@ -38,6 +43,8 @@ public class PermissionServiceImpl implements PermissionService {
                 defaultPermissionRequestDto.getModule()
         );
         Permission savedPermission = permissionRepository.save(permission);
+        permissionCatalogue.invalidate();
+        roleCatalogue.invalidate();
         return mapToDefaultResponseDto(savedPermission);
     }
 
@@ -52,6 +59,8 @@ public class PermissionServiceImpl implements PermissionService {
         permission.setModule(defaultPermissionRequestDto.getModule());
 
         Permission savedPermission = permissionRepository.save(permission);
+        permissionCatalogue.invalidate();
+        roleCatalogue.invalidate();
         return mapToDefaultResponseDto(savedPermission);
     }
 
@@ -67,6 +76,8 @@ public class PermissionServiceImpl implements PermissionService {
         });
 
         permissionRepository.delete(permission);
+        permissionCatalogue.invalidate();
+        roleCatalogue.invalidate();
         return mapToDefaultResponseDto(permission);
     }
 
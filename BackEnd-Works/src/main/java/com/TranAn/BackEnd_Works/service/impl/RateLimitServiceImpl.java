@@ -0,0 +1,106 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.security.RateLimitProperties;
+import com.TranAn.BackEnd_Works.service.RateLimitService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token bucket phân tán: mỗi lần kiểm tra là một script Lua trên Redis.
+ * <p>
+ * Khi Redis từ chối một key, node ghi nhớ thời điểm key có token trở lại;
+ * các request tiếp theo của key đó trong khoảng này bị từ chối tại chỗ,
+ * nên một đợt flood chỉ tốn một lần gọi Redis cho mỗi khoảng chờ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitServiceImpl implements RateLimitService {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/token-bucket.lua"), List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // key -> thời điểm (epoch ms) được thử lại
+    private final Map<String, Long> blockedUntil = new ConcurrentHashMap<>();
+
+    @Override
+    public Decision tryConsume(RateLimitProperties.Rule rule, String key) {
+        String bucketKey = KEY_PREFIX + rule.getName() + ":" + key;
+        long now = System.currentTimeMillis();
+
+        Long until = blockedUntil.get(bucketKey);
+        if (until != null) {
+            if (until > now) {
+                reject(rule, "local");
+                return new Decision(false, rule.getCapacity(), 0, until - now, rule.getRefillPeriod().toMillis());
+            }
+            blockedUntil.remove(bucketKey, until);
+        }
+
+        List<?> result;
+        try {
+            result = redisTemplate.execute(
+                    TOKEN_BUCKET_SCRIPT,
+                    List.of(bucketKey),
+                    String.valueOf(rule.getCapacity()),
+                    String.valueOf(rule.getRefillPeriod().toMillis())
+            );
+        } catch (Exception e) {
+            log.warn("Không thể kiểm tra rate limit cho {}: {}", bucketKey, e.getMessage());
+            Counter.builder("rate.limit.errors")
+                    .description("Số lần kiểm tra rate limit lỗi (request được cho qua)")
+                    .register(meterRegistry)
+                    .increment();
+            return new Decision(true, rule.getCapacity(), rule.getCapacity(), 0, 0);
+        }
+        if (result == null || result.size() < 4)
+            return new Decision(true, rule.getCapacity(), rule.getCapacity(), 0, 0);
+
+        boolean allowed = ((Number) result.get(0)).longValue() == 1L;
+        long remaining = ((Number) result.get(1)).longValue();
+        long retryAfter = ((Number) result.get(2)).longValue();
+        long reset = ((Number) result.get(3)).longValue();
+
+        if (!allowed) {
+            reject(rule, "redis");
+            rememberBlocked(bucketKey, now + retryAfter);
+        }
+        return new Decision(allowed, rule.getCapacity(), remaining, retryAfter, reset);
+    }
+
+    private void rememberBlocked(String bucketKey, long until) {
+        if (blockedUntil.size() >= properties.getLocalBlockCacheSize()) {
+            long now = System.currentTimeMillis();
+            blockedUntil.values().removeIf(value -> value <= now);
+            // Vẫn đầy sau khi dọn: bỏ qua chặn cục bộ, Redis vẫn là nguồn chính
+            if (blockedUntil.size() >= properties.getLocalBlockCacheSize()) return;
+        }
+        blockedUntil.put(bucketKey, until);
+    }
+
+    private void reject(RateLimitProperties.Rule rule, String source) {
+        Counter.builder("rate.limit.rejections")
+                .description("Số request bị từ chối do vượt rate limit")
+                .tag("rule", rule.getName())
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+}
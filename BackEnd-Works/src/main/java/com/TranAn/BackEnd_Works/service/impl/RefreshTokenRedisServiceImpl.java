@@ -6,25 +6,55 @@ import com.TranAn.BackEnd_Works.model.SessionMeta;
 import com.TranAn.BackEnd_Works.service.RefreshTokenRedisService;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-
-
+import java.util.Map;
+
+/**
+ * Mỗi user có một hash "auth::sessions:{userId}": field là SHA-256 của refresh token,
+ * value là session meta kèm thời điểm hết hạn.
+ * <p>
+ * Liệt kê session là một HGETALL, đăng xuất mọi thiết bị là một DEL, không còn quét KEYS.
+ * Redis không đặt được TTL cho từng field nên hạn của từng session nằm trong meta:
+ * các script bỏ qua / dọn field đã hết hạn, còn key sống bằng session có hạn xa nhất.
+ * <p>
+ * Id session trả cho client giữ nguyên dạng "auth::refresh_token:{userId}:{hash}".
+ */
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenRedisServiceImpl implements RefreshTokenRedisService {
 
+    private static final String SESSIONS_PREFIX = "auth::sessions:";
+    private static final String SESSION_ID_PREFIX = "auth::refresh_token:";
+
+    private static final RedisScript<Long> SAVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh-token-save.lua"), Long.class);
+    private static final RedisScript<Long> ROTATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/refresh-token-rotate.lua"), Long.class);
+
     private final RedisTemplate<String, SessionMeta> redisSessionMetaTemplate;
 
-    private String buildKey(String token, String userId) {
-        return "auth::refresh_token:" + userId + ":" + DigestUtils.sha256Hex(token);
+    private String sessionsKey(String userId) {
+        return SESSIONS_PREFIX + userId;
+    }
+
+    private String tokenHash(String token) {
+        return DigestUtils.sha256Hex(token);
+    }
+
+    private String buildSessionId(String userId, String tokenHash) {
+        return SESSION_ID_PREFIX + userId + ":" + tokenHash;
     }
 
     @Override
@@ -32,48 +62,86 @@ public class RefreshTokenRedisServiceImpl implements RefreshTokenRedisService {
             String token, String userId,
             SessionMetaRequest sessionMetaRequest, Duration expire
     ) {
-        String sessionId = buildKey(token, userId);
-        SessionMeta sessionMeta = new SessionMeta(
-                sessionId,
-                sessionMetaRequest.getDeviceName(),
-                sessionMetaRequest.getDeviceType(),
-                sessionMetaRequest.getUserAgent(),
-                Instant.now()
+        String hash = tokenHash(token);
+        SessionMeta sessionMeta = buildSessionMeta(buildSessionId(userId, hash), sessionMetaRequest, expire);
+
+        redisSessionMetaTemplate.execute(
+                SAVE_SCRIPT,
+                RedisSerializer.string(),
+                RedisSerializer.string(),
+                List.of(sessionsKey(userId)),
+                hash,
+                serialize(sessionMeta),
+                String.valueOf(expire.toMillis())
         );
-
-        redisSessionMetaTemplate.opsForValue().set(sessionId, sessionMeta, expire);
     }
 
     @Override
-    public boolean validateToken(String token, String userId) {
-        return redisSessionMetaTemplate.hasKey(buildKey(token, userId));
+    public boolean rotateRefreshToken(
+            String currentToken, String newToken, String userId,
+            SessionMetaRequest sessionMetaRequest, Duration expire
+    ) {
+        String currentHash = tokenHash(currentToken);
+        String newHash = tokenHash(newToken);
+        SessionMeta sessionMeta = buildSessionMeta(buildSessionId(userId, newHash), sessionMetaRequest, expire);
+
+        Long rotated = redisSessionMetaTemplate.execute(
+                ROTATE_SCRIPT,
+                RedisSerializer.string(),
+                RedisSerializer.string(),
+                // Key thứ hai là dạng lưu cũ, chỉ dùng khi token phát trước khi chuyển sang hash
+                List.of(sessionsKey(userId), buildSessionId(userId, currentHash)),
+                currentHash,
+                newHash,
+                serialize(sessionMeta),
+                String.valueOf(expire.toMillis())
+        );
+        return rotated != null && rotated == 1L;
     }
 
     @Override
     public void deleteRefreshToken(String token, String userId) {
-        redisSessionMetaTemplate.delete(buildKey(token, userId));
+        String hash = tokenHash(token);
+        redisSessionMetaTemplate.opsForHash().delete(sessionsKey(userId), hash);
+        redisSessionMetaTemplate.delete(buildSessionId(userId, hash));
     }
 
     @Override
     public void deleteRefreshToken(String key) {
+        // key dạng "auth::refresh_token:{userId}:{hash}"
+        int hashStart = key.lastIndexOf(':');
+        int userIdStart = key.lastIndexOf(':', hashStart - 1);
+        if (!key.startsWith(SESSION_ID_PREFIX) || userIdStart < 0) return;
+
+        String userId = key.substring(userIdStart + 1, hashStart);
+        String hash = key.substring(hashStart + 1);
+        redisSessionMetaTemplate.opsForHash().delete(sessionsKey(userId), hash);
         redisSessionMetaTemplate.delete(key);
     }
 
     @Override
-    public List<SessionMetaResponse> getAllSessionMetas(String userId, String currentRefreshToken) {
-        String keyPattern = "auth::refresh_token:" + userId + ":*";
-        Set<String> keys = redisSessionMetaTemplate.keys(keyPattern);
-
-        if (keys == null || keys.isEmpty()) return Collections.emptyList();
-        String currentTokenHash = DigestUtils.sha256Hex(currentRefreshToken);
-
-        List<SessionMetaResponse> sessionMetas = new ArrayList<>();
-        for (String key : keys) {
-            SessionMeta meta = redisSessionMetaTemplate.opsForValue().get(key);
-            if (meta == null) continue;
+    public void deleteAllRefreshTokens(String userId) {
+        redisSessionMetaTemplate.delete(sessionsKey(userId));
+    }
 
-            String keyHash = key.substring(key.lastIndexOf(":") + 1);
-            boolean isCurrent = currentTokenHash.equals(keyHash);
+    @Override
+    public List<SessionMetaResponse> getAllSessionMetas(String userId, String currentRefreshToken) {
+        String key = sessionsKey(userId);
+        HashOperations<String, String, SessionMeta> hashOperations = redisSessionMetaTemplate.opsForHash();
+        Map<String, SessionMeta> sessions = hashOperations.entries(key);
+
+        if (sessions.isEmpty()) return Collections.emptyList();
+        String currentTokenHash = tokenHash(currentRefreshToken);
+        Instant now = Instant.now();
+
+        List<SessionMetaResponse> sessionMetas = new ArrayList<>(sessions.size());
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, SessionMeta> entry : sessions.entrySet()) {
+            SessionMeta meta = entry.getValue();
+            if (meta == null || meta.getExpiresAt() == null || !meta.getExpiresAt().isAfter(now)) {
+                expired.add(entry.getKey());
+                continue;
+            }
 
             SessionMetaResponse sessionMetaResponse = new SessionMetaResponse(
                     meta.getSessionId(),
@@ -81,12 +149,32 @@ public class RefreshTokenRedisServiceImpl implements RefreshTokenRedisService {
                     meta.getDeviceType(),
                     meta.getUserAgent(),
                     meta.getLoginAt(),
-                    isCurrent
+                    currentTokenHash.equals(entry.getKey())
             );
             sessionMetas.add(sessionMetaResponse);
         }
+
+        if (!expired.isEmpty())
+            hashOperations.delete(key, expired.toArray());
+
         return sessionMetas;
     }
 
-}
+    private SessionMeta buildSessionMeta(String sessionId, SessionMetaRequest sessionMetaRequest, Duration expire) {
+        Instant now = Instant.now();
+        return new SessionMeta(
+                sessionId,
+                sessionMetaRequest.getDeviceName(),
+                sessionMetaRequest.getDeviceType(),
+                sessionMetaRequest.getUserAgent(),
+                now,
+                now.plus(expire)
+        );
+    }
 
+    // Meta được serialize giống hệt khi đọc qua opsForHash() để script và Java dùng chung một định dạng
+    private String serialize(SessionMeta sessionMeta) {
+        byte[] bytes = redisSessionMetaTemplate.getHashValueSerializer().serialize(sessionMeta);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,7 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
 import com.TranAn.BackEnd_Works.advice.exception.ResourceAlreadyExistsException;
+import com.TranAn.BackEnd_Works.config.auth.CurrentUser;
 import com.TranAn.BackEnd_Works.dto.request.resume.ResumeRequestDto;
 import com.TranAn.BackEnd_Works.dto.request.resume.UpdateResumeStatusRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.resume.CreateResumeResponseDto;
@@ -11,6 +12,7 @@ import com.TranAn.BackEnd_Works.model.*;
 import com.TranAn.BackEnd_Works.repository.JobRepository;
 import com.TranAn.BackEnd_Works.repository.ResumeRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
 import com.TranAn.BackEnd_Works.service.EmailService;
 import com.TranAn.BackEnd_Works.service.ResumeService;
 
@@ -23,7 +25,6 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -42,6 +43,7 @@ public class ResumeServiceImpl implements ResumeService {
     private final JobRepository jobRepository;
     private final EmailService emailService;
     private final S3Service s3Service;
+    private final CurrentUserService currentUserService;
 
     @Override
     public CreateResumeResponseDto saveResume(
@@ -107,26 +109,19 @@ public class ResumeServiceImpl implements ResumeService {
             Specification<Resume> spec,
             Pageable pageable
     ) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
+        CurrentUser currentUser = currentUserService.get();
 
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
-
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
         Page<ResumeForDisplayResponseDto> data = resumeRepository
-                .findByUserCompanyId(user.getCompany().getId(), spec, pageable)
+                .findByUserCompanyId(currentUser.companyId(), spec, pageable)
                 .map(this::mapToResumeForDisplayResponseDto);
 
         List<ResumeForDisplayResponseDto> filteredList =
                 data.getContent().stream()
                         .filter(x ->
-                                x.getCompany().getId().equals(user.getCompany().getId())
+                                x.getCompany().getId().equals(currentUser.companyId())
                         )
                         .toList();
 
@@ -141,13 +136,8 @@ public class ResumeServiceImpl implements ResumeService {
     public Page<ResumeForDisplayResponseDto> findSelfResumes(
             Specification<Resume> spec,
             Pageable pageable) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
         return resumeRepository
-                .findByUserEmail(email, spec, pageable)
+                .findByUserId(currentUserService.get().id(), spec, pageable)
                 .map(this::mapToResumeForDisplayResponseDto);
     }
 
@@ -163,13 +153,8 @@ public class ResumeServiceImpl implements ResumeService {
 
     @Override
     public DefaultResumeResponseDto removeSelfResumeByJobId(Long jobId) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
         Resume resume = resumeRepository
-                .findByUserEmailAndJobId(email, jobId)
+                .findByUserIdAndJobId(currentUserService.get().id(), jobId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy resume"));
 
         DefaultResumeResponseDto res = mapToResponseDto(resume);
@@ -187,13 +172,8 @@ public class ResumeServiceImpl implements ResumeService {
 
     @Override
     public DefaultResumeResponseDto updateSelfResumeFile(Long id, MultipartFile pdfFile) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
         Resume resume = resumeRepository
-                .findByUserEmailAndId(email, id)
+                .findByUserIdAndId(currentUserService.get().id(), id)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy resume"));
 
         if (pdfFile != null && !pdfFile.isEmpty()) {
@@ -250,16 +230,9 @@ public class ResumeServiceImpl implements ResumeService {
     @Override
     public DefaultResumeResponseDto updateResumeStatusForRecruiterCompany(
             UpdateResumeStatusRequestDto updateResumeStatusRequestDto) {
-        String email = SecurityContextHolder
-                .getContext()
-                .getAuthentication()
-                .getName();
-
-        User user = userRepository
-                .findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy người dùng"));
+        CurrentUser currentUser = currentUserService.get();
 
-        if (user.getCompany() == null)
+        if (!currentUser.hasCompany())
             throw new EntityNotFoundException("Không tìm thấy công ty người dùng");
 
         Resume resume = resumeRepository
@@ -267,11 +240,10 @@ public class ResumeServiceImpl implements ResumeService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy resume"));
 
         Company resumeCompany = resume.getJob().getCompany(); // Sửa lại logic này
-        Company currentUserCompany = user.getCompany();
 
         // Sửa lại logic kiểm tra quyền
-        if (resumeCompany == null || currentUserCompany == null ||
-                !resumeCompany.getId().equals(currentUserCompany.getId())) {
+        if (resumeCompany == null ||
+                !resumeCompany.getId().equals(currentUser.companyId())) {
             throw new AccessDeniedException("Không có quyền truy cập");
         }
 
@@ -1,5 +1,6 @@
 package com.TranAn.BackEnd_Works.service.impl;
 
+import com.TranAn.BackEnd_Works.config.auth.RoleCatalogue;
 import com.TranAn.BackEnd_Works.dto.request.role.DefaultRoleRequestDto;
 import com.TranAn.BackEnd_Works.dto.response.role.DefaultRoleResponseDto;
 import com.TranAn.BackEnd_Works.model.Permission;
@@ -30,6 +31,7 @@ public class RoleServiceImpl implements RoleService {
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
     private final UserRepository userRepository;
+    private final RoleCatalogue roleCatalogue;
 
     @Override
     public DefaultRoleResponseDto saveRole(DefaultRoleRequestDto defaultRoleRequestDto) {
@@ -54,6 +56,7 @@ public class RoleServiceImpl implements RoleService {
         role.setPermissions(permissions);
 
         Role savedRole = roleRepository.save(role);
+        roleCatalogue.invalidate();
         return mapToDefaultRoleResponseDto(savedRole);
     }
 
@@ -100,6 +103,7 @@ public class RoleServiceImpl implements RoleService {
         }
 
         Role updatedRole = roleRepository.saveAndFlush(role);
+        roleCatalogue.invalidate();
 
         return mapToDefaultRoleResponseDto(updatedRole);
     }
@@ -108,9 +112,10 @@ public class RoleServiceImpl implements RoleService {
     public Page<DefaultRoleResponseDto> findAllRoles(
             Specification<Role> spec,
             Pageable pageable) {
+        // Quyền của từng role lấy từ danh mục, không lazy load roles_permissions cho mỗi dòng
         return roleRepository
                 .findAll(spec, pageable)
-                .map(this::mapToDefaultRoleResponseDto);
+                .map(role -> mapToDefaultRoleResponseDto(role, roleCatalogue.get(role).permissions()));
     }
 
     @Override
@@ -131,6 +136,7 @@ public class RoleServiceImpl implements RoleService {
             userRepository.detachUsersFromRole(role.getId());
 
             roleRepository.delete(role);
+            roleCatalogue.invalidate();
             return defaultRoleResponseDto;
         }
 
@@ -138,6 +144,20 @@ public class RoleServiceImpl implements RoleService {
     }
 
     private DefaultRoleResponseDto mapToDefaultRoleResponseDto(Role role) {
+        List<RoleCatalogue.PermissionEntry> permissions = role.getPermissions()
+                .stream()
+                .map(p -> new RoleCatalogue.PermissionEntry(
+                        p.getId(),
+                        p.getName(),
+                        p.getApiPath(),
+                        p.getMethod(),
+                        p.getModule()
+                ))
+                .toList();
+        return mapToDefaultRoleResponseDto(role, permissions);
+    }
+
+    private DefaultRoleResponseDto mapToDefaultRoleResponseDto(Role role, List<RoleCatalogue.PermissionEntry> rolePermissions) {
         DefaultRoleResponseDto res = new DefaultRoleResponseDto(
                 role.getId(),
                 role.isActive(),
@@ -147,14 +167,14 @@ public class RoleServiceImpl implements RoleService {
                 role.getDescription()
         );
 
-        List<DefaultRoleResponseDto.Permission> permissions = role.getPermissions()
+        List<DefaultRoleResponseDto.Permission> permissions = rolePermissions
                 .stream()
                 .map(p -> new DefaultRoleResponseDto.Permission(
-                        p.getId(),
-                        p.getName(),
-                        p.getApiPath(),
-                        p.getMethod(),
-                        p.getModule()
+                        p.id(),
+                        p.name(),
+                        p.apiPath(),
+                        p.method(),
+                        p.module()
                 ))
                 .toList();
         res.setPermissions(permissions);
@@ -3,16 +3,18 @@ package com.TranAn.BackEnd_Works.service.impl;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 
 @Service("userDetailsService")
 @RequiredArgsConstructor
-public class UserDetailServiceImpl implements UserDetailsService {
+public class UserDetailServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -28,4 +30,18 @@ public class UserDetailServiceImpl implements UserDetailsService {
                 .authorities(Collections.emptyList())
                 .build();
     }
+
+    /**
+     * Được DaoAuthenticationProvider gọi sau khi đăng nhập thành công nếu hash đã lưu
+     * có cost khác cost hiện tại, lưu hash mới mà người dùng không cần làm gì
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+
+        return User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
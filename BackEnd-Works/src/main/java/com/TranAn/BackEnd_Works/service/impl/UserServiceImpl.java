@@ -12,6 +12,7 @@ import com.TranAn.BackEnd_Works.model.User;
 import com.TranAn.BackEnd_Works.repository.CompanyRepository;
 import com.TranAn.BackEnd_Works.repository.RoleRepository;
 import com.TranAn.BackEnd_Works.repository.UserRepository;
+import com.TranAn.BackEnd_Works.service.CurrentUserService;
 import com.TranAn.BackEnd_Works.service.S3Service;
 import com.TranAn.BackEnd_Works.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
@@ -20,7 +21,6 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +38,7 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final S3Service s3Service;
     private final PasswordEncoder passwordEncoder;
+    private final CurrentUserService currentUserService;
 
     @Override
     public DefaultUserResponseDto saveUser(UserCreateRequestDto userCreateRequestDto) {
@@ -105,6 +106,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User savedUser = userRepository.save(user);
+        currentUserService.evict(savedUser.getId());
         return mapToResponseDto(savedUser);
     }
 
@@ -122,6 +124,7 @@ public class UserServiceImpl implements UserService {
         resumes.forEach(x -> s3Service.deleteFileByKey(x.getFileKey()));
 
         userRepository.delete(user);
+        currentUserService.evict(user.getId());
         return mapToResponseDto(user);
     }
 
@@ -135,20 +138,19 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public DefaultUserResponseDto updateSelfUserProfile(SelfUserUpdateProfileRequestDto selfUserUpdateProfileRequestDto) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = findByEmail(email);
+        User user = findCurrentUser();
         user.setName(selfUserUpdateProfileRequestDto.getName());
         user.setDob(selfUserUpdateProfileRequestDto.getDob());
         user.setAddress(selfUserUpdateProfileRequestDto.getAddress());
         user.setGender(selfUserUpdateProfileRequestDto.getGender());
         User savedUser = userRepository.save(user);
+        currentUserService.evict(savedUser.getId());
         return mapToResponseDto(savedUser);
     }
 
     @Override
     public DefaultUserResponseDto updateSelfUserPassword(SelfUserUpdatePasswordRequestDto selfUserUpdatePasswordRequestDto) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = findByEmail(email);
+        User user = findCurrentUser();
         if(!passwordEncoder.matches(selfUserUpdatePasswordRequestDto.getOldPassword(), user.getPassword())) {
             throw new DataIntegrityViolationException("mật khẩu hiện tại không chính xac");
         }
@@ -161,17 +163,23 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void updateSelfUserAvatar(MultipartFile avatarFile) {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = findByEmail(email);
+        User user = findCurrentUser();
         if(avatarFile != null  && !avatarFile.isEmpty()) {
             String url = s3Service.uploadFile(avatarFile,"avatar",user.getId().toString(),true);
             user.setLogoUrl(url);
         }
         user.setUpdatedAt(Instant.now());
         userRepository.saveAndFlush(user);
+        currentUserService.evict(user.getId());
 
     }
 
+    private User findCurrentUser() {
+        return userRepository
+                .findById(currentUserService.get().id())
+                .orElseThrow(() -> new EntityNotFoundException("không tìm thấy người dùng"));
+    }
+
     private DefaultUserResponseDto mapToResponseDto(User user) {
         DefaultUserResponseDto.CompanyInformationDto company = null;
         if(user.getCompany() != null) {
@@ -0,0 +1,141 @@
+package com.TranAn.BackEnd_Works.service.template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template đã được biên dịch sẵn thành các đoạn tĩnh và vị trí slot.
+ * <p>
+ * Cú pháp:
+ * <ul>
+ *     <li>{@code {{name}}} - giá trị được escape HTML</li>
+ *     <li>{@code {{{name}}}} - chèn nguyên văn (dùng cho đoạn HTML đã render)</li>
+ * </ul>
+ * Template chỉ được parse một lần, mỗi lần render chỉ là một lượt ghép
+ * các đoạn tĩnh với giá trị slot vào buffer đã cấp phát đủ kích thước.
+ */
+public final class CompiledTemplate {
+
+    private final String[] fragments;
+    private final int[] slotRefs;
+    private final boolean[] rawSlots;
+    private final List<String> slotNames;
+    private final int staticLength;
+
+    private CompiledTemplate(String[] fragments, int[] slotRefs, boolean[] rawSlots, List<String> slotNames) {
+        this.fragments = fragments;
+        this.slotRefs = slotRefs;
+        this.rawSlots = rawSlots;
+        this.slotNames = List.copyOf(slotNames);
+
+        int length = 0;
+        for (String fragment : fragments) length += fragment.length();
+        this.staticLength = length;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        List<String> fragments = new ArrayList<>();
+        List<Integer> refs = new ArrayList<>();
+        List<Boolean> raws = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int cursor = 0;
+        while (true) {
+            int open = source.indexOf("{{", cursor);
+            if (open < 0) break;
+
+            boolean raw = source.startsWith("{{{", open);
+            String closeToken = raw ? "}}}" : "}}";
+            int nameStart = open + (raw ? 3 : 2);
+            int close = source.indexOf(closeToken, nameStart);
+            if (close < 0)
+                throw new IllegalArgumentException("Template thiếu dấu đóng slot tại vị trí " + open);
+
+            String name = source.substring(nameStart, close).trim();
+            if (name.isEmpty())
+                throw new IllegalArgumentException("Tên slot không được để trống tại vị trí " + open);
+
+            int index = names.indexOf(name);
+            if (index < 0) {
+                names.add(name);
+                index = names.size() - 1;
+            }
+
+            fragments.add(source.substring(cursor, open));
+            refs.add(index);
+            raws.add(raw);
+            cursor = close + closeToken.length();
+        }
+        fragments.add(source.substring(cursor));
+
+        int[] slotRefs = new int[refs.size()];
+        boolean[] rawSlots = new boolean[raws.size()];
+        for (int i = 0; i < slotRefs.length; i++) {
+            slotRefs[i] = refs.get(i);
+            rawSlots[i] = raws.get(i);
+        }
+
+        return new CompiledTemplate(fragments.toArray(String[]::new), slotRefs, rawSlots, names);
+    }
+
+    /**
+     * Lấy chỉ số của slot theo tên, dùng để sắp xếp mảng giá trị khi render
+     */
+    public int slotIndex(String name) {
+        int index = slotNames.indexOf(name);
+        if (index < 0)
+            throw new IllegalArgumentException("Template không có slot: " + name);
+        return index;
+    }
+
+    public int slotCount() {
+        return slotNames.size();
+    }
+
+    /**
+     * Render template với các giá trị theo thứ tự chỉ số slot
+     */
+    public String render(String... values) {
+        StringBuilder out = new StringBuilder(estimateLength(values));
+        renderTo(out, values);
+        return out.toString();
+    }
+
+    public void renderTo(StringBuilder out, String... values) {
+        if (values.length != slotNames.size())
+            throw new IllegalArgumentException(
+                    "Template cần " + slotNames.size() + " giá trị nhưng nhận được " + values.length);
+
+        for (int i = 0; i < slotRefs.length; i++) {
+            out.append(fragments[i]);
+            String value = values[slotRefs[i]];
+            if (value == null) continue;
+            if (rawSlots[i]) out.append(value);
+            else appendEscaped(out, value);
+        }
+        out.append(fragments[fragments.length - 1]);
+    }
+
+    public int estimateLength(String... values) {
+        int length = staticLength;
+        for (int ref : slotRefs) {
+            String value = values[ref];
+            if (value != null) length += value.length() + 16;
+        }
+        return length;
+    }
+
+    public static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
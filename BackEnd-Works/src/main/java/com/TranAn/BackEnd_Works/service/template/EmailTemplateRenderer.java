@@ -0,0 +1,175 @@
+package com.TranAn.BackEnd_Works.service.template;
+
+import com.TranAn.BackEnd_Works.dto.email.JobMailDto;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Render các email HTML từ template đã biên dịch sẵn khi khởi động.
+ * <p>
+ * Thay cho việc chạy toàn bộ pipeline Thymeleaf / {@code String.formatted}
+ * trên mỗi email: mỗi template chỉ parse một lần, mỗi lần gửi chỉ điền slot.
+ */
+@Component
+public class EmailTemplateRenderer {
+
+    private static final int STATUS_CACHE_SIZE = 256;
+
+    private final CompiledTemplate otpTemplate;
+    private final CompiledTemplate statusTemplate;
+    private final CompiledTemplate digestTemplate;
+    private final CompiledTemplate jobCardTemplate;
+    private final CompiledTemplate skillsTemplate;
+
+    // Chỉ số slot được tra một lần
+    private final int otpUserName;
+    private final int otpCode;
+
+    private final int statusJobName;
+    private final int statusCompanyName;
+    private final int statusText;
+    private final int statusColor;
+    private final int statusIcon;
+    private final int statusMessage;
+
+    private final int digestJobCards;
+
+    private final int cardName;
+    private final int cardCompanyName;
+    private final int cardSalaryText;
+    private final int cardLocationText;
+    private final int cardSkillCount;
+    private final int cardSkillsSection;
+    private final int cardApplyUrl;
+
+    private final int skillsTags;
+
+    // Cache kết quả render thông báo trạng thái: cùng job/công ty/trạng thái cho ra cùng một HTML
+    private final Map<String, String> statusRenderCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > STATUS_CACHE_SIZE;
+                }
+            });
+
+    public EmailTemplateRenderer() {
+        this.otpTemplate = load("templates/otp-email.html");
+        this.statusTemplate = load("templates/resume-status-notification.html");
+        this.digestTemplate = load("templates/job-notification-email.html");
+        this.jobCardTemplate = load("templates/fragments/job-notification-card.html");
+        this.skillsTemplate = load("templates/fragments/job-notification-skills.html");
+
+        this.otpUserName = otpTemplate.slotIndex("userName");
+        this.otpCode = otpTemplate.slotIndex("otp");
+
+        this.statusJobName = statusTemplate.slotIndex("jobName");
+        this.statusCompanyName = statusTemplate.slotIndex("companyName");
+        this.statusText = statusTemplate.slotIndex("statusText");
+        this.statusColor = statusTemplate.slotIndex("statusColor");
+        this.statusIcon = statusTemplate.slotIndex("statusIcon");
+        this.statusMessage = statusTemplate.slotIndex("message");
+
+        this.digestJobCards = digestTemplate.slotIndex("jobCards");
+
+        this.cardName = jobCardTemplate.slotIndex("name");
+        this.cardCompanyName = jobCardTemplate.slotIndex("companyName");
+        this.cardSalaryText = jobCardTemplate.slotIndex("salaryText");
+        this.cardLocationText = jobCardTemplate.slotIndex("locationText");
+        this.cardSkillCount = jobCardTemplate.slotIndex("skillCount");
+        this.cardSkillsSection = jobCardTemplate.slotIndex("skillsSection");
+        this.cardApplyUrl = jobCardTemplate.slotIndex("applyUrl");
+
+        this.skillsTags = skillsTemplate.slotIndex("skillTags");
+    }
+
+    public String renderOtp(String otp, String userName) {
+        String[] values = new String[otpTemplate.slotCount()];
+        values[otpUserName] = userName;
+        values[otpCode] = otp;
+        return otpTemplate.render(values);
+    }
+
+    public String renderResumeStatus(
+            String jobName, String companyName,
+            String text, String color, String icon, String message
+    ) {
+        String cacheKey = String.join("\u0000", jobName, companyName, text, color, icon, message);
+        String cached = statusRenderCache.get(cacheKey);
+        if (cached != null) return cached;
+
+        String[] values = new String[statusTemplate.slotCount()];
+        values[statusJobName] = jobName;
+        values[statusCompanyName] = companyName;
+        values[statusText] = text;
+        values[statusColor] = color;
+        values[statusIcon] = icon;
+        values[statusMessage] = message;
+
+        String html = statusTemplate.render(values);
+        statusRenderCache.put(cacheKey, html);
+        return html;
+    }
+
+    public String renderJobDigest(List<JobMailDto> jobs) {
+        StringBuilder cards = new StringBuilder(jobs.size() * 1024);
+        for (JobMailDto job : jobs) {
+            renderJobCard(cards, job);
+        }
+
+        String[] values = new String[digestTemplate.slotCount()];
+        values[digestJobCards] = cards.toString();
+        return digestTemplate.render(values);
+    }
+
+    private void renderJobCard(StringBuilder out, JobMailDto job) {
+        JobMailDto.CompanyDto company = job.getCompany();
+        List<JobMailDto.SkillDto> skills = job.getSkills();
+        boolean hasSkills = skills != null && !skills.isEmpty();
+
+        String[] values = new String[jobCardTemplate.slotCount()];
+        values[cardName] = job.getName();
+        values[cardCompanyName] = company != null ? company.getName() : "Công ty không xác định";
+        values[cardSalaryText] = job.getSalary() != null
+                ? "💰 " + String.format(Locale.ROOT, "%.0f", job.getSalary()) + " VNĐ"
+                : "💰 Thỏa thuận";
+        values[cardLocationText] = company != null && company.getLocation() != null
+                ? "📍 " + company.getLocation()
+                : "📍 Địa điểm linh hoạt";
+        values[cardApplyUrl] = job.getApplyUrl();
+
+        if (hasSkills) {
+            values[cardSkillCount] = "<span class=\"job-detail\">🛠️ " + skills.size() + " kỹ năng yêu cầu</span>";
+
+            StringBuilder tags = new StringBuilder(skills.size() * 48);
+            for (JobMailDto.SkillDto skill : skills) {
+                tags.append("<span class=\"skill-tag\">");
+                if (skill.getName() != null) CompiledTemplate.appendEscaped(tags, skill.getName());
+                tags.append("</span>");
+            }
+            String[] skillValues = new String[skillsTemplate.slotCount()];
+            skillValues[skillsTags] = tags.toString();
+            values[cardSkillsSection] = skillsTemplate.render(skillValues);
+        }
+
+        jobCardTemplate.renderTo(out, values);
+    }
+
+    private static CompiledTemplate load(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return CompiledTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không thể tải template email: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.TranAn.BackEnd_Works.service.tool;
+
+import com.TranAn.BackEnd_Works.dto.response.job.JobLookupDto;
+import com.TranAn.BackEnd_Works.model.Job;
+import com.TranAn.BackEnd_Works.model.constant.Level;
+import com.TranAn.BackEnd_Works.repository.JobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Các hàm tra cứu job mà chatbot có thể gọi (Spring AI tool calling).
+ * <p>
+ * Thay vì nhồi dữ liệu job vào prompt, model tự gọi các hàm này khi cần
+ * và nhận về kết quả rút gọn lấy từ các truy vấn có index.
+ */
+@Component
+@RequiredArgsConstructor
+public class JobLookupTools {
+
+    private static final int DEFAULT_LIMIT = 5;
+    private static final int MAX_LIMIT = 10;
+    private static final int DESCRIPTION_MAX_LENGTH = 1000;
+
+    private final JobRepository jobRepository;
+
+    @Tool(description = "Tìm các tin tuyển dụng đang mở theo kỹ năng, cấp bậc, địa điểm và công ty. " +
+            "Bỏ trống tham số nào thì không lọc theo tham số đó. Trả về danh sách job rút gọn, mới nhất trước.")
+    public List<JobLookupDto> searchOpenJobs(
+            @ToolParam(required = false, description = "Tên kỹ năng, ví dụ: Java, React") String skill,
+            @ToolParam(required = false, description = "Cấp bậc: INTERN, FRESHER, MIDDLE, SENIOR, LEADER") String level,
+            @ToolParam(required = false, description = "Một phần tên địa điểm, ví dụ: Hà Nội") String location,
+            @ToolParam(required = false, description = "Một phần tên công ty") String company,
+            @ToolParam(required = false, description = "Số kết quả tối đa (mặc định 5, tối đa 10)") Integer limit
+    ) {
+        int size = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+        List<Object[]> rows = jobRepository.lookupOpenJobs(
+                Instant.now(),
+                blankToNull(skill),
+                parseLevel(level),
+                blankToNull(location),
+                blankToNull(company),
+                PageRequest.of(0, size)
+        );
+        if (rows.isEmpty()) return List.of();
+
+        Map<Long, JobLookupDto> jobs = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            jobs.put(id, new JobLookupDto(
+                    id,
+                    (String) row[1],
+                    (String) row[2],
+                    (String) row[3],
+                    row[4] != null ? row[4].toString() : null,
+                    (Double) row[5],
+                    (Instant) row[6],
+                    new ArrayList<>()
+            ));
+        }
+
+        // Một truy vấn lấy kỹ năng cho cả trang kết quả
+        for (Object[] row : jobRepository.findSkillNamesByJobIds(new ArrayList<>(jobs.keySet()))) {
+            jobs.get((Long) row[0]).getSkills().add((String) row[1]);
+        }
+
+        return new ArrayList<>(jobs.values());
+    }
+
+    @Tool(description = "Lấy chi tiết một tin tuyển dụng đang mở theo id (mô tả được rút gọn)")
+    public Map<String, Object> getJobDetail(@ToolParam(description = "Id của job") Long jobId) {
+        // Job đã đóng / hết hạn coi như không tồn tại, giống searchOpenJobs
+        Job job = jobRepository.findByIdAndActiveTrueAndEndDateAfter(jobId, Instant.now()).orElse(null);
+        if (job == null) return Map.of("error", "Không tìm thấy job đang mở với id " + jobId);
+
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("id", job.getId());
+        detail.put("name", job.getName());
+        detail.put("companyName", job.getCompany() != null ? job.getCompany().getName() : null);
+        detail.put("location", job.getLocation());
+        detail.put("level", job.getLevel() != null ? job.getLevel().name() : null);
+        detail.put("salary", job.getSalary());
+        detail.put("quantity", job.getQuantity());
+        detail.put("startDate", job.getStartDate());
+        detail.put("endDate", job.getEndDate());
+        detail.put("active", job.getActive());
+        detail.put("skills", jobRepository.findSkillNamesByJobIds(List.of(jobId)).stream()
+                .map(row -> (String) row[1])
+                .toList());
+        detail.put("description", truncate(job.getDescription()));
+        return detail;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Level parseLevel(String level) {
+        if (level == null || level.isBlank()) return null;
+        try {
+            return Level.valueOf(level.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String truncate(String text) {
+        if (text == null || text.length() <= DESCRIPTION_MAX_LENGTH) return text;
+        return text.substring(0, DESCRIPTION_MAX_LENGTH) + "...";
+    }
+}
@@ -0,0 +1,15 @@
+-- Cắt batch đã flush khỏi đầu hàng đợi write-behind và gia hạn khóa flush trong một lần gọi Redis.
+-- KEYS[1]: khóa flush
+-- KEYS[2]: hàng đợi message đang chờ
+-- ARGV[1]: token của node đang giữ khóa
+-- ARGV[2]: số message đầu hàng đợi đã flush
+-- ARGV[3]: thời gian sống mới của khóa (ms)
+-- Trả về 1 nếu đã cắt, 0 nếu khóa không còn thuộc về node này (hết hạn, node khác đã lấy):
+-- khi đó đầu hàng đợi có thể đã đổi nên không được cắt theo số lượng
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+
+redis.call('LTRIM', KEYS[2], tonumber(ARGV[2]), -1)
+redis.call('PEXPIRE', KEYS[1], ARGV[3])
+return 1
@@ -0,0 +1,28 @@
+-- Phát OTP (gửi lần đầu hoặc gửi lại) trong một lần gọi Redis.
+-- KEYS[1]: key OTP
+-- KEYS[2]: key đếm số lần gửi trong cửa sổ rate limit
+-- KEYS[3]: key đếm số lần nhập sai của OTP hiện tại
+-- ARGV[1]: OTP mới
+-- ARGV[2]: thời gian sống của OTP (giây)
+-- ARGV[3]: cửa sổ rate limit (giây)
+-- ARGV[4]: số lần gửi tối đa trong cửa sổ
+-- ARGV[5]: "1" = gửi lại (thay OTP cũ), "0" = gửi lần đầu (từ chối nếu OTP cũ còn hiệu lực)
+-- Trả về {trạng thái, số lần đã gửi}: 1 = đã phát, 0 = OTP cũ còn hiệu lực, -1 = vượt giới hạn
+local attempts = tonumber(redis.call('GET', KEYS[2]) or '0')
+
+if ARGV[5] == '0' and redis.call('EXISTS', KEYS[1]) == 1 then
+    return {0, attempts}
+end
+
+if attempts >= tonumber(ARGV[4]) then
+    return {-1, attempts}
+end
+
+attempts = redis.call('INCR', KEYS[2])
+if redis.call('TTL', KEYS[2]) < 0 then
+    redis.call('EXPIRE', KEYS[2], ARGV[3])
+end
+
+redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+redis.call('DEL', KEYS[3])
+return {1, attempts}
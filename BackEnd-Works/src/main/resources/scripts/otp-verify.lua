@@ -0,0 +1,30 @@
+-- Xác thực OTP và đếm số lần nhập sai trong một lần gọi Redis.
+-- KEYS[1]: key OTP
+-- KEYS[2]: key đếm số lần nhập sai
+-- ARGV[1]: OTP người dùng nhập
+-- ARGV[2]: số lần nhập sai tối đa, đạt ngưỡng thì hủy OTP
+-- ARGV[3]: "1" = tiêu thụ OTP khi đúng (đặt lại mật khẩu), "0" = chỉ kiểm tra
+-- Trả về 1 = đúng, 0 = sai hoặc không tồn tại, -1 = nhập sai quá số lần (OTP đã bị hủy)
+local stored = redis.call('GET', KEYS[1])
+if not stored then
+    return 0
+end
+
+if stored == ARGV[1] then
+    if ARGV[3] == '1' then
+        redis.call('DEL', KEYS[1], KEYS[2])
+    end
+    return 1
+end
+
+local failures = redis.call('INCR', KEYS[2])
+if failures == 1 then
+    -- Bộ đếm hết hạn cùng OTP
+    redis.call('PEXPIRE', KEYS[2], redis.call('PTTL', KEYS[1]))
+end
+
+if failures >= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1], KEYS[2])
+    return -1
+end
+return 0
@@ -0,0 +1,26 @@
+-- Xoay vòng refresh token trong một lần gọi Redis.
+-- KEYS[1]: hash session của user (field = hash của refresh token, value = session meta JSON)
+-- KEYS[2]: key dạng cũ (một string cho mỗi token) của token đang dùng, để chuyển dần session cũ sang hash
+-- ARGV[1]: field của token đang dùng
+-- ARGV[2]: field của token mới
+-- ARGV[3]: session meta của token mới (JSON, có expiresAt tính bằng giây)
+-- ARGV[4]: thời gian sống của token mới (ms)
+-- Trả về 1 nếu xoay vòng thành công, 0 nếu token cũ không còn (đã dùng / đã thu hồi / hết hạn)
+local now = tonumber(redis.call('TIME')[1])
+
+local current = redis.call('HGET', KEYS[1], ARGV[1])
+if current then
+    redis.call('HDEL', KEYS[1], ARGV[1])
+    local ok, meta = pcall(cjson.decode, current)
+    if not ok or type(meta) ~= 'table' or tonumber(meta['expiresAt']) == nil or tonumber(meta['expiresAt']) <= now then
+        return 0
+    end
+elseif redis.call('DEL', KEYS[2]) == 0 then
+    return 0
+end
+
+redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[4]) then
+    redis.call('PEXPIRE', KEYS[1], ARGV[4])
+end
+return 1
@@ -0,0 +1,23 @@
+-- Lưu session của refresh token vào hash session của user.
+-- KEYS[1]: hash session của user (field = hash của refresh token, value = session meta JSON)
+-- ARGV[1]: field của token
+-- ARGV[2]: session meta (JSON, có expiresAt tính bằng giây)
+-- ARGV[3]: thời gian sống của token (ms)
+local now = tonumber(redis.call('TIME')[1])
+
+-- Dọn các session đã hết hạn, hash chỉ có vài field cho mỗi user
+local entries = redis.call('HGETALL', KEYS[1])
+for i = 1, #entries, 2 do
+    local ok, meta = pcall(cjson.decode, entries[i + 1])
+    if not ok or type(meta) ~= 'table' or tonumber(meta['expiresAt']) == nil or tonumber(meta['expiresAt']) <= now then
+        redis.call('HDEL', KEYS[1], entries[i])
+    end
+end
+
+redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+
+-- Key sống bằng session có hạn xa nhất
+if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[3]) then
+    redis.call('PEXPIRE', KEYS[1], ARGV[3])
+end
+return 1
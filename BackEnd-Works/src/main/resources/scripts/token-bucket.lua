@@ -0,0 +1,39 @@
+-- Token bucket: nạp token theo thời gian và lấy một token trong một lần gọi Redis.
+-- Dùng giờ của Redis nên các node không cần đồng bộ đồng hồ.
+-- KEYS[1]: key của bucket (hash: tokens, ts)
+-- ARGV[1]: dung lượng bucket
+-- ARGV[2]: thời gian nạp đầy bucket (ms)
+-- Trả về {1 = cho qua / 0 = từ chối, số token còn lại, ms chờ đến khi có token, ms đến khi bucket đầy}
+local capacity = tonumber(ARGV[1])
+local refill_ms = tonumber(ARGV[2])
+local rate = capacity / refill_ms
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * rate)
+    ts = now
+end
+
+local allowed = 0
+local wait = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+    allowed = 1
+else
+    wait = math.ceil((1 - tokens) / rate)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts))
+redis.call('PEXPIRE', KEYS[1], refill_ms + 1000)
+
+return {allowed, math.floor(tokens), wait, math.ceil((capacity - tokens) / rate)}
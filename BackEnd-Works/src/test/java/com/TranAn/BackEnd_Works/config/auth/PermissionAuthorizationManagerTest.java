@@ -0,0 +1,169 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import com.TranAn.BackEnd_Works.annotation.RequirePermission;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PermissionAuthorizationManagerTest {
+
+    private static final int LIST_JOBS = 1;
+    private static final int CREATE_JOB = 2;
+    private static final int LIST_PUBLIC = 3;
+
+    private PermissionAuthorizationManager manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        PermissionCatalogue catalogue = mock(PermissionCatalogue.class);
+        when(catalogue.idOf("GET /jobs")).thenReturn(LIST_JOBS);
+        when(catalogue.idOf("POST /jobs")).thenReturn(CREATE_JOB);
+        when(catalogue.idOf("GET /public")).thenReturn(LIST_PUBLIC);
+        when(catalogue.idOf("GET /reports")).thenReturn(-1);
+
+        ObjectProvider<PermissionCatalogue> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(catalogue);
+        manager = new PermissionAuthorizationManager(provider);
+    }
+
+    @Test
+    void methodWithoutRequirementIsGranted() {
+        assertThat(check(null, new OpenController(), "open")).isTrue();
+    }
+
+    @Test
+    void classLevelRequirementAppliesToUnannotatedMethods() {
+        JobController controller = new JobController();
+
+        assertThat(check(token(LIST_JOBS), controller, "list")).isTrue();
+        assertThat(check(token(CREATE_JOB), controller, "list")).isFalse();
+    }
+
+    @Test
+    void methodLevelRequirementOverridesClassLevel() {
+        JobController controller = new JobController();
+
+        assertThat(check(token(LIST_JOBS), controller, "create")).isFalse();
+        assertThat(check(token(CREATE_JOB), controller, "create")).isTrue();
+    }
+
+    @Test
+    void allowAnonymousLetsGuestsThrough() {
+        JobController controller = new JobController();
+        Authentication anonymous = new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        assertThat(check(anonymous, controller, "listPublic")).isTrue();
+        assertThat(check(anonymous, controller, "list")).isFalse();
+    }
+
+    @Test
+    void allowAnonymousStillRequiresPermissionWhenLoggedIn() {
+        JobController controller = new JobController();
+
+        assertThat(check(token(LIST_JOBS), controller, "listPublic")).isFalse();
+        assertThat(check(token(LIST_PUBLIC), controller, "listPublic")).isTrue();
+    }
+
+    @Test
+    void unknownPermissionIsDenied() {
+        assertThat(check(token(LIST_JOBS, CREATE_JOB, LIST_PUBLIC), new JobController(), "reports")).isFalse();
+    }
+
+    @Test
+    void missingAuthenticationIsDenied() {
+        assertThat(check(null, new JobController(), "list")).isFalse();
+    }
+
+    @Test
+    void nonJwtAuthenticationIsCheckedByAuthorityName() {
+        Authentication basic = UsernamePasswordAuthenticationToken.authenticated(
+                "user", null, AuthorityUtils.createAuthorityList("POST /jobs"));
+
+        assertThat(check(basic, new JobController(), "create")).isTrue();
+        assertThat(check(basic, new JobController(), "list")).isFalse();
+    }
+
+    @Test
+    void annotationOnImplementationIsFoundFromInterfaceMethod() throws NoSuchMethodException {
+        Method interfaceMethod = JobApi.class.getMethod("create");
+
+        assertThat(check(token(CREATE_JOB), new JobApiController(), interfaceMethod)).isTrue();
+        assertThat(check(token(LIST_JOBS), new JobApiController(), interfaceMethod)).isFalse();
+    }
+
+    private boolean check(Authentication authentication, Object target, String methodName) {
+        try {
+            return check(authentication, target, target.getClass().getMethod(methodName));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private boolean check(Authentication authentication, Object target, Method method) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(method);
+        when(invocation.getThis()).thenReturn(target);
+        return manager.check(() -> authentication, invocation).isGranted();
+    }
+
+    private static PermissionAuthenticationToken token(int... permissionIds) {
+        BitSet bits = new BitSet();
+        for (int id : permissionIds) bits.set(id);
+
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("user@example.com")
+                .build();
+        return new PermissionAuthenticationToken(jwt, List.of(), bits);
+    }
+
+    static class OpenController {
+        public void open() {
+        }
+    }
+
+    @RequirePermission("GET /jobs")
+    static class JobController {
+        public void list() {
+        }
+
+        @RequirePermission("POST /jobs")
+        public void create() {
+        }
+
+        @RequirePermission(value = "GET /public", allowAnonymous = true)
+        public void listPublic() {
+        }
+
+        @RequirePermission("GET /reports")
+        public void reports() {
+        }
+    }
+
+    interface JobApi {
+        void create();
+    }
+
+    static class JobApiController implements JobApi {
+        @Override
+        @RequirePermission("POST /jobs")
+        public void create() {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.TranAn.BackEnd_Works.config.auth;
+
+import com.TranAn.BackEnd_Works.model.Permission;
+import com.TranAn.BackEnd_Works.repository.PermissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PermissionCatalogueTest {
+
+    private PermissionRepository permissionRepository;
+    private PermissionCatalogue catalogue;
+
+    @BeforeEach
+    void setUp() {
+        permissionRepository = mock(PermissionRepository.class);
+        when(permissionRepository.findAll()).thenReturn(List.of(
+                permission(1, "GET", "/jobs"),
+                permission(3, "POST", "/jobs"),
+                permission(70, "DELETE", "/jobs/{id}")
+        ));
+        catalogue = new PermissionCatalogue(permissionRepository);
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        String encoded = catalogue.encode(List.of(
+                permission(1, "GET", "/jobs"),
+                permission(70, "DELETE", "/jobs/{id}")
+        ));
+
+        BitSet bits = PermissionCatalogue.bits(encoded);
+        assertThat(bits.stream()).containsExactly(1, 70);
+        assertThat(names(catalogue.decode(encoded, catalogue.version())))
+                .containsExactly("GET /jobs", "DELETE /jobs/{id}");
+    }
+
+    @Test
+    void encodeEmptyPermissions() {
+        assertThat(catalogue.decode(catalogue.encode(List.of()), catalogue.version())).isEmpty();
+        assertThat(catalogue.decode(catalogue.encode(null), catalogue.version())).isEmpty();
+    }
+
+    @Test
+    void idOfResolvesAuthority() {
+        assertThat(catalogue.idOf("POST /jobs")).isEqualTo(3);
+        assertThat(catalogue.idOf("PUT /jobs")).isEqualTo(-1);
+    }
+
+    @Test
+    void decodeSkipsBitsOfDeletedPermissions() {
+        // Permission 2 không còn trong danh mục, token cũ vẫn mang bit của nó
+        String encoded = catalogue.encode(List.of(
+                permission(2, "PUT", "/jobs"),
+                permission(3, "POST", "/jobs"),
+                permission(200, "GET", "/removed")
+        ));
+
+        assertThat(names(catalogue.decode(encoded, catalogue.version()))).containsExactly("POST /jobs");
+    }
+
+    @Test
+    void versionChangesWhenCatalogueChanges() {
+        long before = catalogue.version();
+        String encoded = catalogue.encode(List.of(permission(1, "GET", "/jobs")));
+
+        when(permissionRepository.findAll()).thenReturn(List.of(
+                permission(1, "GET", "/jobs"),
+                permission(3, "POST", "/jobs"),
+                permission(4, "GET", "/skills"),
+                permission(70, "DELETE", "/jobs/{id}")
+        ));
+        catalogue.invalidate();
+
+        assertThat(catalogue.version()).isNotEqualTo(before);
+        assertThat(catalogue.idOf("GET /skills")).isEqualTo(4);
+        // Bit gắn với permission id nên token phát theo version cũ vẫn giải mã đúng
+        assertThat(names(catalogue.decode(encoded, before))).containsExactly("GET /jobs");
+    }
+
+    @Test
+    void versionMismatchReloadIsThrottled() {
+        long version = catalogue.version();
+        String encoded = catalogue.encode(List.of(permission(3, "POST", "/jobs")));
+
+        // Token mang version lạ ngay sau lần nạp: không nạp lại liên tục, dùng danh mục hiện có
+        assertThat(names(catalogue.decode(encoded, version + 1))).containsExactly("POST /jobs");
+        assertThat(names(catalogue.decode(encoded, version + 1))).containsExactly("POST /jobs");
+        verify(permissionRepository, times(1)).findAll();
+    }
+
+    private static Permission permission(long id, String method, String apiPath) {
+        Permission permission = new Permission(method + " " + apiPath, apiPath, method, "TEST");
+        permission.setId(id);
+        return permission;
+    }
+
+    private static List<String> names(List<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.TranAn.BackEnd_Works.config.security;
+
+import com.TranAn.BackEnd_Works.service.RateLimitService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    @Test
+    void deniedRequestGets429WithRetryAfterRoundedUp() throws Exception {
+        MockHttpServletResponse response = filter(new RateLimitService.Decision(false, 10, 0, 1_500, 60_000));
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("10");
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("0");
+        assertThat(response.getHeader("RateLimit-Reset")).isEqualTo("60");
+    }
+
+    @Test
+    void retryAfterOfExactSecondsIsNotRoundedUp() throws Exception {
+        assertThat(filter(new RateLimitService.Decision(false, 10, 0, 1_000, 1_000)).getHeader("Retry-After"))
+                .isEqualTo("1");
+        assertThat(filter(new RateLimitService.Decision(false, 10, 0, 1, 1)).getHeader("Retry-After"))
+                .isEqualTo("1");
+    }
+
+    @Test
+    void allowedRequestPassesThroughWithoutRetryAfter() throws Exception {
+        MockHttpServletResponse response = filter(new RateLimitService.Decision(true, 10, 7, 0, 18_001));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("Retry-After")).isNull();
+        assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("7");
+        assertThat(response.getHeader("RateLimit-Reset")).isEqualTo("19");
+    }
+
+    @Test
+    void unmatchedRouteIsNotLimited() throws Exception {
+        List<String> keys = new ArrayList<>();
+        RateLimitFilter filter = new RateLimitFilter((rule, key) -> {
+            keys.add(key);
+            return new RateLimitService.Decision(false, 1, 0, 1_000, 1_000);
+        }, properties(), new ObjectMapper());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/jobs"), response, new MockFilterChain());
+
+        assertThat(keys).isEmpty();
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private static MockHttpServletResponse filter(RateLimitService.Decision decision) throws Exception {
+        RateLimitFilter filter = new RateLimitFilter((rule, key) -> decision, properties(), new ObjectMapper());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(new ArrayList<>(List.of(new RateLimitProperties.Rule(
+                "auth-login", "POST", "/auth/login", RateLimitProperties.KeyType.IP, 10, Duration.ofMinutes(1)))));
+        return properties;
+    }
+}
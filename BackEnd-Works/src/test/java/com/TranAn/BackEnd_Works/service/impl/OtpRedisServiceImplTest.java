@@ -0,0 +1,108 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.network.RedisConfig;
+import com.TranAn.BackEnd_Works.service.OtpRedisService;
+import com.TranAn.BackEnd_Works.support.RedisContainerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra script otp-issue.lua và otp-verify.lua qua OtpRedisServiceImpl trên Redis thật
+ */
+class OtpRedisServiceImplTest extends RedisContainerTest {
+
+    private static final String EMAIL = "user@example.com";
+    // OTP được sinh trong khoảng 100000..999999 nên mã này luôn sai
+    private static final String WRONG_OTP = "000000";
+
+    private OtpRedisService otpRedisService;
+
+    @BeforeEach
+    void setUp() {
+        otpRedisService = new OtpRedisServiceImpl(initialized(new RedisConfig().redisTemplate(connectionFactory)));
+    }
+
+    @Test
+    void firstIssueIsRejectedWhileOtpIsActive() {
+        OtpRedisService.IssueResult issued = otpRedisService.issueOtp(EMAIL, false);
+        assertThat(issued.status()).isEqualTo(OtpRedisService.IssueStatus.ISSUED);
+        assertThat(issued.otp()).hasSize(6);
+
+        OtpRedisService.IssueResult again = otpRedisService.issueOtp(EMAIL, false);
+        assertThat(again.status()).isEqualTo(OtpRedisService.IssueStatus.ACTIVE_OTP_EXISTS);
+        assertThat(again.otp()).isNull();
+        // Lần bị từ chối không tính vào giới hạn gửi
+        assertThat(again.attempts()).isEqualTo(1);
+    }
+
+    @Test
+    void resendIsLimitedPerWindow() {
+        assertThat(otpRedisService.issueOtp(EMAIL, false).attempts()).isEqualTo(1);
+        assertThat(otpRedisService.issueOtp(EMAIL, true).attempts()).isEqualTo(2);
+
+        OtpRedisService.IssueResult third = otpRedisService.issueOtp(EMAIL, true);
+        assertThat(third.status()).isEqualTo(OtpRedisService.IssueStatus.ISSUED);
+        assertThat(third.remainingAttempts()).isZero();
+
+        OtpRedisService.IssueResult limited = otpRedisService.issueOtp(EMAIL, true);
+        assertThat(limited.status()).isEqualTo(OtpRedisService.IssueStatus.RATE_LIMITED);
+        assertThat(limited.otp()).isNull();
+
+        otpRedisService.resetRateLimit(EMAIL);
+        assertThat(otpRedisService.issueOtp(EMAIL, true).status()).isEqualTo(OtpRedisService.IssueStatus.ISSUED);
+    }
+
+    @Test
+    void resendReplacesPreviousOtp() {
+        String first = otpRedisService.issueOtp(EMAIL, false).otp();
+        String second = otpRedisService.issueOtp(EMAIL, true).otp();
+
+        if (!first.equals(second)) {
+            assertThat(otpRedisService.verifyOtp(EMAIL, first, false)).isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+        }
+        assertThat(otpRedisService.verifyOtp(EMAIL, second, false)).isEqualTo(OtpRedisService.VerifyStatus.VALID);
+    }
+
+    @Test
+    void verifyWithoutConsumeKeepsOtp() {
+        String otp = otpRedisService.issueOtp(EMAIL, false).otp();
+
+        assertThat(otpRedisService.verifyOtp(EMAIL, otp, false)).isEqualTo(OtpRedisService.VerifyStatus.VALID);
+        assertThat(otpRedisService.verifyOtp(EMAIL, otp, false)).isEqualTo(OtpRedisService.VerifyStatus.VALID);
+        assertThat(otpRedisService.verifyOtp(EMAIL, otp, true)).isEqualTo(OtpRedisService.VerifyStatus.VALID);
+        assertThat(otpRedisService.verifyOtp(EMAIL, otp, true)).isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+    }
+
+    @Test
+    void tooManyFailuresLockTheOtp() {
+        String otp = otpRedisService.issueOtp(EMAIL, false).otp();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(otpRedisService.verifyOtp(EMAIL, WRONG_OTP, false)).isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+        }
+        assertThat(otpRedisService.verifyOtp(EMAIL, WRONG_OTP, false)).isEqualTo(OtpRedisService.VerifyStatus.LOCKED);
+        // OTP đã bị hủy: nhập đúng cũng không còn hiệu lực
+        assertThat(otpRedisService.verifyOtp(EMAIL, otp, false)).isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+    }
+
+    @Test
+    void resendResetsFailureCount() {
+        otpRedisService.issueOtp(EMAIL, false);
+        for (int i = 0; i < 4; i++) otpRedisService.verifyOtp(EMAIL, WRONG_OTP, false);
+
+        String second = otpRedisService.issueOtp(EMAIL, true).otp();
+        for (int i = 0; i < 4; i++) {
+            assertThat(otpRedisService.verifyOtp(EMAIL, WRONG_OTP, false))
+                    .isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+        }
+        assertThat(otpRedisService.verifyOtp(EMAIL, second, false)).isEqualTo(OtpRedisService.VerifyStatus.VALID);
+    }
+
+    @Test
+    void verifyWithoutIssuedOtpIsInvalid() {
+        assertThat(otpRedisService.verifyOtp(EMAIL, "123456", false)).isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+        assertThat(otpRedisService.verifyOtp(EMAIL, " ", false)).isEqualTo(OtpRedisService.VerifyStatus.INVALID);
+    }
+}
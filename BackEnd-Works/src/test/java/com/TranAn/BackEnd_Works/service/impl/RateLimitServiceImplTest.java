@@ -0,0 +1,86 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.network.RedisConfig;
+import com.TranAn.BackEnd_Works.config.security.RateLimitProperties;
+import com.TranAn.BackEnd_Works.service.RateLimitService;
+import com.TranAn.BackEnd_Works.support.RedisContainerTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra script token-bucket.lua qua RateLimitServiceImpl trên Redis thật
+ */
+class RateLimitServiceImplTest extends RedisContainerTest {
+
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitService = newService();
+    }
+
+    @Test
+    void allowsUpToCapacityThenDenies() {
+        RateLimitProperties.Rule rule = rule(3, Duration.ofMinutes(1));
+
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").remaining()).isEqualTo(2);
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").remaining()).isEqualTo(1);
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").remaining()).isEqualTo(0);
+
+        RateLimitService.Decision denied = rateLimitService.tryConsume(rule, "ip:1");
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.limit()).isEqualTo(3);
+        // 3 token mỗi phút: một token mới sau 20s (trừ phần đã nạp trong lúc chạy test)
+        assertThat(denied.retryAfterMillis()).isBetween(15_000L, 20_000L);
+        assertThat(denied.resetMillis()).isBetween(55_000L, 60_000L);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        RateLimitProperties.Rule rule = rule(1, Duration.ofMinutes(1));
+
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").allowed()).isTrue();
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").allowed()).isFalse();
+        assertThat(rateLimitService.tryConsume(rule, "ip:2").allowed()).isTrue();
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        RateLimitProperties.Rule rule = rule(1, Duration.ofMillis(300));
+
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").allowed()).isTrue();
+        RateLimitService.Decision denied = rateLimitService.tryConsume(rule, "ip:1");
+        assertThat(denied.allowed()).isFalse();
+        assertThat(denied.retryAfterMillis()).isBetween(1L, 300L);
+
+        Thread.sleep(400);
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").allowed()).isTrue();
+    }
+
+    @Test
+    void denialIsSharedBetweenNodes() {
+        RateLimitProperties.Rule rule = rule(1, Duration.ofMinutes(1));
+
+        assertThat(rateLimitService.tryConsume(rule, "ip:1").allowed()).isTrue();
+        // Node khác chưa có cache chặn cục bộ, Redis vẫn từ chối
+        assertThat(newService().tryConsume(rule, "ip:1").allowed()).isFalse();
+    }
+
+    private static RateLimitService newService() {
+        return new RateLimitServiceImpl(
+                initialized(new RedisConfig().redisTemplate(connectionFactory)),
+                new RateLimitProperties(),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    private static RateLimitProperties.Rule rule(int capacity, Duration refillPeriod) {
+        return new RateLimitProperties.Rule(
+                "test", "POST", "/test", RateLimitProperties.KeyType.IP, capacity, refillPeriod);
+    }
+}
@@ -0,0 +1,79 @@
+package com.TranAn.BackEnd_Works.service.impl;
+
+import com.TranAn.BackEnd_Works.config.network.RedisConfig;
+import com.TranAn.BackEnd_Works.dto.request.auth.SessionMetaRequest;
+import com.TranAn.BackEnd_Works.dto.response.auth.SessionMetaResponse;
+import com.TranAn.BackEnd_Works.service.RefreshTokenRedisService;
+import com.TranAn.BackEnd_Works.support.RedisContainerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra script refresh-token-rotate.lua qua RefreshTokenRedisServiceImpl trên Redis thật
+ */
+class RefreshTokenRedisServiceImplTest extends RedisContainerTest {
+
+    private static final String USER_ID = "1";
+    private static final Duration EXPIRE = Duration.ofDays(1);
+    private static final SessionMetaRequest META = new SessionMetaRequest("Chrome", "desktop", "Mozilla/5.0");
+
+    private RefreshTokenRedisService refreshTokenRedisService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRedisService = new RefreshTokenRedisServiceImpl(
+                initialized(new RedisConfig().redisSessionMetaTemplate(connectionFactory)));
+    }
+
+    @Test
+    void rotatedTokenCannotBeReplayed() {
+        refreshTokenRedisService.saveRefreshToken("t1", USER_ID, META, EXPIRE);
+
+        assertThat(refreshTokenRedisService.rotateRefreshToken("t1", "t2", USER_ID, META, EXPIRE)).isTrue();
+        // Token cũ bị dùng lại sau khi đã xoay vòng
+        assertThat(refreshTokenRedisService.rotateRefreshToken("t1", "t3", USER_ID, META, EXPIRE)).isFalse();
+        assertThat(refreshTokenRedisService.rotateRefreshToken("t2", "t3", USER_ID, META, EXPIRE)).isTrue();
+
+        List<SessionMetaResponse> sessions = refreshTokenRedisService.getAllSessionMetas(USER_ID, "t3");
+        assertThat(sessions).hasSize(1);
+        assertThat(sessions.get(0).isCurrent()).isTrue();
+    }
+
+    @Test
+    void replayedRotationDoesNotCreateSession() {
+        refreshTokenRedisService.saveRefreshToken("t1", USER_ID, META, EXPIRE);
+        refreshTokenRedisService.rotateRefreshToken("t1", "t2", USER_ID, META, EXPIRE);
+        refreshTokenRedisService.rotateRefreshToken("t1", "t3", USER_ID, META, EXPIRE);
+
+        assertThat(refreshTokenRedisService.getAllSessionMetas(USER_ID, "t2"))
+                .extracting(SessionMetaResponse::isCurrent)
+                .containsExactly(true);
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        assertThat(refreshTokenRedisService.rotateRefreshToken("unknown", "t2", USER_ID, META, EXPIRE)).isFalse();
+        assertThat(refreshTokenRedisService.getAllSessionMetas(USER_ID, "t2")).isEmpty();
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        refreshTokenRedisService.saveRefreshToken("t1", USER_ID, META, EXPIRE);
+        refreshTokenRedisService.deleteRefreshToken("t1", USER_ID);
+
+        assertThat(refreshTokenRedisService.rotateRefreshToken("t1", "t2", USER_ID, META, EXPIRE)).isFalse();
+    }
+
+    @Test
+    void tokenOfAnotherUserIsRejected() {
+        refreshTokenRedisService.saveRefreshToken("t1", USER_ID, META, EXPIRE);
+
+        assertThat(refreshTokenRedisService.rotateRefreshToken("t1", "t2", "2", META, EXPIRE)).isFalse();
+        assertThat(refreshTokenRedisService.rotateRefreshToken("t1", "t2", USER_ID, META, EXPIRE)).isTrue();
+    }
+}
@@ -0,0 +1,57 @@
+package com.TranAn.BackEnd_Works.service.template;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    @Test
+    void escapedSlotEncodesHtmlSpecialCharacters() {
+        CompiledTemplate template = CompiledTemplate.compile("<h2>{{name}}</h2>");
+
+        assertThat(template.render("<script>alert('x')</script> & \"Co\""))
+                .isEqualTo("<h2>&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; &quot;Co&quot;</h2>");
+    }
+
+    @Test
+    void escapedSlotCannotBreakOutOfAttribute() {
+        CompiledTemplate template = CompiledTemplate.compile("<a href=\"{{url}}\">link</a>");
+
+        assertThat(template.render("x\" onclick=\"alert(1)"))
+                .isEqualTo("<a href=\"x&quot; onclick=&quot;alert(1)\">link</a>");
+    }
+
+    @Test
+    void rawSlotIsInsertedVerbatim() {
+        CompiledTemplate template = CompiledTemplate.compile("<div>{{{body}}}</div>");
+
+        assertThat(template.render("<b>ok</b>")).isEqualTo("<div><b>ok</b></div>");
+    }
+
+    @Test
+    void sameSlotCanBeEscapedAndRaw() {
+        CompiledTemplate template = CompiledTemplate.compile("{{ value }}|{{{value}}}");
+
+        assertThat(template.slotCount()).isEqualTo(1);
+        assertThat(template.render("<i>")).isEqualTo("&lt;i&gt;|<i>");
+    }
+
+    @Test
+    void nullValueRendersAsEmpty() {
+        CompiledTemplate template = CompiledTemplate.compile("[{{a}}][{{{b}}}]");
+
+        assertThat(template.render(null, null)).isEqualTo("[][]");
+    }
+
+    @Test
+    void invalidTemplateIsRejected() {
+        assertThatThrownBy(() -> CompiledTemplate.compile("{{name"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledTemplate.compile("{{ }}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledTemplate.compile("{{a}}").render())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.TranAn.BackEnd_Works.service.template;
+
+import com.TranAn.BackEnd_Works.dto.email.JobMailDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateRendererTest {
+
+    private static final String INJECTED = "<img src=x onerror=alert(1)>";
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer();
+
+    @Test
+    void jobDigestEscapesJobCompanyAndSkillNames() {
+        JobMailDto job = new JobMailDto(
+                1L,
+                INJECTED,
+                1000.0,
+                List.of(new JobMailDto.SkillDto(1L, "<b>Java</b>")),
+                new JobMailDto.CompanyDto(1L, "Acme & \"Co\"", "<script>"),
+                "https://example.com/jobs/1\"><script>"
+        );
+
+        String html = renderer.renderJobDigest(List.of(job));
+
+        assertThat(html)
+                .doesNotContain(INJECTED, "<b>Java</b>", "<script>")
+                .contains("&lt;img src=x onerror=alert(1)&gt;")
+                .contains("Acme &amp; &quot;Co&quot;")
+                .contains("<span class=\"skill-tag\">&lt;b&gt;Java&lt;/b&gt;</span>")
+                .contains("https://example.com/jobs/1&quot;&gt;&lt;script&gt;")
+                // Các đoạn HTML ghép sẵn (slot {{{...}}}) vẫn được giữ nguyên
+                .contains("<span class=\"job-detail\">🛠️ 1 kỹ năng yêu cầu</span>");
+    }
+
+    @Test
+    void resumeStatusEscapesJobAndCompanyNames() {
+        String html = renderer.renderResumeStatus(
+                INJECTED, "Acme</span><script>", "Đã duyệt", "#16a34a", "✅", "Chúc mừng");
+
+        assertThat(html)
+                .doesNotContain(INJECTED, "</span><script>")
+                .contains("&lt;img src=x onerror=alert(1)&gt;")
+                .contains("Acme&lt;/span&gt;&lt;script&gt;");
+    }
+
+    @Test
+    void otpEscapesUserName() {
+        String html = renderer.renderOtp("123456", "<a href=\"evil\">Bob</a>");
+
+        assertThat(html)
+                .doesNotContain("<a href=\"evil\">")
+                .contains("&lt;a href=&quot;evil&quot;&gt;Bob&lt;/a&gt;")
+                .contains("123456");
+    }
+}